@@ -0,0 +1,113 @@
+package me.clip.placeholderapi;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Runs tasks on the server thread, tasks submitted from other threads are collected and all run by a single
+ * scheduler task on the next tick.
+ */
+final class MainThreadExecutor implements Executor
+{
+
+	@NotNull
+	private final Plugin          plugin;
+	@NotNull
+	private final Queue<Runnable> pending   = new ConcurrentLinkedQueue<>();
+	@NotNull
+	private final AtomicBoolean   scheduled = new AtomicBoolean();
+
+
+	MainThreadExecutor(@NotNull final Plugin plugin)
+	{
+		this.plugin = plugin;
+	}
+
+
+	@Override
+	public void execute(@NotNull final Runnable task)
+	{
+		if (Bukkit.isPrimaryThread())
+		{
+			task.run();
+			return;
+		}
+
+		if (!plugin.isEnabled())
+		{
+			throw new RejectedExecutionException("PlaceholderAPI is not enabled");
+		}
+
+		pending.add(task);
+
+		if (!scheduled.compareAndSet(false, true))
+		{
+			return;
+		}
+
+		try
+		{
+			Bukkit.getScheduler().runTask(plugin, this::drain);
+		}
+		catch (final RuntimeException ex)
+		{
+			// the plugin was disabled in the meantime, no task queued since will ever be run
+			scheduled.set(false);
+			reject();
+
+			throw new RejectedExecutionException("failed to schedule main thread tasks", ex);
+		}
+	}
+
+	/**
+	 * Runs every pending task on the current thread, called by the scheduler and when the plugin is disabled so no
+	 * task is left waiting.
+	 */
+	void drain()
+	{
+		scheduled.set(false);
+
+		Runnable task;
+		while ((task = pending.poll()) != null)
+		{
+			try
+			{
+				task.run();
+			}
+			catch (final Throwable throwable)
+			{
+				plugin.getLogger().log(Level.WARNING, "failed to run main thread task", throwable);
+			}
+		}
+	}
+
+	/**
+	 * Removes every pending task without running it, tasks which are {@link Future}s are cancelled so whoever waits
+	 * on them is released.
+	 */
+	private void reject()
+	{
+		Runnable task;
+		while ((task = pending.poll()) != null)
+		{
+			if (task instanceof Future)
+			{
+				((Future<?>) task).cancel(false);
+			}
+			else
+			{
+				plugin.getLogger().warning("dropped main thread task " + task + ", PlaceholderAPI is disabled");
+			}
+		}
+	}
+
+}
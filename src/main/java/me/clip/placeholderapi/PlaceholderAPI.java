@@ -22,15 +22,24 @@ package me.clip.placeholderapi;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import me.clip.placeholderapi.cache.RelationalCache;
+import me.clip.placeholderapi.cache.ValueCache;
 import me.clip.placeholderapi.events.ExpansionRegisterEvent;
 import me.clip.placeholderapi.events.ExpansionUnregisterEvent;
 import me.clip.placeholderapi.expansion.Cacheable;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import me.clip.placeholderapi.expansion.PlayerIndependent;
 import me.clip.placeholderapi.expansion.Relational;
+import me.clip.placeholderapi.expansion.ThreadSafe;
+import me.clip.placeholderapi.replacer.Batch;
 import me.clip.placeholderapi.replacer.CharsReplacer;
+import me.clip.placeholderapi.replacer.ParsedTemplate;
+import me.clip.placeholderapi.replacer.RelationalReplacer;
 import me.clip.placeholderapi.replacer.Replacer;
 import me.clip.placeholderapi.replacer.Replacer.Closure;
-import me.clip.placeholderapi.util.Msg;
+import me.clip.placeholderapi.stats.PlaceholderStatistics;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
@@ -38,22 +47,63 @@ import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public final class PlaceholderAPI
 {
 
-	private static final Replacer REPLACER_PERCENT = new CharsReplacer(Closure.PERCENT);
-	private static final Replacer REPLACER_BRACKET = new CharsReplacer(Closure.BRACKET);
+	private static final CharsReplacer REPLACER_PERCENT = new CharsReplacer(Closure.PERCENT);
+	private static final CharsReplacer REPLACER_BRACKET = new CharsReplacer(Closure.BRACKET);
 
-	private static final Map<String, PlaceholderHook> PLACEHOLDERS = new HashMap<>();
+	private static final RelationalReplacer REPLACER_RELATIONAL = new RelationalReplacer();
+
+	/**
+	 * Guards writes to {@link #placeholders}, reads never lock and only see complete snapshots.
+	 */
+	private static final Object PLACEHOLDERS_LOCK = new Object();
+
+	@NotNull
+	private static volatile PlaceholderIndex placeholders = PlaceholderIndex.EMPTY;
+
+	private static final ValueCache            VALUE_CACHE      = new ValueCache(identifier -> placeholders.getPlaceholders().get(identifier), PlaceholderAPI::undecorate);
+	private static final RelationalCache       RELATIONAL_CACHE = new RelationalCache(identifier -> placeholders.getPlaceholders().get(identifier), () -> {
+	});
+	private static final PlaceholderStatistics STATISTICS       = new PlaceholderStatistics(identifier -> {
+		// statistics record the hook as the value cache decorates it
+		final PlaceholderHook hook = placeholders.getPlaceholders().get(identifier);
+		return hook == null ? null : VALUE_CACHE.decorate(identifier, hook);
+	}, PlaceholderAPI::undecorate);
+
+	private static final Replacer.RangeLookup LOOKUP = new Replacer.RangeLookup()
+	{
+		@Override
+		public @Nullable PlaceholderHook apply(@NotNull final String identifier)
+		{
+			final PlaceholderIndex index = placeholders;
+
+			final int slot = index.find(identifier);
+			return slot == -1 ? null : decorate(index, slot);
+		}
+
+		@Override
+		public @Nullable PlaceholderHook apply(@NotNull final CharSequence text, final int start, final int end)
+		{
+			final PlaceholderIndex index = placeholders;
+
+			final int slot = index.find(text, start, end);
+			return slot == -1 ? null : decorate(index, slot);
+		}
+	};
 
 
 	@Deprecated
@@ -82,12 +132,14 @@ public final class PlaceholderAPI
 	@NotNull
 	public static String setPlaceholders(@Nullable final OfflinePlayer player, @NotNull final String text)
 	{
-		return REPLACER_PERCENT.apply(text, player, PLACEHOLDERS::get);
+		return REPLACER_PERCENT.apply(text, player, LOOKUP);
 	}
 
 	/**
 	 * Translates all placeholders into their corresponding values.
 	 * <br>The pattern of a valid placeholder is {@literal %<identifier>_<params>%}.
+	 * <br>Every line is translated on its own, use {@link #setPlaceholders(OfflinePlayer, List, Batch)} to request
+	 * each distinct placeholder only once.
 	 *
 	 * @param player Player to parse the placeholders against
 	 * @param text   List of Strings to set the placeholder values in
@@ -99,6 +151,23 @@ public final class PlaceholderAPI
 		return text.stream().map(line -> setPlaceholders(player, line)).collect(Collectors.toList());
 	}
 
+	/**
+	 * Translates all placeholders into their corresponding values.
+	 * <br>The pattern of a valid placeholder is {@literal %<identifier>_<params>%}.
+	 * <br>Every distinct placeholder is only requested once, values already in the batch are reused. Placeholders
+	 * whose value changes on every request, like random picks or counters, get the same value on every line.
+	 *
+	 * @param player Player to parse the placeholders against
+	 * @param text   List of Strings to set the placeholder values in
+	 * @param batch  Values resolved for this player, reports how many lookups were saved
+	 * @return String containing all translated placeholders
+	 */
+	@NotNull
+	public static List<String> setPlaceholders(@Nullable final OfflinePlayer player, @NotNull final List<@NotNull String> text, @NotNull final Batch batch)
+	{
+		return REPLACER_PERCENT.apply(text, player, LOOKUP, batch);
+	}
+
 	/**
 	 * Translates all placeholders into their corresponding values.
 	 * <br>The pattern of a valid placeholder is {@literal {<identifier>_<params>}}.
@@ -111,12 +180,14 @@ public final class PlaceholderAPI
 	@NotNull
 	public static String setBracketPlaceholders(@Nullable final OfflinePlayer player, @NotNull final String text)
 	{
-		return REPLACER_BRACKET.apply(text, player, PLACEHOLDERS::get);
+		return REPLACER_BRACKET.apply(text, player, LOOKUP);
 	}
 
 	/**
 	 * Translates all placeholders into their corresponding values.
 	 * <br>The pattern of a valid placeholder is {@literal {<identifier>_<params>}}.
+	 * <br>Every line is translated on its own, use {@link #setBracketPlaceholders(OfflinePlayer, List, Batch)} to
+	 * request each distinct placeholder only once.
 	 *
 	 * @param player Player to parse the placeholders against
 	 * @param text   List of Strings to set the placeholder values in
@@ -129,6 +200,203 @@ public final class PlaceholderAPI
 		return text.stream().map(line -> setBracketPlaceholders(player, line)).collect(Collectors.toList());
 	}
 
+	/**
+	 * Translates all placeholders into their corresponding values.
+	 * <br>The pattern of a valid placeholder is {@literal {<identifier>_<params>}}.
+	 * <br>Every distinct placeholder is only requested once, values already in the batch are reused. Placeholders
+	 * whose value changes on every request, like random picks or counters, get the same value on every line.
+	 *
+	 * @param player Player to parse the placeholders against
+	 * @param text   List of Strings to set the placeholder values in
+	 * @param batch  Values resolved for this player, reports how many lookups were saved
+	 *
+	 * @return String containing all translated placeholders
+	 */
+	@NotNull
+	public static List<String> setBracketPlaceholders(@Nullable final OfflinePlayer player, @NotNull final List<@NotNull String> text, @NotNull final Batch batch)
+	{
+		return REPLACER_BRACKET.apply(text, player, LOOKUP, batch);
+	}
+
+
+	/**
+	 * Translates all placeholders into their corresponding values, appending the result to the target.
+	 * <br>The pattern of a valid placeholder is {@literal %<identifier>_<params>%}.
+	 *
+	 * @param player Player to parse the placeholders against
+	 * @param text   Text to set the placeholder values in
+	 * @param target Builder the translated text is appended to
+	 */
+	public static void setPlaceholders(@Nullable final OfflinePlayer player, @NotNull final CharSequence text, @NotNull final StringBuilder target)
+	{
+		REPLACER_PERCENT.apply(text, player, LOOKUP, target);
+	}
+
+	/**
+	 * Translates all placeholders into their corresponding values, appending the result to the target.
+	 * <br>The pattern of a valid placeholder is {@literal %<identifier>_<params>%}.
+	 *
+	 * @param player Player to parse the placeholders against
+	 * @param text   Text to set the placeholder values in
+	 * @param target Appendable the translated text is appended to
+	 * @throws IOException If the target fails to append
+	 */
+	public static void setPlaceholders(@Nullable final OfflinePlayer player, @NotNull final CharSequence text, @NotNull final Appendable target) throws IOException
+	{
+		REPLACER_PERCENT.apply(text, player, LOOKUP, target);
+	}
+
+	/**
+	 * Translates all placeholders into their corresponding values, appending the result to the target.
+	 * <br>The pattern of a valid placeholder is {@literal {<identifier>_<params>}}.
+	 *
+	 * @param player Player to parse the placeholders against
+	 * @param text   Text to set the placeholder values in
+	 * @param target Builder the translated text is appended to
+	 */
+	public static void setBracketPlaceholders(@Nullable final OfflinePlayer player, @NotNull final CharSequence text, @NotNull final StringBuilder target)
+	{
+		REPLACER_BRACKET.apply(text, player, LOOKUP, target);
+	}
+
+	/**
+	 * Translates all placeholders into their corresponding values, appending the result to the target.
+	 * <br>The pattern of a valid placeholder is {@literal {<identifier>_<params>}}.
+	 *
+	 * @param player Player to parse the placeholders against
+	 * @param text   Text to set the placeholder values in
+	 * @param target Appendable the translated text is appended to
+	 * @throws IOException If the target fails to append
+	 */
+	public static void setBracketPlaceholders(@Nullable final OfflinePlayer player, @NotNull final CharSequence text, @NotNull final Appendable target) throws IOException
+	{
+		REPLACER_BRACKET.apply(text, player, LOOKUP, target);
+	}
+
+
+	/**
+	 * Parses the text once into a reusable template, translating color codes and locating every placeholder ahead
+	 * of time.
+	 * <br>Use this for text that is parsed repeatedly, then translate it with
+	 * {@link #setPlaceholders(OfflinePlayer, ParsedTemplate)}.
+	 *
+	 * @param text    Text to compile
+	 * @param closure The closure of the placeholders, {@link Closure#PERCENT} for {@literal %<identifier>_<params>%}
+	 *                or {@link Closure#BRACKET} for {@literal {<identifier>_<params>}}
+	 * @return The compiled template
+	 */
+	@NotNull
+	public static ParsedTemplate compile(@NotNull final String text, @NotNull final Closure closure)
+	{
+		return (closure == Closure.BRACKET ? REPLACER_BRACKET : REPLACER_PERCENT).compile(text);
+	}
+
+	/**
+	 * Translates all placeholders of a compiled template into their corresponding values.
+	 *
+	 * @param player   Player to parse the placeholders against
+	 * @param template Template created by {@link #compile(String, Closure)}
+	 * @return String containing all translated placeholders
+	 */
+	@NotNull
+	public static String setPlaceholders(@Nullable final OfflinePlayer player, @NotNull final ParsedTemplate template)
+	{
+		return template.apply(player, LOOKUP);
+	}
+
+
+	/**
+	 * Translates all placeholders into their corresponding values for every player, parsing the text only once.
+	 * <br>The pattern of a valid placeholder is {@literal %<identifier>_<params>%}.
+	 * <br>Placeholders of expansions implementing {@link PlayerIndependent} are requested once and shared between
+	 * all players.
+	 *
+	 * @param players Players to parse the placeholders against
+	 * @param text    Text to set the placeholder values in
+	 * @param <P>     The type of the players
+	 * @return Map of every player to its translated text
+	 */
+	@NotNull
+	public static <P extends OfflinePlayer> Map<P, String> setPlaceholdersForEach(@NotNull final Collection<? extends P> players, @NotNull final String text)
+	{
+		return setPlaceholdersForEach(players, REPLACER_PERCENT.compile(text));
+	}
+
+	/**
+	 * Translates all placeholders of a compiled template into their corresponding values for every player.
+	 * <br>Placeholders of expansions implementing {@link PlayerIndependent} are requested once and shared between
+	 * all players.
+	 *
+	 * @param players  Players to parse the placeholders against
+	 * @param template Template created by {@link #compile(String, Closure)}
+	 * @param <P>      The type of the players
+	 * @return Map of every player to its translated text
+	 */
+	@NotNull
+	public static <P extends OfflinePlayer> Map<P, String> setPlaceholdersForEach(@NotNull final Collection<? extends P> players, @NotNull final ParsedTemplate template)
+	{
+		return template.apply(players, LOOKUP, PlaceholderAPI::isPlayerIndependent);
+	}
+
+
+	/**
+	 * Translates all relational placeholders into their corresponding values for every viewer and target, parsing
+	 * the text only once.
+	 * <br>The pattern of a valid placeholder is {@literal %rel_<identifier>_<params>%}.
+	 * <br>Each placeholder is requested once per viewer for all targets through
+	 * {@link Relational#onPlaceholderRequests(Player, Collection, String)}.
+	 *
+	 * @param viewers Players to compare, the rows of the result
+	 * @param targets Players to compare the viewers to, the columns of the result
+	 * @param text    Text to set the placeholder values in
+	 * @return Table of viewer and target to the translated text
+	 */
+	@NotNull
+	public static Table<Player, Player, String> setRelationalPlaceholdersForEach(@NotNull final Collection<? extends Player> viewers, @NotNull final Collection<? extends Player> targets, @NotNull final String text)
+	{
+		return REPLACER_RELATIONAL.applyForEach(text, viewers, targets, PlaceholderAPI::getRelationalHook, true);
+	}
+
+
+	/**
+	 * Translates all placeholders into their corresponding values, without requesting placeholders that must be
+	 * requested on the main thread from the calling thread.
+	 * <br>The pattern of a valid placeholder is {@literal %<identifier>_<params>%}.
+	 * <br>Placeholders of expansions implementing {@link ThreadSafe} are requested right away, the others are
+	 * requested together with all other pending ones on the next tick, which is also when the future completes.
+	 *
+	 * @param player Player to parse the placeholders against
+	 * @param text   Text to set the placeholder values in
+	 * @return Future completed with the String containing all translated placeholders
+	 */
+	@NotNull
+	public static CompletableFuture<String> setPlaceholdersAsync(@Nullable final OfflinePlayer player, @NotNull final String text)
+	{
+		return setPlaceholdersAsync(player, REPLACER_PERCENT.compile(text));
+	}
+
+	/**
+	 * Translates all placeholders of a compiled template into their corresponding values, without requesting
+	 * placeholders that must be requested on the main thread from the calling thread.
+	 * <br>Placeholders of expansions implementing {@link ThreadSafe} are requested right away, the others are
+	 * requested together with all other pending ones on the next tick, which is also when the future completes.
+	 *
+	 * @param player   Player to parse the placeholders against
+	 * @param template Template created by {@link #compile(String, Closure)}
+	 * @return Future completed with the String containing all translated placeholders
+	 */
+	@NotNull
+	public static CompletableFuture<String> setPlaceholdersAsync(@Nullable final OfflinePlayer player, @NotNull final ParsedTemplate template)
+	{
+		final PlaceholderAPIPlugin plugin = PlaceholderAPIPlugin.getInstance();
+
+		final Executor mainThread = plugin != null ? plugin.getMainThreadExecutor() : task -> {
+			throw new RejectedExecutionException("PlaceholderAPI is not enabled");
+		};
+
+		return template.applyAsync(player, LOOKUP, PlaceholderAPI::isThreadSafe, mainThread);
+	}
+
 
 	/**
 	 * Check if a specific placeholder identifier is currently registered
@@ -138,7 +406,53 @@ public final class PlaceholderAPI
 	 */
 	public static boolean isRegistered(@NotNull final String identifier)
 	{
-		return PLACEHOLDERS.containsKey(identifier.toLowerCase());
+		return placeholders.getPlaceholders().containsKey(identifier.toLowerCase());
+	}
+
+	/**
+	 * Get the placeholder hook registered for an identifier
+	 *
+	 * @param identifier The identifier of the placeholder hook, identifiers are stored in lowercase
+	 * @return The registered placeholder hook, or null if there is none
+	 */
+	@Nullable
+	public static PlaceholderHook getPlaceholderHook(@NotNull final String identifier)
+	{
+		return placeholders.getPlaceholders().get(identifier);
+	}
+
+	/**
+	 * Get the cache placeholder values are served from when their hook opted in to caching
+	 *
+	 * @return The placeholder value cache
+	 */
+	@NotNull
+	public static ValueCache getValueCache()
+	{
+		return VALUE_CACHE;
+	}
+
+	/**
+	 * Get the cache relational placeholder values are served from when their hook opted in to caching
+	 * <br>Expansions should invalidate players here when their relations change.
+	 *
+	 * @return The relational placeholder value cache
+	 */
+	@NotNull
+	public static RelationalCache getRelationalCache()
+	{
+		return RELATIONAL_CACHE;
+	}
+
+	/**
+	 * Get the statistics recorded for placeholder requests while enabled
+	 *
+	 * @return The placeholder request statistics
+	 */
+	@NotNull
+	public static PlaceholderStatistics getPlaceholderStatistics()
+	{
+		return STATISTICS;
 	}
 
 	/**
@@ -152,7 +466,19 @@ public final class PlaceholderAPI
 	 */
 	public static boolean registerPlaceholderHook(@NotNull final String identifier, @NotNull final PlaceholderHook placeholderHook)
 	{
-		return PLACEHOLDERS.putIfAbsent(identifier.toLowerCase(), placeholderHook) == null;
+		final String key = identifier.toLowerCase();
+
+		synchronized (PLACEHOLDERS_LOCK)
+		{
+			final ImmutableMap<String, PlaceholderHook> current = placeholders.getPlaceholders();
+			if (current.containsKey(key))
+			{
+				return false;
+			}
+
+			placeholders = new PlaceholderIndex(ImmutableMap.<String, PlaceholderHook>builder().putAll(current).put(key, placeholderHook).build());
+			return true;
+		}
 	}
 
 	public static boolean registerPlaceholderHook(@NotNull final Plugin plugin, @NotNull final PlaceholderHook placeholderHook)
@@ -160,6 +486,35 @@ public final class PlaceholderAPI
 		return registerPlaceholderHook(plugin.getName(), placeholderHook);
 	}
 
+	/**
+	 * Swap the hook registered for an identifier in one step, so the identifier is never missing in between
+	 *
+	 * @param identifier  The identifier of the placeholder hook to replace
+	 * @param expected    The hook which must currently be registered for the identifier
+	 * @param replacement The hook to register instead
+	 * @return true if the hook was replaced, false if the expected hook was not the one registered
+	 */
+	public static boolean replacePlaceholderHook(@NotNull final String identifier, @NotNull final PlaceholderHook expected, @NotNull final PlaceholderHook replacement)
+	{
+		final String key = identifier.toLowerCase();
+
+		synchronized (PLACEHOLDERS_LOCK)
+		{
+			final ImmutableMap<String, PlaceholderHook> current = placeholders.getPlaceholders();
+			if (current.get(key) != expected)
+			{
+				return false;
+			}
+
+			placeholders = new PlaceholderIndex(ImmutableMap.copyOf(Maps.transformEntries(current, (other, hook) -> key.equals(other) ? replacement : hook)));
+		}
+
+		VALUE_CACHE.invalidate(key);
+		RELATIONAL_CACHE.invalidate(key);
+		STATISTICS.invalidate(key);
+		return true;
+	}
+
 	/**
 	 * Unregister a placeholder hook by identifier
 	 *
@@ -169,7 +524,23 @@ public final class PlaceholderAPI
 	 */
 	public static boolean unregisterPlaceholderHook(@NotNull final String identifier)
 	{
-		return PLACEHOLDERS.remove(identifier.toLowerCase()) != null;
+		final String key = identifier.toLowerCase();
+
+		synchronized (PLACEHOLDERS_LOCK)
+		{
+			final ImmutableMap<String, PlaceholderHook> current = placeholders.getPlaceholders();
+			if (!current.containsKey(key))
+			{
+				return false;
+			}
+
+			placeholders = new PlaceholderIndex(ImmutableMap.copyOf(Maps.filterKeys(current, other -> !key.equals(other))));
+		}
+
+		VALUE_CACHE.invalidate(key);
+		RELATIONAL_CACHE.invalidate(key);
+		STATISTICS.invalidate(key);
+		return true;
 	}
 
 	public static boolean unregisterPlaceholderHook(@NotNull final Plugin plugin)
@@ -181,23 +552,23 @@ public final class PlaceholderAPI
 	/**
 	 * Get all registered placeholder identifiers
 	 *
-	 * @return All registered placeholder identifiers
+	 * @return Immutable snapshot of all registered placeholder identifiers
 	 */
 	@NotNull
 	public static Set<String> getRegisteredIdentifiers()
 	{
-		return ImmutableSet.copyOf(PLACEHOLDERS.keySet());
+		return placeholders.getPlaceholders().keySet();
 	}
 
 	/**
 	 * Get map of registered placeholders
 	 *
-	 * @return Copy of the internal placeholder map
+	 * @return Immutable snapshot of the internal placeholder map
 	 */
 	@NotNull
 	public static Map<String, PlaceholderHook> getPlaceholders()
 	{
-		return ImmutableMap.copyOf(PLACEHOLDERS);
+		return placeholders.getPlaceholders();
 	}
 
 
@@ -207,7 +578,15 @@ public final class PlaceholderAPI
 	protected static void unregisterAll()
 	{
 		unregisterAllProvidedExpansions();
-		PLACEHOLDERS.clear();
+
+		synchronized (PLACEHOLDERS_LOCK)
+		{
+			placeholders = PlaceholderIndex.EMPTY;
+		}
+
+		VALUE_CACHE.invalidateAll();
+		RELATIONAL_CACHE.invalidateAll();
+		STATISTICS.invalidateAll();
 	}
 
 	/**
@@ -215,7 +594,7 @@ public final class PlaceholderAPI
 	 */
 	public static void unregisterAllProvidedExpansions()
 	{
-		final Set<PlaceholderHook> set = new HashSet<>(PLACEHOLDERS.values());
+		final Set<PlaceholderHook> set = new HashSet<>(placeholders.getPlaceholders().values());
 
 		for (PlaceholderHook hook : set)
 		{
@@ -261,6 +640,55 @@ public final class PlaceholderAPI
 	}
 
 
+	/**
+	 * Decorate the hook of a slot once, and keep it for every following request of the same snapshot
+	 */
+	@NotNull
+	private static PlaceholderHook decorate(@NotNull final PlaceholderIndex index, final int slot)
+	{
+		PlaceholderHook hook = index.getDecorated(slot);
+		if (hook == null)
+		{
+			final String identifier = index.getIdentifier(slot);
+
+			hook = STATISTICS.decorate(identifier, VALUE_CACHE.decorate(identifier, index.getHook(slot)));
+			index.setDecorated(slot, hook);
+		}
+
+		return hook;
+	}
+
+	/**
+	 * Publish the registered hooks again without their decorations, called whenever the value cache or statistics
+	 * would decorate them differently
+	 */
+	private static void undecorate()
+	{
+		synchronized (PLACEHOLDERS_LOCK)
+		{
+			placeholders = placeholders.undecorated();
+		}
+	}
+
+	@Nullable
+	private static PlaceholderHook getRelationalHook(@NotNull final String identifier)
+	{
+		final PlaceholderHook hook = placeholders.getPlaceholders().get(identifier);
+		return hook == null ? null : RELATIONAL_CACHE.decorate(identifier, hook);
+	}
+
+	private static boolean isThreadSafe(@NotNull final String identifier)
+	{
+		return placeholders.getPlaceholders().get(identifier) instanceof ThreadSafe;
+	}
+
+	private static boolean isPlayerIndependent(@NotNull final String identifier, @NotNull final String params)
+	{
+		final PlaceholderHook hook = placeholders.getPlaceholders().get(identifier);
+		return hook instanceof PlayerIndependent && ((PlayerIndependent) hook).isPlayerIndependent(params);
+	}
+
+
 	// === Deprecated API ===
 
 	/**
@@ -504,7 +932,6 @@ public final class PlaceholderAPI
 	 * @deprecated Use {@link #setPlaceholders(OfflinePlayer, String)} instead.
 	 */
 	@Deprecated
-	@SuppressWarnings("DuplicatedCode")
 	public static String setRelationalPlaceholders(Player one, Player two, String text, boolean colorize)
 	{
 		if (text == null)
@@ -512,42 +939,7 @@ public final class PlaceholderAPI
 			return null;
 		}
 
-		if (PLACEHOLDERS.isEmpty())
-		{
-			return colorize ? Msg.color(text) : text;
-		}
-
-		final Matcher                      matcher = RELATIONAL_PLACEHOLDER_PATTERN.matcher(text);
-		final Map<String, PlaceholderHook> hooks   = getPlaceholders();
-
-		while (matcher.find())
-		{
-			final String format = matcher.group(2);
-			final int    index  = format.indexOf("_");
-
-			if (index <= 0 || index >= format.length())
-			{
-				continue;
-			}
-
-			String                identifier = format.substring(0, index).toLowerCase();
-			String                params     = format.substring(index + 1);
-			final PlaceholderHook hook       = hooks.get(identifier);
-
-			if (!(hook instanceof Relational))
-			{
-				continue;
-			}
-
-			final String value = ((Relational) hook).onPlaceholderRequest(one, two, params);
-
-			if (value != null)
-			{
-				text = text.replaceAll(Pattern.quote(matcher.group()), Matcher.quoteReplacement(value));
-			}
-		}
-
-		return colorize ? Msg.color(text) : text;
+		return REPLACER_RELATIONAL.apply(text, one, two, PlaceholderAPI::getRelationalHook, colorize);
 	}
 
 	/**
@@ -38,9 +38,11 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -59,11 +61,13 @@ public final class PlaceholderAPIPlugin extends JavaPlugin
 
 
 	@NotNull
-	private final PlaceholderAPIConfig  config  = new PlaceholderAPIConfig(this);
+	private final PlaceholderAPIConfig  config     = new PlaceholderAPIConfig(this);
 	@NotNull
-	private final ExpansionCloudManager cloud   = new ExpansionCloudManager(this);
+	private final ExpansionCloudManager cloud      = new ExpansionCloudManager(this);
 	@NotNull
-	private final ExpansionManager      manager = new ExpansionManager(this);
+	private final ExpansionManager      manager    = new ExpansionManager(this);
+	@NotNull
+	private final MainThreadExecutor    mainThread = new MainThreadExecutor(this);
 
 
 	@Override
@@ -79,6 +83,9 @@ public final class PlaceholderAPIPlugin extends JavaPlugin
 	{
 		setupCommand();
 		setupMetrics();
+		setupCache();
+		setupStatistics();
+		setupLazyExpansions();
 		setupExpansions();
 
 		new PlaceholderListener(this);
@@ -99,6 +106,9 @@ public final class PlaceholderAPIPlugin extends JavaPlugin
 	{
 		disableCloud();
 
+		mainThread.drain();
+
+		manager.unloadExpansions();
 		PlaceholderAPI.unregisterAll();
 
 		HandlerList.unregisterAll(this);
@@ -108,13 +118,21 @@ public final class PlaceholderAPIPlugin extends JavaPlugin
 	}
 
 
-	public void reloadConf(@NotNull final CommandSender sender)
+	@Override
+	public void reloadConfig()
 	{
-		PlaceholderAPI.unregisterAllProvidedExpansions();
+		super.reloadConfig();
+		config.reload();
+	}
 
+	public void reloadConf(@NotNull final CommandSender sender)
+	{
 		reloadConfig();
+		setupCache();
+		setupStatistics();
+		setupLazyExpansions();
 
-		manager.registerAllExpansions();
+		final ExpansionManager.ReloadResult result = manager.reloadExpansions();
 
 		if (config.isCloudEnabled())
 		{
@@ -125,6 +143,23 @@ public final class PlaceholderAPIPlugin extends JavaPlugin
 			disableCloud();
 		}
 
+		Msg.msg(sender,
+				"&7Reloaded &f" + result.getReloaded().size() + "&7, added &f" + result.getAdded().size() + "&7 and removed &f" + result.getRemoved().size() +
+				"&7 expansion(s) in &f" + result.getMillis() + "ms&7, &f" + result.getUnchanged() + "&7 unchanged");
+
+		if (!result.getReloaded().isEmpty())
+		{
+			Msg.msg(sender, "&7Reloaded: &f" + String.join("&7, &f", result.getReloaded()));
+		}
+		if (!result.getAdded().isEmpty())
+		{
+			Msg.msg(sender, "&7Added: &a" + String.join("&7, &a", result.getAdded()));
+		}
+		if (!result.getRemoved().isEmpty())
+		{
+			Msg.msg(sender, "&7Removed: &c" + String.join("&7, &c", result.getRemoved()));
+		}
+
 		Msg.msg(sender,
 				PlaceholderAPI.getRegisteredIdentifiers().size() + " &aplaceholder hooks successfully registered!");
 	}
@@ -132,6 +167,9 @@ public final class PlaceholderAPIPlugin extends JavaPlugin
 	public void enableCloud()
 	{
 		disableCloud();
+
+		final String sharedCache = config.cloudDownloadSharedCache();
+		cloud.configureDownloads(config.cloudDownloadConcurrency(), config.cloudDownloadRetries(), sharedCache == null ? null : new File(sharedCache));
 		cloud.fetch(config.cloudAllowUnverifiedExpansions());
 	}
 
@@ -164,6 +202,12 @@ public final class PlaceholderAPIPlugin extends JavaPlugin
 		return cloud;
 	}
 
+	@NotNull
+	MainThreadExecutor getMainThreadExecutor()
+	{
+		return mainThread;
+	}
+
 
 	private void setupCommand()
 	{
@@ -207,6 +251,22 @@ public final class PlaceholderAPIPlugin extends JavaPlugin
 		}));
 	}
 
+	private void setupCache()
+	{
+		PlaceholderAPI.getValueCache().configure(config.isCacheEnabled(), config.cacheMaximumSize(), config::cacheDuration);
+		PlaceholderAPI.getRelationalCache().configure(config.isCacheEnabled(), config.relationalCacheMaximumSize(), config::cacheDuration);
+	}
+
+	private void setupStatistics()
+	{
+		PlaceholderAPI.getPlaceholderStatistics().configure(config.isStatsEnabled(), config.statsSampleRate(), config.isStatsPerParams());
+	}
+
+	private void setupLazyExpansions()
+	{
+		manager.configure(config.isLazyExpansionsEnabled(), TimeUnit.MINUTES.toMillis(config.lazyExpansionsIdleMinutes()));
+	}
+
 	private void setupExpansions()
 	{
 		try
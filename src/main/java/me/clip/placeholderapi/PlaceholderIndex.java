@@ -0,0 +1,191 @@
+package me.clip.placeholderapi;
+
+import com.google.common.collect.ImmutableMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the registered placeholder hooks.
+ * <br>Next to the map it keeps an open addressing table hashed like {@link String#hashCode()}, so an identifier can
+ * be resolved straight from a range of the parsed text without creating a substring.
+ * <br>Each slot also remembers the hook as it was decorated on its first request, a new snapshot is published
+ * whenever those decorations must be redone.
+ */
+final class PlaceholderIndex
+{
+
+	static final PlaceholderIndex EMPTY = new PlaceholderIndex(ImmutableMap.of());
+
+
+	@NotNull
+	private final ImmutableMap<String, PlaceholderHook> placeholders;
+
+	@NotNull
+	private final String[]          identifiers;
+	@NotNull
+	private final PlaceholderHook[] hooks;
+	@NotNull
+	private final int[]             hashes;
+	private final int               mask;
+
+	/**
+	 * Racing requests store the same decoration, which only has final fields, so the slots need no synchronization
+	 */
+	@NotNull
+	private final PlaceholderHook[] decorated;
+
+	PlaceholderIndex(@NotNull final ImmutableMap<String, PlaceholderHook> placeholders)
+	{
+		this.placeholders = placeholders;
+
+		int capacity = 2;
+		while (capacity < placeholders.size() * 2)
+		{
+			capacity <<= 1;
+		}
+
+		this.identifiers = new String[capacity];
+		this.hooks = new PlaceholderHook[capacity];
+		this.hashes = new int[capacity];
+		this.mask = capacity - 1;
+		this.decorated = new PlaceholderHook[capacity];
+
+		for (final Map.Entry<String, PlaceholderHook> entry : placeholders.entrySet())
+		{
+			final int hash = entry.getKey().hashCode();
+
+			int slot = spread(hash) & mask;
+			while (identifiers[slot] != null)
+			{
+				slot = (slot + 1) & mask;
+			}
+
+			identifiers[slot] = entry.getKey();
+			hooks[slot] = entry.getValue();
+			hashes[slot] = hash;
+		}
+	}
+
+	private PlaceholderIndex(@NotNull final PlaceholderIndex index)
+	{
+		this.placeholders = index.placeholders;
+		this.identifiers = index.identifiers;
+		this.hooks = index.hooks;
+		this.hashes = index.hashes;
+		this.mask = index.mask;
+		this.decorated = new PlaceholderHook[index.decorated.length];
+	}
+
+
+	/**
+	 * @return A snapshot of the same hooks without any decorations
+	 */
+	@NotNull
+	PlaceholderIndex undecorated()
+	{
+		return new PlaceholderIndex(this);
+	}
+
+
+	@NotNull
+	ImmutableMap<String, PlaceholderHook> getPlaceholders()
+	{
+		return placeholders;
+	}
+
+
+	/**
+	 * Find the slot of the identifier
+	 *
+	 * @return The slot, or -1 if the identifier is not registered
+	 */
+	int find(@NotNull final String identifier)
+	{
+		return find(identifier.hashCode(), identifier, 0, identifier.length());
+	}
+
+	/**
+	 * Find the slot of the identifier in the range of the text
+	 *
+	 * @return The slot, or -1 if the identifier is not registered
+	 */
+	int find(@NotNull final CharSequence text, final int start, final int end)
+	{
+		int hash = 0;
+		for (int i = start; i < end; i++)
+		{
+			hash = (31 * hash) + text.charAt(i);
+		}
+
+		return find(hash, text, start, end);
+	}
+
+	@NotNull
+	String getIdentifier(final int slot)
+	{
+		return identifiers[slot];
+	}
+
+	@NotNull
+	PlaceholderHook getHook(final int slot)
+	{
+		return hooks[slot];
+	}
+
+	/**
+	 * @return The decorated hook of the slot, or null if it wasn't requested since this snapshot was published
+	 */
+	@Nullable
+	PlaceholderHook getDecorated(final int slot)
+	{
+		return decorated[slot];
+	}
+
+	void setDecorated(final int slot, @NotNull final PlaceholderHook hook)
+	{
+		decorated[slot] = hook;
+	}
+
+
+	private int find(final int hash, @NotNull final CharSequence text, final int start, final int end)
+	{
+		final int length = end - start;
+
+		int slot = spread(hash) & mask;
+
+		String identifier;
+		while ((identifier = identifiers[slot]) != null)
+		{
+			if (hashes[slot] == hash && identifier.length() == length && matches(identifier, text, start))
+			{
+				return slot;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+
+	private static boolean matches(@NotNull final String identifier, @NotNull final CharSequence text, final int start)
+	{
+		for (int i = 0; i < identifier.length(); i++)
+		{
+			if (identifier.charAt(i) != text.charAt(start + i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static int spread(final int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+
+}
@@ -0,0 +1,498 @@
+package me.clip.placeholderapi.cache;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.collect.ImmutableMap;
+import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.expansion.Memoizable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The part shared by {@link ValueCache} and {@link RelationalCache}, every identifier gets a cached hook of its own
+ * wrapping the registered hook, which keeps the values of that hook for the duration declared by a
+ * {@link Memoizable} hook or configured by the server owner.
+ * <br>The values of all identifiers share a single cache bounded to the configured maximum size, least recently used
+ * values are evicted first, no matter which expansion they belong to.
+ *
+ * @param <H> The type of the cached hooks
+ */
+abstract class HookCache<H extends HookCache.CachedHook>
+{
+
+	@NotNull
+	private final Map<String, H>                              hooks = new ConcurrentHashMap<>();
+	@NotNull
+	private final Function<String, @Nullable PlaceholderHook> registered;
+	@NotNull
+	private final Runnable                                    changed;
+	@NotNull
+	private final Ticker                                      ticker;
+
+	private volatile boolean                          enabled   = true;
+	private volatile long                             maximumSize;
+	@NotNull
+	private volatile Function<String, @Nullable Long> durations = identifier -> null;
+	@NotNull
+	private volatile Store                            store;
+
+
+	HookCache(@NotNull final Function<String, @Nullable PlaceholderHook> registered, @NotNull final Runnable changed, @NotNull final Ticker ticker, final long maximumSize)
+	{
+		this.registered = registered;
+		this.changed = changed;
+		this.ticker = ticker;
+		this.maximumSize = maximumSize;
+		this.store = new Store(maximumSize);
+	}
+
+
+	/**
+	 * Apply new settings, this drops every cached value.
+	 *
+	 * @param enabled     If values should be cached at all
+	 * @param maximumSize The maximum amount of values kept over all identifiers
+	 * @param durations   Function resolving the configured duration in milliseconds for an identifier, or null if
+	 *                    the duration declared by the hook should be used
+	 */
+	public void configure(final boolean enabled, final long maximumSize, @NotNull final Function<String, @Nullable Long> durations)
+	{
+		this.enabled = enabled;
+		this.maximumSize = maximumSize;
+		this.durations = durations;
+		this.store = new Store(maximumSize);
+
+		hooks.clear();
+		changed.run();
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+
+	/**
+	 * Get the hook that should be used to request values for this identifier
+	 * <br>The result stays valid until the hook is unregistered or this cache reports a change, so callers may keep
+	 * it instead of decorating the hook on every request.
+	 *
+	 * @param identifier The identifier the hook is registered for
+	 * @param hook       The registered hook
+	 * @return A hook serving values from the cache, or the given hook if its values should not be cached
+	 */
+	@NotNull
+	public PlaceholderHook decorate(@NotNull final String identifier, @NotNull final PlaceholderHook hook)
+	{
+		if (!enabled || !accepts(hook))
+		{
+			return hook;
+		}
+
+		final long duration = resolveDuration(identifier, hook);
+		if (duration <= 0)
+		{
+			return hook;
+		}
+
+		H cached = hooks.get(identifier);
+		if (cached == null || cached.hook != hook)
+		{
+			// the hook may have been unregistered since it was looked up, its values must not outlive that
+			cached = hooks.compute(identifier, (key, current) -> {
+				if (registered.apply(key) != hook)
+				{
+					return current;
+				}
+				if (current != null && current.hook == hook)
+				{
+					return current;
+				}
+
+				if (current != null)
+				{
+					current.segment.drop();
+				}
+
+				return create(hook, new Segment(store, ticker, TimeUnit.MILLISECONDS.toNanos(duration)));
+			});
+		}
+
+		return cached == null || cached.hook != hook ? hook : cached;
+	}
+
+
+	/**
+	 * Drop all cached values of an identifier
+	 *
+	 * @param identifier The identifier to drop the values of
+	 */
+	public void invalidate(@NotNull final String identifier)
+	{
+		final H cached = hooks.remove(identifier);
+		if (cached != null)
+		{
+			cached.segment.drop();
+		}
+
+		changed.run();
+	}
+
+	/**
+	 * Drop every cached value
+	 */
+	public void invalidateAll()
+	{
+		hooks.clear();
+		store.values.invalidateAll();
+
+		changed.run();
+	}
+
+
+	/**
+	 * Get the hit, miss and eviction counters of every identifier that currently caches values
+	 *
+	 * @return Map of identifier to the statistics of its values
+	 */
+	@NotNull
+	@Unmodifiable
+	public Map<String, CacheStats> getStatistics()
+	{
+		final ImmutableMap.Builder<String, CacheStats> statistics = ImmutableMap.builder();
+		hooks.forEach((identifier, cached) -> statistics.put(identifier, cached.segment.stats()));
+
+		return statistics.build();
+	}
+
+	/**
+	 * Get the amount of values currently cached
+	 *
+	 * @return The amount of cached values over all identifiers
+	 */
+	public long size()
+	{
+		return store.values.size();
+	}
+
+	/**
+	 * Get the maximum amount of values cached over all identifiers
+	 *
+	 * @return The configured maximum size
+	 */
+	public long getMaximumSize()
+	{
+		return maximumSize;
+	}
+
+
+	/**
+	 * @return true if the values of the hook can be cached by this cache
+	 */
+	abstract boolean accepts(@NotNull final PlaceholderHook hook);
+
+	/**
+	 * @return A hook serving the values of the given hook from the given segment of the cache
+	 */
+	@NotNull
+	abstract H create(@NotNull final PlaceholderHook hook, @NotNull final Segment segment);
+
+	/**
+	 * Drop the cached values of a player which match the predicate, only the values of that player are tested
+	 *
+	 * @param player    The unique id of the player, either one of the players of the values
+	 * @param predicate Tests the keys of the values to drop
+	 */
+	void invalidate(@NotNull final UUID player, @NotNull final Predicate<Key> predicate)
+	{
+		store.invalidate(player, predicate);
+	}
+
+	private long resolveDuration(@NotNull final String identifier, @NotNull final PlaceholderHook hook)
+	{
+		final Long configured = durations.apply(identifier);
+		if (configured != null)
+		{
+			return configured;
+		}
+
+		return hook instanceof Memoizable ? ((Memoizable) hook).getCacheDuration() : 0;
+	}
+
+
+	abstract static class CachedHook extends PlaceholderHook
+	{
+
+		@NotNull
+		final PlaceholderHook hook;
+		@NotNull
+		final Segment         segment;
+
+		CachedHook(@NotNull final PlaceholderHook hook, @NotNull final Segment segment)
+		{
+			this.hook = hook;
+			this.segment = segment;
+		}
+
+	}
+
+	/**
+	 * The values of every identifier, along with the keys of the values of every player, so dropping the values of a
+	 * player doesn't have to look at the values of all others.
+	 */
+	private static final class Store
+	{
+
+		@NotNull
+		private final Cache<Key, Value>    values;
+		/**
+		 * Only accessed while computing the entry of the player, so the sets need no synchronization of their own
+		 */
+		@NotNull
+		private final Map<UUID, Set<Key>> players = new ConcurrentHashMap<>();
+
+		private Store(final long maximumSize)
+		{
+			this.values = CacheBuilder.newBuilder()
+									  .maximumSize(maximumSize)
+									  .<Key, Value>removalListener(notification -> {
+										  // a replaced value keeps its key in the cache
+										  if (notification.getCause() != RemovalCause.REPLACED)
+										  {
+											  removed(notification.getKey(), notification.getCause() == RemovalCause.SIZE);
+										  }
+									  })
+									  .build();
+		}
+
+
+		private void put(@NotNull final Key key, @NotNull final Value value)
+		{
+			values.put(key, value);
+
+			index(key.one, key);
+			index(key.two, key);
+		}
+
+		private void invalidate(@NotNull final UUID player, @NotNull final Predicate<Key> predicate)
+		{
+			final List<Key> keys = new ArrayList<>();
+
+			// collected first, dropping them updates the index of the player
+			players.computeIfPresent(player, (uniqueId, indexed) -> {
+				for (final Key key : indexed)
+				{
+					if (predicate.test(key))
+					{
+						keys.add(key);
+					}
+				}
+
+				return indexed;
+			});
+
+			values.invalidateAll(keys);
+		}
+
+
+		private void removed(@NotNull final Key key, final boolean evicted)
+		{
+			key.segment.removed(key, evicted);
+
+			unindex(key.one, key);
+			unindex(key.two, key);
+		}
+
+		private void index(@Nullable final UUID player, @NotNull final Key key)
+		{
+			if (player == null)
+			{
+				return;
+			}
+
+			players.compute(player, (uniqueId, indexed) -> {
+				final Set<Key> keys = indexed == null ? new HashSet<>() : indexed;
+				keys.add(key);
+
+				return keys;
+			});
+		}
+
+		private void unindex(@Nullable final UUID player, @NotNull final Key key)
+		{
+			if (player == null)
+			{
+				return;
+			}
+
+			players.computeIfPresent(player, (uniqueId, indexed) -> {
+				indexed.remove(key);
+				return indexed.isEmpty() ? null : indexed;
+			});
+		}
+
+	}
+
+	/**
+	 * The values a single cached hook keeps in the shared cache, along with its counters.
+	 * <br>Keys only reference their segment, never the hook, so values left behind by an unregistered hook don't keep
+	 * it loaded until they are evicted.
+	 */
+	static final class Segment
+	{
+
+		@NotNull
+		private final Store  store;
+		@NotNull
+		private final Ticker ticker;
+		private final long   duration;
+
+		@NotNull
+		private final Set<Key>  keys      = ConcurrentHashMap.newKeySet();
+		@NotNull
+		private final LongAdder hits      = new LongAdder();
+		@NotNull
+		private final LongAdder misses    = new LongAdder();
+		@NotNull
+		private final LongAdder evictions = new LongAdder();
+
+		private Segment(@NotNull final Store store, @NotNull final Ticker ticker, final long duration)
+		{
+			this.store = store;
+			this.ticker = ticker;
+			this.duration = duration;
+		}
+
+
+		/**
+		 * @return The cached value, or null if there is none or it expired
+		 */
+		@Nullable
+		Optional<String> get(@NotNull final Key key)
+		{
+			final Value value = store.values.getIfPresent(key);
+			if (value == null || ticker.read() - value.written >= duration)
+			{
+				misses.increment();
+				return null;
+			}
+
+			hits.increment();
+			return value.value;
+		}
+
+		void put(@NotNull final Key key, @NotNull final Optional<String> value)
+		{
+			store.put(key, new Value(value, ticker.read()));
+			keys.add(key);
+		}
+
+
+		private void drop()
+		{
+			store.values.invalidateAll(keys);
+		}
+
+		private void removed(@NotNull final Key key, final boolean evicted)
+		{
+			keys.remove(key);
+
+			if (evicted)
+			{
+				evictions.increment();
+			}
+		}
+
+		@NotNull
+		private CacheStats stats()
+		{
+			return new CacheStats(hits.sum(), misses.sum(), 0, 0, 0, evictions.sum());
+		}
+
+	}
+
+	/**
+	 * A cached value and when it was requested from its hook
+	 */
+	private static final class Value
+	{
+
+		@NotNull
+		private final Optional<String> value;
+		private final long             written;
+
+		private Value(@NotNull final Optional<String> value, final long written)
+		{
+			this.value = value;
+			this.written = written;
+		}
+
+	}
+
+	/**
+	 * The segment, player, or viewer and target, and params a value was requested for
+	 */
+	static final class Key
+	{
+
+		@NotNull
+		final Segment segment;
+		@Nullable
+		final UUID    one;
+		@Nullable
+		final UUID    two;
+		@NotNull
+		final String  params;
+
+		Key(@NotNull final Segment segment, @Nullable final UUID one, @Nullable final UUID two, @NotNull final String params)
+		{
+			this.segment = segment;
+			this.one = one;
+			this.two = two;
+			this.params = params;
+		}
+
+
+		@Override
+		public boolean equals(final Object o)
+		{
+			if (this == o)
+			{
+				return true;
+			}
+			if (!(o instanceof Key))
+			{
+				return false;
+			}
+
+			final Key other = (Key) o;
+			return segment == other.segment && Objects.equals(one, other.one) && Objects.equals(two, other.two) && params.equals(other.params);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (31 * ((31 * ((31 * System.identityHashCode(segment)) + Objects.hashCode(one))) + Objects.hashCode(two))) + params.hashCode();
+		}
+
+	}
+
+}
@@ -0,0 +1,167 @@
+package me.clip.placeholderapi.cache;
+
+import com.google.common.base.Ticker;
+import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.expansion.Memoizable;
+import me.clip.placeholderapi.expansion.Relational;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Opt-in cache in front of {@link Relational#onPlaceholderRequest(Player, Player, String)}, values are kept per
+ * identifier, params, viewer and target for the duration declared by a {@link Memoizable} hook or configured by the
+ * server owner.
+ * <br>Expansions whose relations change, such as a player joining a faction, should invalidate the affected players.
+ */
+public final class RelationalCache extends HookCache<RelationalCache.CachedRelationalHook>
+{
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 50000;
+
+
+	/**
+	 * @param registered Function resolving the hook currently registered for an identifier, values are only cached
+	 *                   for that hook
+	 * @param changed    Called whenever hooks decorated before must be decorated again
+	 */
+	public RelationalCache(@NotNull final Function<String, @Nullable PlaceholderHook> registered, @NotNull final Runnable changed)
+	{
+		super(registered, changed, Ticker.systemTicker(), DEFAULT_MAXIMUM_SIZE);
+	}
+
+	RelationalCache(@NotNull final Function<String, @Nullable PlaceholderHook> registered, @NotNull final Ticker ticker)
+	{
+		super(registered, () -> {
+		}, ticker, DEFAULT_MAXIMUM_SIZE);
+	}
+
+
+	/**
+	 * Drop all cached values where the player is the viewer or the target
+	 *
+	 * @param player The unique id of the player to drop the values of
+	 */
+	public void invalidate(@NotNull final UUID player)
+	{
+		invalidate(player, key -> true);
+	}
+
+	/**
+	 * Drop the cached values between two players, in both directions
+	 *
+	 * @param one The unique id of one of the players
+	 * @param two The unique id of the other player
+	 */
+	public void invalidate(@NotNull final UUID one, @NotNull final UUID two)
+	{
+		invalidate(one, key -> two.equals(key.one) || two.equals(key.two));
+	}
+
+
+	@Override
+	boolean accepts(@NotNull final PlaceholderHook hook)
+	{
+		return hook instanceof Relational;
+	}
+
+	@Override
+	@NotNull
+	CachedRelationalHook create(@NotNull final PlaceholderHook hook, @NotNull final Segment segment)
+	{
+		return new CachedRelationalHook(hook, segment);
+	}
+
+
+	static final class CachedRelationalHook extends HookCache.CachedHook implements Relational
+	{
+
+		private CachedRelationalHook(@NotNull final PlaceholderHook hook, @NotNull final Segment segment)
+		{
+			super(hook, segment);
+		}
+
+
+		@Override
+		public @Nullable String onRequest(@Nullable final OfflinePlayer player, @NotNull final String params)
+		{
+			return hook.onRequest(player, params);
+		}
+
+		@Override
+		public String onPlaceholderRequest(final Player one, final Player two, final String identifier)
+		{
+			final Relational relational = (Relational) hook;
+			final Key        key        = new Key(segment, uniqueId(one), uniqueId(two), identifier);
+
+			Optional<String> value = segment.get(key);
+			if (value == null)
+			{
+				value = Optional.ofNullable(relational.onPlaceholderRequest(one, two, identifier));
+				segment.put(key, value);
+			}
+
+			return value.orElse(null);
+		}
+
+		@Override
+		public Map<Player, String> onPlaceholderRequests(final Player one, final Collection<? extends Player> others, final String identifier)
+		{
+			final Relational relational = (Relational) hook;
+
+			final UUID                viewer = uniqueId(one);
+			final Map<Player, String> values = new HashMap<>(others.size());
+			final List<Player>        missed = new ArrayList<>();
+
+			for (final Player two : others)
+			{
+				final Optional<String> value = segment.get(new Key(segment, viewer, uniqueId(two), identifier));
+				if (value != null)
+				{
+					values.put(two, value.orElse(null));
+				}
+				else
+				{
+					missed.add(two);
+				}
+			}
+
+			if (missed.isEmpty())
+			{
+				return values;
+			}
+
+			final Map<Player, String> requested = relational.onPlaceholderRequests(one, missed, identifier);
+
+			for (final Player two : missed)
+			{
+				// targets left out of the result are requested one by one, like the replacer does
+				final String value = requested != null && requested.containsKey(two) ? requested.get(two) : relational.onPlaceholderRequest(one, two, identifier);
+
+				segment.put(new Key(segment, viewer, uniqueId(two), identifier), Optional.ofNullable(value));
+				values.put(two, value);
+			}
+
+			return values;
+		}
+
+
+		@Nullable
+		private static UUID uniqueId(@Nullable final Player player)
+		{
+			return player == null ? null : player.getUniqueId();
+		}
+
+	}
+
+}
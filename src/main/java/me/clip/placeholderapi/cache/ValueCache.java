@@ -0,0 +1,95 @@
+package me.clip.placeholderapi.cache;
+
+import com.google.common.base.Ticker;
+import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.expansion.Memoizable;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Opt-in cache in front of {@link PlaceholderHook#onRequest(OfflinePlayer, String)}, values are kept per
+ * identifier, params and player for the duration declared by a {@link Memoizable} hook or configured by the
+ * server owner.
+ * <br>The configured maximum size bounds the values of all identifiers together.
+ */
+public final class ValueCache extends HookCache<ValueCache.CachedPlaceholderHook>
+{
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 5000;
+
+
+	/**
+	 * @param registered Function resolving the hook currently registered for an identifier, values are only cached
+	 *                   for that hook
+	 * @param changed    Called whenever hooks decorated before must be decorated again
+	 */
+	public ValueCache(@NotNull final Function<String, @Nullable PlaceholderHook> registered, @NotNull final Runnable changed)
+	{
+		super(registered, changed, Ticker.systemTicker(), DEFAULT_MAXIMUM_SIZE);
+	}
+
+	ValueCache(@NotNull final Function<String, @Nullable PlaceholderHook> registered, @NotNull final Ticker ticker)
+	{
+		super(registered, () -> {
+		}, ticker, DEFAULT_MAXIMUM_SIZE);
+	}
+
+
+	/**
+	 * Drop all cached values of a player
+	 *
+	 * @param player The unique id of the player to drop the values of
+	 */
+	public void invalidate(@NotNull final UUID player)
+	{
+		invalidate(player, key -> true);
+	}
+
+
+	@Override
+	boolean accepts(@NotNull final PlaceholderHook hook)
+	{
+		return true;
+	}
+
+	@Override
+	@NotNull
+	CachedPlaceholderHook create(@NotNull final PlaceholderHook hook, @NotNull final Segment segment)
+	{
+		return new CachedPlaceholderHook(hook, segment);
+	}
+
+
+	static final class CachedPlaceholderHook extends HookCache.CachedHook
+	{
+
+		private CachedPlaceholderHook(@NotNull final PlaceholderHook hook, @NotNull final Segment segment)
+		{
+			super(hook, segment);
+		}
+
+
+		@Override
+		public @Nullable String onRequest(@Nullable final OfflinePlayer player, @NotNull final String params)
+		{
+			final Key key = new Key(segment, player == null ? null : player.getUniqueId(), null, params);
+
+			Optional<String> value = segment.get(key);
+			if (value == null)
+			{
+				// not using a loading get, hooks may parse placeholders of their own identifier
+				value = Optional.ofNullable(hook.onRequest(player, params));
+				segment.put(key, value);
+			}
+
+			return value.orElse(null);
+		}
+
+	}
+
+}
@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
 import me.clip.placeholderapi.commands.impl.cloud.CommandECloud;
+import me.clip.placeholderapi.commands.impl.local.CommandDump;
 import me.clip.placeholderapi.commands.impl.local.CommandExpansionRegister;
 import me.clip.placeholderapi.commands.impl.local.CommandExpansionUnregister;
 import me.clip.placeholderapi.commands.impl.local.CommandHelp;
@@ -11,6 +12,7 @@ import me.clip.placeholderapi.commands.impl.local.CommandInfo;
 import me.clip.placeholderapi.commands.impl.local.CommandList;
 import me.clip.placeholderapi.commands.impl.local.CommandParse;
 import me.clip.placeholderapi.commands.impl.local.CommandReload;
+import me.clip.placeholderapi.commands.impl.local.CommandStats;
 import me.clip.placeholderapi.commands.impl.local.CommandVersion;
 import me.clip.placeholderapi.util.Msg;
 import org.bukkit.command.Command;
@@ -40,7 +42,9 @@ public final class PlaceholderCommandRouter implements CommandExecutor, TabCompl
 																			  new CommandReload(),
 																			  new CommandVersion(),
 																			  new CommandExpansionRegister(),
-																			  new CommandExpansionUnregister());
+																			  new CommandExpansionUnregister(),
+																			  new CommandDump(),
+																			  new CommandStats());
 
 
 	@NotNull
@@ -23,6 +23,7 @@ public final class CommandECloud extends PlaceholderCommand
 																			  new CommandECloudStatus(),
 																			  new CommandECloudRefresh(),
 																			  new CommandECloudDownload(),
+																			  new CommandECloudUpdate(),
 																			  new CommandECloudExpansionInfo(),
 																			  new CommandECloudExpansionList(),
 																			  new CommandECloudExpansionPlaceholders());
@@ -70,6 +71,8 @@ public final class CommandECloud extends PlaceholderCommand
 					"  &7&oView placeholders for an expansion",
 					"&b/papi &fecloud download <expansion name> {version}",
 					"  &7&oDownload an expansion from the ecloud",
+					"&b/papi &fecloud update <expansion name/all>",
+					"  &7&oUpdate an expansion, or every installed one, to its latest version",
 					"&b/papi &fecloud refresh",
 					"  &7&oFetch the most up to date list of expansions available.",
 					"&b/papi &fecloud clear",
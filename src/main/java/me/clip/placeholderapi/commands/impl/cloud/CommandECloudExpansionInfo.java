@@ -99,7 +99,7 @@ public final class CommandECloudExpansionInfo extends PlaceholderCommand
 
 		if (params.size() <= 1)
 		{
-			final Stream<String> names = plugin.getExpansionCloud().getCloudExpansions().values().stream().map(CloudExpansion::getName).map(name -> name.replace(' ', '_'));
+			final Stream<String> names = plugin.getExpansionCloud().getCloudExpansionNames().stream();
 			suggestByParameter(names, suggestions, params.isEmpty() ? null : params.get(0));
 			return;
 		}
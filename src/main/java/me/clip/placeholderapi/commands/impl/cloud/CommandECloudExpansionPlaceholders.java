@@ -63,7 +63,7 @@ public final class CommandECloudExpansionPlaceholders extends PlaceholderCommand
 			return;
 		}
 
-		final Stream<String> names = plugin.getExpansionCloud().getCloudExpansions().values().stream().map(CloudExpansion::getName).map(name -> name.replace(' ', '_'));
+		final Stream<String> names = plugin.getExpansionCloud().getCloudExpansionNames().stream();
 		suggestByParameter(names, suggestions, params.isEmpty() ? null : params.get(0));
 	}
 
@@ -1,10 +1,10 @@
 package me.clip.placeholderapi.commands.impl.cloud;
 
-import com.google.common.collect.Lists;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
 import me.clip.placeholderapi.commands.PlaceholderCommand;
-import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import me.clip.placeholderapi.expansion.ExpansionManager;
 import me.clip.placeholderapi.expansion.cloud.CloudExpansion;
+import me.clip.placeholderapi.expansion.cloud.ExpansionCloudManager;
 import me.clip.placeholderapi.util.Msg;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
@@ -13,15 +13,11 @@ import org.jetbrains.annotations.Unmodifiable;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-/**
- * please don't flame me for this code, I will fix this shit later.
- */
 public final class CommandECloudUpdate extends PlaceholderCommand
 {
 
@@ -47,15 +43,15 @@ public final class CommandECloudUpdate extends PlaceholderCommand
 		// gather target expansions
 		if (multiple)
 		{
-			expansions.addAll(plugin.getCloudExpansionManager().getCloudExpansionsInstalled().values());
+			expansions.addAll(plugin.getExpansionCloud().getAllInstalled().values());
 		}
 		else
 		{
-			plugin.getCloudExpansionManager().findCloudExpansionByName(params.get(0)).ifPresent(expansions::add);
+			plugin.getExpansionCloud().getCloudExpansion(params.get(0)).ifPresent(expansions::add);
 		}
 
 		// remove the ones that are the latest version
-		expansions.removeIf(expansion -> !expansion.shouldUpdate());
+		expansions.removeIf(expansion -> !expansion.shouldUpdate() || expansion.getVersion() == null);
 
 		if (expansions.isEmpty())
 		{
@@ -67,31 +63,43 @@ public final class CommandECloudUpdate extends PlaceholderCommand
 		Msg.msg(sender,
 				"&aUpdating expansions: " + expansions.stream().map(CloudExpansion::getName).collect(Collectors.joining("&7, &6", "&8[&6", "&8]&r")));
 
-		downloadExpansions(plugin, expansions)
-				.thenCompose(files -> discoverExpansions(plugin, files))
-				.whenComplete((classes, exception) -> {
-					if (exception != null)
-					{
-						Msg.msg(sender,
-								"&cFailed to update expansions: &e" + exception.getMessage());
-						return;
-					}
+		final List<CompletableFuture<?>> downloads = new ArrayList<>(expansions.size());
+		for (final CloudExpansion expansion : expansions)
+		{
+			final CompletableFuture<File> download = plugin.getExpansionCloud().downloadExpansion(expansion, expansion.getVersion(), new Progress(sender, expansion));
 
+			downloads.add(download.handle((file, exception) -> {
+				if (exception != null)
+				{
 					Msg.msg(sender,
-							"&aSuccessfully downloaded updates, registering new versions.");
-
-					Bukkit.getScheduler().runTask(plugin, () -> {
-						final String message = classes.stream()
-													  .map(plugin.getLocalExpansionManager()::register)
-													  .filter(Optional::isPresent)
-													  .map(Optional::get)
-													  .map(expansion -> "  &a" + expansion.getName() + " &f" + expansion.getVersion())
-													  .collect(Collectors.joining("\n"));
-						Msg.msg(sender,
-								"&7Registered expansions:",
-								message);
-					});
-				});
+							"&cFailed to download &f" + expansion.getName() + "&c: &e" + exception.getMessage());
+				}
+
+				return file;
+			}));
+		}
+
+		CompletableFuture.allOf(downloads.toArray(new CompletableFuture[0])).thenRun(() -> Bukkit.getScheduler().runTask(plugin, () -> {
+			final ExpansionManager.ReloadResult result = plugin.getExpansionManager().reloadExpansions();
+
+			final List<String> registered = new ArrayList<>(result.getReloaded());
+			registered.addAll(result.getAdded());
+
+			if (registered.isEmpty())
+			{
+				Msg.msg(sender,
+						"&cNo expansions were updated.");
+				return;
+			}
+
+			Msg.msg(sender,
+					"&7Registered expansions:",
+					registered.stream()
+							  .map(plugin.getExpansionManager()::getRegisteredExpansion)
+							  .filter(Objects::nonNull)
+							  .map(expansion -> "  &a" + expansion.getName() + " &f" + expansion.getVersion())
+							  .collect(Collectors.joining("\n")));
+		}));
 	}
 
 	@Override
@@ -102,7 +110,7 @@ public final class CommandECloudUpdate extends PlaceholderCommand
 			return;
 		}
 
-		final List<CloudExpansion> installed = Lists.newArrayList(plugin.getCloudExpansionManager().getCloudExpansionsInstalled().values());
+		final List<CloudExpansion> installed = new ArrayList<>(plugin.getExpansionCloud().getAllInstalled().values());
 		installed.removeIf(expansion -> !expansion.shouldUpdate());
 
 		if (!installed.isEmpty() && (params.isEmpty() || "all".startsWith(params.get(0).toLowerCase())))
@@ -114,22 +122,61 @@ public final class CommandECloudUpdate extends PlaceholderCommand
 	}
 
 
-	public static CompletableFuture<List<File>> downloadExpansions(@NotNull final PlaceholderAPIPlugin plugin, @NotNull final List<CloudExpansion> expansions)
+	/**
+	 * Reports the progress and throughput of a download to the sender
+	 */
+	private static final class Progress implements ExpansionCloudManager.DownloadListener
 	{
-		final List<CompletableFuture<File>> futures = expansions.stream()
-																.map(expansion -> plugin.getCloudExpansionManager().downloadExpansion(expansion, expansion.getVersion()))
-																.collect(Collectors.toList());
 
-		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApplyAsync(v -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
-	}
+		@NotNull
+		private final CommandSender  sender;
+		@NotNull
+		private final CloudExpansion expansion;
 
-	public static CompletableFuture<List<Class<? extends PlaceholderExpansion>>> discoverExpansions(@NotNull final PlaceholderAPIPlugin plugin, @NotNull final List<File> files)
-	{
-		final List<CompletableFuture<List<Class<? extends PlaceholderExpansion>>>> futures = files.stream()
-																								  .map(file -> plugin.getLocalExpansionManager().findExpansionsInFile(file))
-																								  .collect(Collectors.toList());
 
-		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApplyAsync(v -> futures.stream().map(CompletableFuture::join).flatMap(Collection::stream).collect(Collectors.toList()));
+		private Progress(@NotNull final CommandSender sender, @NotNull final CloudExpansion expansion)
+		{
+			this.sender = sender;
+			this.expansion = expansion;
+		}
+
+
+		@Override
+		public void progress(final long bytes, final long total)
+		{
+			Msg.msg(sender,
+					"&7Downloading &f" + expansion.getName() + "&7: &f" + (total > 0 ? (bytes * 100 / total) + "%" : (bytes / 1024) + "KB"));
+		}
+
+		@Override
+		public void retry(final int attempt, final long delay, @NotNull final Throwable error)
+		{
+			Msg.msg(sender,
+					"&eRetrying &f" + expansion.getName() + "&e in " + (delay / 1000) + "s (attempt " + attempt + "): &7" + error.getMessage());
+		}
+
+		@Override
+		public void complete(@NotNull final File file, final long bytes, final long millis)
+		{
+			Msg.msg(sender,
+					"&aDownloaded &f" + expansion.getName() + " " + expansion.getLatestVersion() + "&a: &f" + (bytes / 1024) + "KB&a in &f" + millis + "ms &7(" +
+					(bytes * 1000 / Math.max(1, millis) / 1024) + "KB/s)");
+		}
+
+		@Override
+		public void cached(@NotNull final File file)
+		{
+			Msg.msg(sender,
+					"&aInstalled &f" + expansion.getName() + " " + expansion.getLatestVersion() + "&a from the shared cache");
+		}
+
+		@Override
+		public void skipped(@NotNull final File file)
+		{
+			Msg.msg(sender,
+					"&a" + file.getName() + " &7already is &f" + expansion.getName() + " " + expansion.getLatestVersion());
+		}
+
 	}
 
 }
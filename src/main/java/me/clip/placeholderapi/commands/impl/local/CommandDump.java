@@ -1,8 +1,12 @@
 package me.clip.placeholderapi.commands.impl.local;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.io.CharStreams;
 import com.google.gson.JsonParser;
+import me.clip.placeholderapi.PlaceholderAPI;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
+import me.clip.placeholderapi.cache.RelationalCache;
+import me.clip.placeholderapi.cache.ValueCache;
 import me.clip.placeholderapi.commands.PlaceholderCommand;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import me.clip.placeholderapi.util.Msg;
@@ -114,10 +118,9 @@ public final class CommandDump extends PlaceholderCommand
 			   .append('\n');
 
 
-		final Map<String, List<PlaceholderExpansion>> expansions = plugin.getLocalExpansionManager()
-																		 .getExpansions()
-																		 .stream()
-																		 .collect(Collectors.groupingBy(PlaceholderExpansion::getAuthor));
+		final Map<String, List<PlaceholderExpansion>> expansions = PlaceholderAPI.getExpansions()
+																				 .stream()
+																				 .collect(Collectors.groupingBy(PlaceholderExpansion::getAuthor));
 
 		for (final Map.Entry<String, List<PlaceholderExpansion>> expansionsByAuthor : expansions.entrySet())
 		{
@@ -141,11 +144,70 @@ public final class CommandDump extends PlaceholderCommand
 		builder.append("Expansions Directory:")
 			   .append('\n');
 
-		final String[] jars = plugin.getLocalExpansionManager()
-									.getExpansionsFolder()
+		final String[] jars = plugin.getExpansionManager()
+									.getFolder()
 									.list((dir, name) -> name.toLowerCase().endsWith(".jar"));
 
-		for (final String jar : jars)
+		if (jars != null)
+		{
+			for (final String jar : jars)
+			{
+				builder.append("  ")
+					   .append(jar)
+					   .append('\n');
+			}
+		}
+
+		builder.append('\n');
+
+		final ValueCache valueCache = PlaceholderAPI.getValueCache();
+
+		builder.append("Value Cache: ")
+			   .append(valueCache.isEnabled() ? "enabled" : "disabled")
+			   .append(", ")
+			   .append(valueCache.size())
+			   .append(" values, at most ")
+			   .append(valueCache.getMaximumSize())
+			   .append(" in total")
+			   .append('\n');
+
+		final RelationalCache relationalCache = PlaceholderAPI.getRelationalCache();
+
+		builder.append("Relational Cache: ")
+			   .append(relationalCache.isEnabled() ? "enabled" : "disabled")
+			   .append(", ")
+			   .append(relationalCache.size())
+			   .append(" values, at most ")
+			   .append(relationalCache.getMaximumSize())
+			   .append(" in total")
+			   .append('\n');
+
+		for (final Map.Entry<String, CacheStats> entry : relationalCache.getStatistics().entrySet())
+		{
+			builder.append("  ")
+				   .append(entry.getKey())
+				   .append(": hits=")
+				   .append(entry.getValue().hitCount())
+				   .append(", misses=")
+				   .append(entry.getValue().missCount())
+				   .append(", evictions=")
+				   .append(entry.getValue().evictionCount())
+				   .append('\n');
+		}
+
+		builder.append('\n');
+
+		CommandStats.appendStatistics(builder);
+
+		builder.append('\n');
+
+		final List<String> leaked = plugin.getExpansionManager().getLeakedClassLoaders();
+
+		builder.append("Leaked Class Loaders: ")
+			   .append(leaked.size())
+			   .append('\n');
+
+		for (final String jar : leaked)
 		{
 			builder.append("  ")
 				   .append(jar)
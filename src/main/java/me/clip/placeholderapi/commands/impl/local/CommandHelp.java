@@ -44,7 +44,11 @@ public final class CommandHelp extends PlaceholderCommand
 				"&b/papi &fregister &9<file name>",
 				"  &7&oRegister an expansion by the name of the file",
 				"&b/papi &funregister &9<expansion name>",
-				"  &7&oUnregister an expansion by name");
+				"  &7&oUnregister an expansion by name",
+				"&b/papi &fstats &9[enable/disable/reset/expansion name]",
+				"  &7&oView or toggle placeholder request statistics",
+				"&b/papi &fdump",
+				"  &7&oPaste server and expansion details for support");
 	}
 
 }
@@ -0,0 +1,194 @@
+package me.clip.placeholderapi.commands.impl.local;
+
+import me.clip.placeholderapi.PlaceholderAPI;
+import me.clip.placeholderapi.PlaceholderAPIPlugin;
+import me.clip.placeholderapi.commands.PlaceholderCommand;
+import me.clip.placeholderapi.stats.PlaceholderStatistics;
+import me.clip.placeholderapi.stats.PlaceholderStatistics.Snapshot;
+import me.clip.placeholderapi.util.Msg;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public final class CommandStats extends PlaceholderCommand
+{
+
+	private static final int LIMIT = 10;
+
+	@NotNull
+	private static final Comparator<Map.Entry<String, Snapshot>> BY_TOTAL_TIME = Comparator.comparingLong((Map.Entry<String, Snapshot> entry) -> entry.getValue().getTotalNanos()).reversed();
+
+
+	public CommandStats()
+	{
+		super("stats");
+	}
+
+
+	@Override
+	public void evaluate(@NotNull final PlaceholderAPIPlugin plugin, @NotNull final CommandSender sender, @NotNull final String alias, @NotNull @Unmodifiable final List<String> params)
+	{
+		final PlaceholderStatistics statistics = PlaceholderAPI.getPlaceholderStatistics();
+
+		final String target = params.isEmpty() ? "" : params.get(0).toLowerCase();
+		switch (target)
+		{
+			case "enable":
+			case "disable":
+				final boolean desiredState = target.equals("enable");
+
+				if (desiredState == statistics.isEnabled())
+				{
+					Msg.msg(sender,
+							"&7Placeholder statistics are already " + (desiredState ? "enabled" : "disabled"));
+					return;
+				}
+
+				statistics.setEnabled(desiredState);
+
+				Msg.msg(sender,
+						"&aPlaceholder statistics have been " + (desiredState ? "enabled" : "disabled"));
+				return;
+			case "reset":
+				statistics.reset();
+
+				Msg.msg(sender,
+						"&aPlaceholder statistics have been reset");
+				return;
+		}
+
+		final Map<String, Snapshot> snapshots = target.isEmpty() ? statistics.getStatistics() : statistics.getParamsStatistics();
+
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append("&7Placeholder statistics are ")
+			   .append(statistics.isEnabled() ? "&aenabled" : "&cdisabled")
+			   .append("&7, timing 1 in every &f")
+			   .append(statistics.getSampleRate())
+			   .append("&7 requests")
+			   .append('\n');
+
+		if (!target.isEmpty())
+		{
+			final Snapshot snapshot = statistics.getStatistics().get(target);
+			if (snapshot == null)
+			{
+				Msg.msg(sender,
+						builder.toString(),
+						"&cThere are no statistics recorded for the identifier: &f" + target);
+				return;
+			}
+
+			appendSnapshot(builder, target, snapshot);
+
+			if (!statistics.isRecordingParams())
+			{
+				Msg.msg(sender, builder.toString());
+				return;
+			}
+		}
+
+		final String prefix = target + '_';
+
+		entries(snapshots, target.isEmpty() ? null : prefix).limit(LIMIT).forEach(entry -> appendSnapshot(builder, entry.getKey(), entry.getValue()));
+
+		if (target.isEmpty() && snapshots.isEmpty())
+		{
+			builder.append("&7No placeholder requests recorded yet");
+		}
+
+		Msg.msg(sender, builder.toString());
+	}
+
+	@Override
+	public void complete(@NotNull final PlaceholderAPIPlugin plugin, @NotNull final CommandSender sender, @NotNull final String alias, @NotNull @Unmodifiable final List<String> params, @NotNull final List<String> suggestions)
+	{
+		if (params.size() > 1)
+		{
+			return;
+		}
+
+		final Stream<String> options = Stream.concat(Stream.of("enable", "disable", "reset"), PlaceholderAPI.getPlaceholderStatistics().getStatistics().keySet().stream());
+
+		suggestByParameter(options, suggestions, params.isEmpty() ? null : params.get(0));
+	}
+
+
+	/**
+	 * Appends the statistics of every identifier, used by the dump command.
+	 *
+	 * @param builder Builder to append the statistics to
+	 */
+	public static void appendStatistics(@NotNull final StringBuilder builder)
+	{
+		final PlaceholderStatistics statistics = PlaceholderAPI.getPlaceholderStatistics();
+
+		builder.append("Placeholder Statistics: ")
+			   .append(statistics.isEnabled() ? "enabled" : "disabled")
+			   .append(", sample rate ")
+			   .append(statistics.getSampleRate())
+			   .append('\n');
+
+		entries(statistics.getStatistics(), null).forEach(entry -> {
+			final Snapshot snapshot = entry.getValue();
+
+			builder.append("  ")
+				   .append(entry.getKey())
+				   .append(": calls=")
+				   .append(snapshot.getCalls())
+				   .append(", total=")
+				   .append(formatNanos(snapshot.getTotalNanos()))
+				   .append(", avg=")
+				   .append(formatNanos(snapshot.getAverageNanos()))
+				   .append(", p99=")
+				   .append(formatNanos(snapshot.getP99Nanos()))
+				   .append(", null=")
+				   .append(formatRate(snapshot.getNullRate()))
+				   .append('\n');
+		});
+	}
+
+
+	@NotNull
+	private static Stream<Map.Entry<String, Snapshot>> entries(@NotNull final Map<String, Snapshot> snapshots, @Nullable final String prefix)
+	{
+		return snapshots.entrySet().stream().filter(entry -> prefix == null || entry.getKey().startsWith(prefix)).sorted(BY_TOTAL_TIME);
+	}
+
+	private static void appendSnapshot(@NotNull final StringBuilder builder, @NotNull final String name, @NotNull final Snapshot snapshot)
+	{
+		builder.append("&b")
+			   .append(name)
+			   .append('\n')
+			   .append("  &7calls &f")
+			   .append(snapshot.getCalls())
+			   .append(" &7total &f")
+			   .append(formatNanos(snapshot.getTotalNanos()))
+			   .append(" &7avg &f")
+			   .append(formatNanos(snapshot.getAverageNanos()))
+			   .append(" &7p99 &f")
+			   .append(formatNanos(snapshot.getP99Nanos()))
+			   .append(" &7null &f")
+			   .append(formatRate(snapshot.getNullRate()))
+			   .append('\n');
+	}
+
+	@NotNull
+	private static String formatNanos(final long nanos)
+	{
+		return String.format("%.3fms", nanos / 1_000_000.0);
+	}
+
+	@NotNull
+	private static String formatRate(final double rate)
+	{
+		return String.format("%.1f%%", rate * 100);
+	}
+
+}
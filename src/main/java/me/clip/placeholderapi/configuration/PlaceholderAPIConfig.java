@@ -20,70 +20,271 @@
  */
 package me.clip.placeholderapi.configuration;
 
+import com.google.common.collect.ImmutableMap;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
+import me.clip.placeholderapi.cache.RelationalCache;
+import me.clip.placeholderapi.cache.ValueCache;
+import me.clip.placeholderapi.stats.PlaceholderStatistics;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
+
+/**
+ * The settings of the plugin's config, read once into an immutable snapshot whenever the config is (re)loaded, so
+ * reading a setting never goes through the config itself.
+ */
 public final class PlaceholderAPIConfig
 {
 
 	@NotNull
 	private final PlaceholderAPIPlugin plugin;
 
+	@Nullable
+	private volatile Snapshot snapshot;
+
+
 	public PlaceholderAPIConfig(@NotNull final PlaceholderAPIPlugin plugin)
 	{
 		this.plugin = plugin;
 	}
 
 
+	/**
+	 * Reads the settings again from the plugin's config, must be called whenever the config is reloaded or changed.
+	 */
+	public void reload()
+	{
+		snapshot = new Snapshot(plugin.getConfig());
+	}
+
+	@NotNull
+	private Snapshot snapshot()
+	{
+		Snapshot snapshot = this.snapshot;
+		if (snapshot == null)
+		{
+			synchronized (this)
+			{
+				snapshot = this.snapshot;
+				if (snapshot == null)
+				{
+					this.snapshot = snapshot = new Snapshot(plugin.getConfig());
+				}
+			}
+		}
+
+		return snapshot;
+	}
+
+
 	public boolean checkUpdates()
 	{
-		return plugin.getConfig().getBoolean("check_updates");
+		return snapshot().checkUpdates;
 	}
 
 	public boolean cloudAllowUnverifiedExpansions()
 	{
-		return plugin.getConfig().getBoolean("cloud_allow_unverified_expansions");
+		return snapshot().cloudAllowUnverifiedExpansions;
 	}
 
 
 	public boolean isCloudEnabled()
 	{
-		return plugin.getConfig().getBoolean("cloud_enabled");
+		return snapshot().cloudEnabled;
 	}
 
 	public void setCloudEnabled(boolean state)
 	{
 		plugin.getConfig().set("cloud_enabled", state);
 		plugin.saveConfig();
+
+		reload();
+	}
+
+
+	public int cloudDownloadConcurrency()
+	{
+		return snapshot().cloudDownloadConcurrency;
+	}
+
+	public int cloudDownloadRetries()
+	{
+		return snapshot().cloudDownloadRetries;
+	}
+
+	@Nullable
+	public String cloudDownloadSharedCache()
+	{
+		return snapshot().cloudDownloadSharedCache;
 	}
 
 
 	public boolean isDebugMode()
 	{
-		return plugin.getConfig().getBoolean("debug", false);
+		return snapshot().debugMode;
+	}
+
+
+	public boolean isCacheEnabled()
+	{
+		return snapshot().cacheEnabled;
+	}
+
+	public long cacheMaximumSize()
+	{
+		return snapshot().cacheMaximumSize;
+	}
+
+	public long relationalCacheMaximumSize()
+	{
+		return snapshot().relationalCacheMaximumSize;
+	}
+
+	@Nullable
+	public Long cacheDuration(@NotNull final String identifier)
+	{
+		return snapshot().cacheDurations.get(identifier);
+	}
+
+
+	public boolean isStatsEnabled()
+	{
+		return snapshot().statsEnabled;
+	}
+
+	public int statsSampleRate()
+	{
+		return snapshot().statsSampleRate;
+	}
+
+	public boolean isStatsPerParams()
+	{
+		return snapshot().statsPerParams;
+	}
+
+
+	public boolean isLazyExpansionsEnabled()
+	{
+		return snapshot().lazyExpansionsEnabled;
+	}
+
+	public long lazyExpansionsIdleMinutes()
+	{
+		return snapshot().lazyExpansionsIdleMinutes;
 	}
 
 
 	@NotNull
 	public String dateFormat()
 	{
-		//noinspection ConstantConditions (bad spigot annotation)
-		return plugin.getConfig().getString("date_format", "MM/dd/yy HH:mm:ss");
+		return snapshot().dateFormat;
 	}
 
 
 	@NotNull
 	public String booleanTrue()
 	{
-		//noinspection ConstantConditions (bad spigot annotation)
-		return plugin.getConfig().getString("boolean.true", "true");
+		return snapshot().booleanTrue;
 	}
 
 	@NotNull
 	public String booleanFalse()
 	{
-		//noinspection ConstantConditions (bad spigot annotation)
-		return plugin.getConfig().getString("boolean.false", "false");
+		return snapshot().booleanFalse;
+	}
+
+
+	private static final class Snapshot
+	{
+
+		private final boolean           checkUpdates;
+		private final boolean           cloudAllowUnverifiedExpansions;
+		private final boolean           cloudEnabled;
+		private final int               cloudDownloadConcurrency;
+		private final int               cloudDownloadRetries;
+		@Nullable
+		private final String            cloudDownloadSharedCache;
+		private final boolean           debugMode;
+		private final boolean           cacheEnabled;
+		private final long              cacheMaximumSize;
+		private final long              relationalCacheMaximumSize;
+		@NotNull
+		private final Map<String, Long> cacheDurations;
+		private final boolean           statsEnabled;
+		private final int               statsSampleRate;
+		private final boolean           statsPerParams;
+		private final boolean           lazyExpansionsEnabled;
+		private final long              lazyExpansionsIdleMinutes;
+		@NotNull
+		private final String            dateFormat;
+		@NotNull
+		private final String            booleanTrue;
+		@NotNull
+		private final String            booleanFalse;
+
+
+		private Snapshot(@NotNull final FileConfiguration config)
+		{
+			checkUpdates = config.getBoolean("check_updates");
+			cloudAllowUnverifiedExpansions = config.getBoolean("cloud_allow_unverified_expansions");
+			cloudEnabled = config.getBoolean("cloud_enabled");
+
+			cloudDownloadConcurrency = config.getInt("cloud_downloads.concurrency", 2);
+			cloudDownloadRetries = config.getInt("cloud_downloads.retries", 3);
+
+			final String sharedCache = config.getString("cloud_downloads.shared_cache", "");
+			cloudDownloadSharedCache = sharedCache == null || sharedCache.trim().isEmpty() ? null : sharedCache.trim();
+
+			debugMode = config.getBoolean("debug", false);
+
+			cacheEnabled = config.getBoolean("cache.enabled", true);
+			cacheMaximumSize = config.getLong("cache.maximum_size", ValueCache.DEFAULT_MAXIMUM_SIZE);
+			relationalCacheMaximumSize = config.getLong("cache.relational_maximum_size", RelationalCache.DEFAULT_MAXIMUM_SIZE);
+			cacheDurations = readCacheDurations(config.getConfigurationSection("expansions"));
+
+			statsEnabled = config.getBoolean("stats.enabled", false);
+			statsSampleRate = config.getInt("stats.sample_rate", PlaceholderStatistics.DEFAULT_SAMPLE_RATE);
+			statsPerParams = config.getBoolean("stats.per_params", false);
+
+			lazyExpansionsEnabled = config.getBoolean("lazy_expansions.enabled", false);
+			lazyExpansionsIdleMinutes = config.getLong("lazy_expansions.idle_unload_minutes", 0);
+
+			//noinspection ConstantConditions (bad spigot annotation)
+			dateFormat = config.getString("date_format", "MM/dd/yy HH:mm:ss");
+			//noinspection ConstantConditions (bad spigot annotation)
+			booleanTrue = config.getString("boolean.true", "true");
+			//noinspection ConstantConditions (bad spigot annotation)
+			booleanFalse = config.getString("boolean.false", "false");
+		}
+
+
+		/**
+		 * @return The {@code cache_ttl} of every expansion which sets one
+		 */
+		@NotNull
+		private static Map<String, Long> readCacheDurations(@Nullable final ConfigurationSection expansions)
+		{
+			if (expansions == null)
+			{
+				return ImmutableMap.of();
+			}
+
+			final ImmutableMap.Builder<String, Long> durations = ImmutableMap.builder();
+			for (final String identifier : expansions.getKeys(false))
+			{
+				final ConfigurationSection section = expansions.getConfigurationSection(identifier);
+				if (section != null && section.contains("cache_ttl"))
+				{
+					durations.put(identifier, section.getLong("cache_ttl"));
+				}
+			}
+
+			return durations.build();
+		}
+
 	}
 
 }
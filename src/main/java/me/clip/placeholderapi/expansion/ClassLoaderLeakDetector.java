@@ -0,0 +1,126 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes the class loaders of unregistered expansions and keeps a weak reference to each of them, a loader that
+ * is still reachable long after it was closed is kept alive by something holding on to the expansion or one of
+ * its classes, and leaks every class it loaded.
+ */
+final class ClassLoaderLeakDetector
+{
+
+	@NotNull
+	private final ReferenceQueue<ExpansionClassLoader> queue  = new ReferenceQueue<>();
+	@NotNull
+	private final Set<Probe>                           probes = ConcurrentHashMap.newKeySet();
+
+
+	/**
+	 * Closes the class loader and starts watching it.
+	 *
+	 * @param loader The class loader of expansions which are no longer registered
+	 */
+	void close(@NotNull final ExpansionClassLoader loader) throws IOException
+	{
+		try
+		{
+			loader.close();
+		}
+		finally
+		{
+			probes.add(new Probe(loader, queue));
+		}
+	}
+
+	/**
+	 * @param age Minimum amount of milliseconds since a class loader was closed
+	 * @return The jars of the class loaders closed at least that long ago which were not collected yet
+	 */
+	@NotNull
+	List<String> getLeaks(final long age)
+	{
+		expunge();
+
+		final long         now   = System.nanoTime();
+		final List<String> leaks = new ArrayList<>();
+
+		for (final Probe probe : probes)
+		{
+			if (probe.get() != null && TimeUnit.NANOSECONDS.toMillis(now - probe.closed) >= age)
+			{
+				leaks.add(probe.jar);
+			}
+		}
+
+		return leaks;
+	}
+
+	/**
+	 * @return Amount of closed class loaders which were not collected yet
+	 */
+	int size()
+	{
+		expunge();
+		return probes.size();
+	}
+
+
+	private void expunge()
+	{
+		Reference<? extends ExpansionClassLoader> reference;
+		while ((reference = queue.poll()) != null)
+		{
+			//noinspection SuspiciousMethodCalls (only probes are enqueued)
+			probes.remove(reference);
+		}
+	}
+
+
+	private static final class Probe extends WeakReference<ExpansionClassLoader>
+	{
+
+		@NotNull
+		private final String jar;
+		private final long   closed = System.nanoTime();
+
+
+		private Probe(@NotNull final ExpansionClassLoader loader, @NotNull final ReferenceQueue<ExpansionClassLoader> queue)
+		{
+			super(loader, queue);
+			this.jar = loader.getJar().getName();
+		}
+
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Loads the classes of a single expansion jar. It stays open for as long as an expansion from the jar is
+ * registered and is closed by the {@link ExpansionManager} once they are all unregistered.
+ */
+final class ExpansionClassLoader extends URLClassLoader
+{
+
+	static
+	{
+		ClassLoader.registerAsParallelCapable();
+	}
+
+
+	@NotNull
+	private final File jar;
+
+
+	ExpansionClassLoader(@NotNull final File jar) throws MalformedURLException
+	{
+		super(new URL[]{jar.toURI().toURL()}, PlaceholderExpansion.class.getClassLoader());
+		this.jar = jar;
+	}
+
+
+	@NotNull
+	File getJar()
+	{
+		return jar;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ExpansionClassLoader{" + jar.getName() + "}";
+	}
+
+}
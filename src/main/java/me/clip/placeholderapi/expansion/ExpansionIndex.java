@@ -0,0 +1,294 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which expansion classes every jar holds, keyed by the jar's file name, size, modification time and
+ * content hash, so unchanged jars don't have to be searched again on the next start or reload.
+ * <br>Safe to use from the threads of the {@link ExpansionScanner}, entries are never changed, only replaced
+ * atomically.
+ */
+final class ExpansionIndex
+{
+
+	private static final Gson GSON = new Gson();
+	private static final Type TYPE = new TypeToken<Map<String, Entry>>() {}.getType();
+
+
+	@NotNull
+	private final File               file;
+	@NotNull
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private volatile boolean loaded;
+	private volatile boolean dirty;
+
+
+	ExpansionIndex(@NotNull final File file)
+	{
+		this.file = file;
+	}
+
+
+	/**
+	 * Reads the index from disk, only the first call does anything.
+	 */
+	void load() throws IOException
+	{
+		if (loaded)
+		{
+			return;
+		}
+
+		loaded = true;
+
+		if (!file.exists())
+		{
+			return;
+		}
+
+		try (final Reader reader = Files.newReader(file, StandardCharsets.UTF_8))
+		{
+			final Map<String, Entry> read = GSON.fromJson(reader, TYPE);
+			if (read != null)
+			{
+				read.values().removeIf(entry -> entry == null || entry.hash == null || entry.classes == null);
+				entries.putAll(read);
+			}
+		}
+	}
+
+	/**
+	 * Writes the index to disk, if anything changed since it was loaded or last saved.
+	 */
+	void save() throws IOException
+	{
+		if (!dirty)
+		{
+			return;
+		}
+
+		dirty = false;
+
+		try (final Writer writer = Files.newWriter(file, StandardCharsets.UTF_8))
+		{
+			GSON.toJson(entries, TYPE, writer);
+		}
+	}
+
+	/**
+	 * @param jar The jar to look up
+	 * @return The expansion classes previously found in the jar, or null if the jar is new or was changed since
+	 */
+	@Nullable
+	List<String> get(@NotNull final File jar) throws IOException
+	{
+		final Entry entry = entries.get(jar.getName());
+		if (entry == null || entry.size != jar.length())
+		{
+			return null;
+		}
+
+		if (entry.modified == jar.lastModified())
+		{
+			return entry.classes;
+		}
+
+		// touched, but possibly not changed
+		if (!entry.hash.equals(hash(jar)))
+		{
+			return null;
+		}
+
+		// a jar put in the index since it was read keeps its new entry
+		if (entries.replace(jar.getName(), entry, entry.withModified(jar.lastModified())))
+		{
+			dirty = true;
+		}
+
+		return entry.classes;
+	}
+
+	/**
+	 * @param jar     The jar that was searched
+	 * @param classes The expansion classes found in it
+	 */
+	void put(@NotNull final File jar, @NotNull final List<String> classes) throws IOException
+	{
+		entries.put(jar.getName(), new Entry(jar.length(), jar.lastModified(), hash(jar), classes, null, null));
+		dirty = true;
+	}
+
+	/**
+	 * @param jar       The jar the class is in
+	 * @param className The expansion class
+	 * @return The identifier an instance of the class had, or null if the class was never created
+	 */
+	@Nullable
+	String getIdentifier(@NotNull final File jar, @NotNull final String className)
+	{
+		final Entry entry = entries.get(jar.getName());
+		return entry == null || entry.identifiers == null ? null : entry.identifiers.get(className);
+	}
+
+	/**
+	 * @param jar       The jar the class is in
+	 * @param className The expansion class
+	 * @return The version an instance of the class had, or null if the class was never created
+	 */
+	@Nullable
+	String getVersion(@NotNull final File jar, @NotNull final String className)
+	{
+		final Entry entry = entries.get(jar.getName());
+		return entry == null || entry.versions == null ? null : entry.versions.get(className);
+	}
+
+	/**
+	 * Remembers the identifier and version of an expansion class, so it can be registered lazily without creating it.
+	 *
+	 * @param jar        The jar the class is in
+	 * @param className  The expansion class
+	 * @param identifier The identifier of an instance of the class
+	 * @param version    The version of an instance of the class
+	 */
+	void setExpansion(@NotNull final File jar, @NotNull final String className, @NotNull final String identifier, @Nullable final String version)
+	{
+		entries.computeIfPresent(jar.getName(), (name, entry) -> {
+			final Entry next = entry.withExpansion(className, identifier, version);
+			if (next != entry)
+			{
+				dirty = true;
+			}
+
+			return next;
+		});
+	}
+
+	/**
+	 * Forgets every jar that isn't one of the given ones.
+	 *
+	 * @param jars The jars that still exist
+	 */
+	void retain(@NotNull final Collection<File> jars)
+	{
+		final Set<String> names = new HashSet<>();
+		for (final File jar : jars)
+		{
+			names.add(jar.getName());
+		}
+
+		if (entries.keySet().retainAll(names))
+		{
+			dirty = true;
+		}
+	}
+
+
+	@NotNull
+	private static String hash(@NotNull final File jar) throws IOException
+	{
+		return Files.asByteSource(jar).hash(Hashing.sha256()).toString();
+	}
+
+
+	/**
+	 * Read from and written to the index file as it is, its maps are never changed once it was created.
+	 */
+	private static final class Entry
+	{
+
+		private final long                size;
+		private final long                modified;
+		private final String              hash;
+		private final List<String>        classes;
+		@Nullable
+		private final Map<String, String> identifiers;
+		@Nullable
+		private final Map<String, String> versions;
+
+		private Entry(final long size, final long modified, @NotNull final String hash, @NotNull final List<String> classes, @Nullable final Map<String, String> identifiers, @Nullable final Map<String, String> versions)
+		{
+			this.size = size;
+			this.modified = modified;
+			this.hash = hash;
+			this.classes = classes;
+			this.identifiers = identifiers;
+			this.versions = versions;
+		}
+
+
+		@NotNull
+		private Entry withModified(final long modified)
+		{
+			return new Entry(size, modified, hash, classes, identifiers, versions);
+		}
+
+		/**
+		 * @return An entry which also knows the identifier and version of the class, or this one if it already did
+		 */
+		@NotNull
+		private Entry withExpansion(@NotNull final String className, @NotNull final String identifier, @Nullable final String version)
+		{
+			final boolean identified = identifiers != null && identifier.equals(identifiers.get(className));
+			final boolean versioned  = version == null || (versions != null && version.equals(versions.get(className)));
+
+			if (identified && versioned)
+			{
+				return this;
+			}
+
+			return new Entry(size, modified, hash, classes, identified ? identifiers : with(identifiers, className, identifier), versioned ? versions : with(versions, className, version));
+		}
+
+
+		@NotNull
+		private static Map<String, String> with(@Nullable final Map<String, String> map, @NotNull final String key, @NotNull final String value)
+		{
+			final Map<String, String> copy = map == null ? new HashMap<>() : new HashMap<>(map);
+			copy.put(key, value);
+
+			return copy;
+		}
+
+	}
+
+}
@@ -20,35 +20,93 @@
  */
 package me.clip.placeholderapi.expansion;
 
+import com.google.gson.JsonParseException;
 import me.clip.placeholderapi.PlaceholderAPI;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
 import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.events.ExpansionRegisterEvent;
+import me.clip.placeholderapi.events.ExpansionUnregisterEvent;
 import me.clip.placeholderapi.expansion.cloud.CloudExpansion;
 import me.clip.placeholderapi.util.FileUtil;
 import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 public final class ExpansionManager
 {
 
+	/**
+	 * Milliseconds after which a closed class loader that was not collected is reported as leaked
+	 */
+	private static final long LEAK_CHECK_DELAY = TimeUnit.MINUTES.toMillis(5);
+	/**
+	 * Nanoseconds after a lazily registered expansion failed to load before a request tries to load it again
+	 */
+	private static final long RETRY_DELAY      = TimeUnit.MINUTES.toNanos(1);
+
+
+	@NotNull
+	private final File                                       folder;
+	@NotNull
+	private final Plugin                                     plugin;
 	@NotNull
-	private final File                 folder;
+	private final Function<String, Optional<CloudExpansion>> cloud;
+	@NotNull
+	private final ExpansionIndex                             index;
+	@NotNull
+	private final Map<String, Source>                        sources = new HashMap<>();
+
 	@NotNull
-	private final PlaceholderAPIPlugin plugin;
+	private final ClassLoaderLeakDetector leaks = new ClassLoaderLeakDetector();
+
+	@NotNull
+	private Map<String, Map<String, Object>> sections = Collections.emptyMap();
+
+	private boolean    lazy;
+	private long       idle;
+	@Nullable
+	private BukkitTask idleTask;
 
 	public ExpansionManager(@NotNull final PlaceholderAPIPlugin plugin)
+	{
+		this(plugin, identifier -> plugin.getPlaceholderAPIConfig().isCloudEnabled() ? plugin.getExpansionCloud().getCloudExpansion(identifier) : Optional.empty());
+	}
+
+	/**
+	 * @param plugin The plugin owning the expansions, their config and their tasks
+	 * @param cloud  Finds the cloud expansion of an identifier, or nothing if the cloud is disabled
+	 */
+	ExpansionManager(@NotNull final Plugin plugin, @NotNull final Function<String, Optional<CloudExpansion>> cloud)
 	{
 		this.plugin = plugin;
+		this.cloud = cloud;
 		this.folder = new File(plugin.getDataFolder(), "expansions");
+		this.index = new ExpansionIndex(new File(plugin.getDataFolder(), "expansions.index.json"));
 
 		if (!this.folder.exists() && !folder.mkdirs())
 		{
@@ -77,23 +135,67 @@ public final class ExpansionManager
 
 
 
+	/**
+	 * @param name The identifier of the expansion
+	 * @return The registered expansion, a lazily registered one is loaded if this is called on the main thread
+	 */
 	public PlaceholderExpansion getRegisteredExpansion(String name)
 	{
 		for (Entry<String, PlaceholderHook> hook : PlaceholderAPI.getPlaceholders().entrySet())
 		{
+			if (!name.equalsIgnoreCase(hook.getKey()))
+			{
+				continue;
+			}
+
 			if (hook.getValue() instanceof PlaceholderExpansion)
 			{
-				if (name.equalsIgnoreCase(hook.getKey()))
-				{
-					return (PlaceholderExpansion) hook.getValue();
-				}
+				return (PlaceholderExpansion) hook.getValue();
+			}
+
+			if (hook.getValue() instanceof LazyExpansion)
+			{
+				final LazyExpansion lazy = (LazyExpansion) hook.getValue();
+				return Bukkit.isPrimaryThread() ? activate(lazy) : lazy.getExpansion();
 			}
 		}
 
 		return null;
 	}
 
+	/**
+	 * @param identifier The identifier of an expansion
+	 * @return The version of the registered expansion, which is also known for lazily registered expansions that
+	 * were not loaded yet, or null if there is none or its version is unknown
+	 */
+	@Nullable
+	public String getExpansionVersion(@NotNull final String identifier)
+	{
+		final PlaceholderHook hook = PlaceholderAPI.getPlaceholders().get(identifier.toLowerCase());
+
+		if (hook instanceof PlaceholderExpansion)
+		{
+			return ((PlaceholderExpansion) hook).getVersion();
+		}
+
+		if (hook instanceof LazyExpansion)
+		{
+			final PlaceholderExpansion loaded = ((LazyExpansion) hook).getExpansion();
+			return loaded != null ? loaded.getVersion() : ((LazyExpansion) hook).getVersion();
+		}
+
+		return null;
+	}
+
 	public boolean registerExpansion(@NotNull final PlaceholderExpansion expansion)
+	{
+		return registerExpansion(expansion, null);
+	}
+
+	/**
+	 * @param replaced The stand in the expansion is registered in place of, or null to register it as usual
+	 */
+	private boolean registerExpansion(@NotNull final PlaceholderExpansion expansion, @Nullable final LazyExpansion replaced)
 	{
 		if (expansion.getIdentifier() == null)
 		{
@@ -155,7 +257,7 @@ public final class ExpansionManager
 			}
 		}
 
-		if (!expansion.canRegister() || !expansion.register())
+		if (!expansion.canRegister() || !(replaced == null ? expansion.register() : replace(replaced, expansion)))
 		{
 			return false;
 		}
@@ -172,69 +274,693 @@ public final class ExpansionManager
 			((Taskable) expansion).start();
 		}
 
-		if (plugin.getPlaceholderAPIConfig().isCloudEnabled())
+		markInstalled(expansion.getIdentifier(), expansion.getVersion());
+		return true;
+	}
+
+	/**
+	 * Registers the expansion in place of its stand in, so the identifier is never missing in between
+	 */
+	private boolean replace(@NotNull final LazyExpansion lazy, @NotNull final PlaceholderExpansion expansion)
+	{
+		final ExpansionRegisterEvent event = new ExpansionRegisterEvent(expansion);
+		Bukkit.getPluginManager().callEvent(event);
+
+		return !event.isCancelled() && PlaceholderAPI.replacePlaceholderHook(lazy.getIdentifier(), lazy, expansion);
+	}
+
+	private void markInstalled(@NotNull final String identifier, @Nullable final String version)
+	{
+		final CloudExpansion cloudExpansion = cloud.apply(identifier).orElse(null);
+
+		if (cloudExpansion != null)
+		{
+			cloudExpansion.setHasExpansion(true);
+			cloudExpansion.setShouldUpdate(version != null && !cloudExpansion.getLatestVersion().equals(version));
+		}
+	}
+
+
+	@Nullable
+	public PlaceholderExpansion registerExpansion(@NotNull final String fileName)
+	{
+		final String name = fileName.replace(".jar", "");
+
+		for (final File jar : getJars())
+		{
+			if (!jar.getName().replace(".jar", "").equalsIgnoreCase(name))
+			{
+				continue;
+			}
+
+			// only register the first instance found as an expansion jar should only have 1 class
+			// extending PlaceholderExpansion
+			final List<String> registered = registerJars(new File[]{jar}, getJars(), true);
+			return registered.isEmpty() ? null : getRegisteredExpansion(registered.get(0));
+		}
+
+		return null;
+	}
+
+	public void registerAllExpansions()
+	{
+		final File[] jars = getJars();
+		if (jars.length != 0)
+		{
+			registerJars(jars, jars, false);
+		}
+
+		sections = getExpansionSections();
+	}
+
+	/**
+	 * Reloads only the expansions which need it, every other expansion keeps serving its placeholders throughout.
+	 * <br>An expansion is reloaded if its jar was added, changed or removed, if its {@code expansions.<identifier>}
+	 * config section changed, or if it is no longer registered.
+	 *
+	 * @return What was reloaded, and how long it took
+	 */
+	@NotNull
+	public ReloadResult reloadExpansions()
+	{
+		final long start = System.nanoTime();
+
+		for (final String jar : getLeakedClassLoaders())
+		{
+			plugin.getLogger().warning("The class loader of " + jar + " was not garbage collected long after its expansions were unregistered, something still references them");
+		}
+
+		final File[]                           jars       = getJars();
+		final Map<String, PlaceholderHook>     registered = PlaceholderAPI.getPlaceholders();
+		final Map<String, Map<String, Object>> current    = getExpansionSections();
+
+		final Set<String> unloaded  = new LinkedHashSet<>();
+		final Set<String> loaded    = new LinkedHashSet<>();
+		final Set<String> jarNames  = new HashSet<>();
+		int               unchanged = 0;
+
+		final Set<PlaceholderExpansion> fromJars = Collections.newSetFromMap(new IdentityHashMap<>());
+		sources.values().forEach(source -> {
+			fromJars.addAll(source.expansions);
+			source.lazies.forEach(lazy -> {
+				if (lazy.getExpansion() != null)
+				{
+					fromJars.add(lazy.getExpansion());
+				}
+			});
+		});
+
+		final List<File> pending = new ArrayList<>();
+
+		for (final File jar : jars)
+		{
+			jarNames.add(jar.getName());
+
+			final Source source = sources.get(jar.getName());
+			if (source == null)
+			{
+				pending.add(jar);
+				continue;
+			}
+
+			if (source.isCurrent(jar, registered, sections, current))
+			{
+				unchanged += source.expansions.size() + source.lazies.size();
+				continue;
+			}
+
+			unload(source, unloaded);
+			pending.add(jar);
+		}
+
+		final Iterator<Entry<String, Source>> iterator = sources.entrySet().iterator();
+		while (iterator.hasNext())
+		{
+			final Entry<String, Source> entry = iterator.next();
+			if (!jarNames.contains(entry.getKey()))
+			{
+				unload(entry.getValue(), unloaded);
+				iterator.remove();
+			}
+		}
+
+		if (!pending.isEmpty())
 		{
-			final CloudExpansion cloudExpansion = plugin.getExpansionCloud().getCloudExpansion(expansion.getIdentifier()).orElse(null);
+			loaded.addAll(registerJars(pending.toArray(new File[0]), jars, false));
+		}
+
+		// expansions provided by other plugins can't be created again, they are only registered again
+		for (final PlaceholderHook hook : registered.values())
+		{
+			if (!(hook instanceof PlaceholderExpansion) || fromJars.contains(hook))
+			{
+				continue;
+			}
+
+			final PlaceholderExpansion expansion = (PlaceholderExpansion) hook;
+			if (Objects.equals(sections.get(expansion.getIdentifier()), current.get(expansion.getIdentifier())))
+			{
+				unchanged++;
+				continue;
+			}
+
+			if (hook instanceof Cacheable)
+			{
+				((Cacheable) hook).clear();
+			}
+
+			PlaceholderAPI.unregisterExpansion(expansion);
+			unloaded.add(expansion.getIdentifier());
+
+			if (registerExpansion(expansion))
+			{
+				loaded.add(expansion.getIdentifier());
+			}
+		}
+
+		sections = getExpansionSections();
+
+		final List<String> reloaded = new ArrayList<>(loaded);
+		reloaded.retainAll(unloaded);
+
+		final List<String> added = new ArrayList<>(loaded);
+		added.removeAll(unloaded);
+
+		final List<String> removed = new ArrayList<>(unloaded);
+		removed.removeAll(loaded);
+
+		return new ReloadResult(added, removed, reloaded, unchanged, System.nanoTime() - start);
+	}
+
+
+	/**
+	 * Scans the jars and registers the expansions found in them, keeping track of which jar they came from.
+	 *
+	 * @param jars  The jars to register the expansions of
+	 * @param all   Every jar in the expansions folder
+	 * @param first If only the first expansion of every jar should be registered, never lazily
+	 * @return The identifiers of the registered expansions
+	 */
+	@NotNull
+	private List<String> registerJars(@NotNull final File[] jars, @NotNull final File[] all, final boolean first)
+	{
+		try
+		{
+			index.load();
+		}
+		catch (final IOException | JsonParseException ex)
+		{
+			plugin.getLogger().log(Level.WARNING, "Failed to load the expansion index, every jar will be searched", ex);
+		}
+
+		final List<String> registered = new ArrayList<>();
+		final List<File>   eager      = new ArrayList<>();
+
+		for (final File jar : jars)
+		{
+			if (first || !lazy || !registerLazily(jar, registered))
+			{
+				eager.add(jar);
+			}
+		}
+
+		final long                          start = System.nanoTime();
+		final List<ExpansionScanner.Result> results;
+
+		try
+		{
+			results = ExpansionScanner.scan(eager.toArray(new File[0]), index);
+		}
+		catch (final InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			plugin.getLogger().warning("Scanning " + eager.size() + " expansion jar(s) was interrupted, none of them were registered");
+
+			return registered;
+		}
+
+		index.retain(Arrays.asList(all));
+
+		if (!eager.isEmpty())
+		{
+			plugin.getLogger().info("Scanned " + eager.size() + " expansion jar(s) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms using " + ExpansionScanner.getThreads(eager.size()) + " thread(s)");
+		}
 
-			if (cloudExpansion != null)
+		for (final ExpansionScanner.Result result : results)
+		{
+			if (result.getError() != null)
+			{
+				plugin.getLogger().log(Level.WARNING, "Failed to scan expansion jar: " + result.getJar().getName(), result.getError());
+				continue;
+			}
+
+			plugin.getLogger().info("Scanned " + result.getJar().getName() + " in " + result.getMillis() + "ms" + (result.isIndexed() ? " (indexed)" : ""));
+
+			// expansions still registered from an older copy of the jar keep its stamp, so a reload replaces them
+			final Source source = getSource(result.getJar());
+			final int    before = source.expansions.size();
+
+			for (final Class<? extends PlaceholderExpansion> clazz : result.getClasses())
 			{
-				cloudExpansion.setHasExpansion(true);
-				if (!cloudExpansion.getLatestVersion().equals(expansion.getVersion()))
+				final PlaceholderExpansion expansion = createInstance(clazz);
+				if (expansion == null)
+				{
+					continue;
+				}
+
+				if (expansion.getIdentifier() != null)
+				{
+					index.setExpansion(result.getJar(), clazz.getName(), expansion.getIdentifier(), expansion.getVersion());
+				}
+
+				try
 				{
-					cloudExpansion.setShouldUpdate(true);
+					if (registerExpansion(expansion))
+					{
+						source.expansions.add(expansion);
+						registered.add(expansion.getIdentifier());
+					}
+				}
+				catch (final Exception ex)
+				{
+					plugin.getLogger().log(Level.WARNING, "Couldn't register " + expansion.getIdentifier() + " expansion", ex);
+				}
+
+				if (first)
+				{
+					break;
 				}
 			}
+
+			if (result.getLoader() != null)
+			{
+				if (source.expansions.size() == before)
+				{
+					release(result.getLoader());
+				}
+				else
+				{
+					source.loaders.add(result.getLoader());
+				}
+			}
+		}
+
+		try
+		{
+			index.save();
+		}
+		catch (final IOException ex)
+		{
+			plugin.getLogger().log(Level.WARNING, "Failed to save the expansion index", ex);
 		}
 
+		return registered;
+	}
+
+	/**
+	 * Registers a stand in for every expansion of the jar, if the jar is unchanged and the identifiers of all of
+	 * its expansions are known from the index.
+	 *
+	 * @return true if the jar was registered lazily, false if it has to be scanned
+	 */
+	private boolean registerLazily(@NotNull final File jar, @NotNull final List<String> registered)
+	{
+		final List<String> names;
+		try
+		{
+			names = index.get(jar);
+		}
+		catch (final IOException ex)
+		{
+			return false;
+		}
+
+		if (names == null || names.isEmpty())
+		{
+			return false;
+		}
+
+		final List<LazyExpansion> lazies = new ArrayList<>(names.size());
+		for (final String name : names)
+		{
+			final String identifier = index.getIdentifier(jar, name);
+			if (identifier == null)
+			{
+				return false;
+			}
+
+			lazies.add(new LazyExpansion(this, jar, name, identifier, index.getVersion(jar, name)));
+		}
+
+		final Source source = getSource(jar);
+
+		for (final LazyExpansion lazy : lazies)
+		{
+			if (PlaceholderAPI.registerPlaceholderHook(lazy.getIdentifier(), lazy))
+			{
+				source.lazies.add(lazy);
+				registered.add(lazy.getIdentifier());
+
+				markInstalled(lazy.getIdentifier(), lazy.getVersion());
+			}
+		}
+
+		plugin.getLogger().info("Deferred loading " + jar.getName() + " until one of its placeholders is requested");
 		return true;
 	}
 
+	/**
+	 * Expansions still registered from an older copy of the jar keep its stamp, so a reload replaces them
+	 */
+	@NotNull
+	private Source getSource(@NotNull final File jar)
+	{
+		Source source = sources.get(jar.getName());
+		if (source == null || source.isEmpty())
+		{
+			source = new Source(jar);
+			sources.put(jar.getName(), source);
+		}
+
+		return source;
+	}
 
-	@Nullable
-	public PlaceholderExpansion registerExpansion(@NotNull final String fileName)
+	private void unload(@NotNull final Source source, @NotNull final Set<String> unloaded)
 	{
-		final List<Class<? extends PlaceholderExpansion>> subs = FileUtil.getClasses(folder, PlaceholderExpansion.class, fileName);
-		if (subs.isEmpty())
+		for (final PlaceholderExpansion expansion : source.expansions)
 		{
-			return null;
+			if (PlaceholderAPI.unregisterExpansion(expansion))
+			{
+				unloaded.add(expansion.getIdentifier());
+			}
+		}
+
+		for (final LazyExpansion lazy : source.lazies)
+		{
+			if (unload(lazy))
+			{
+				unloaded.add(lazy.getIdentifier());
+			}
+		}
+
+		source.loaders.forEach(this::release);
+
+		source.expansions.clear();
+		source.lazies.clear();
+		source.loaders.clear();
+	}
+
+	/**
+	 * Unregisters a lazy expansion, whether it is loaded or not.
+	 *
+	 * @return true if anything was registered for it
+	 */
+	private boolean unload(@NotNull final LazyExpansion lazy)
+	{
+		final PlaceholderExpansion expansion = lazy.getExpansion();
+		final ExpansionClassLoader loader    = lazy.getLoader();
+		final PlaceholderHook      hook      = PlaceholderAPI.getPlaceholders().get(lazy.getIdentifier().toLowerCase());
+
+		lazy.setExpansion(null, null);
+
+		final boolean unregistered;
+		if (hook == lazy)
+		{
+			PlaceholderAPI.unregisterPlaceholderHook(lazy.getIdentifier());
+
+			if (expansion != null)
+			{
+				Bukkit.getPluginManager().callEvent(new ExpansionUnregisterEvent(expansion));
+			}
+
+			unregistered = true;
+		}
+		else
+		{
+			unregistered = expansion != null && hook == expansion && PlaceholderAPI.unregisterExpansion(expansion);
+		}
+
+		if (loader != null)
+		{
+			release(loader);
+		}
+
+		return unregistered;
+	}
+
+	/**
+	 * Closes the class loader of expansions which are no longer registered, and watches it for leaks
+	 */
+	private void release(@NotNull final ExpansionClassLoader loader)
+	{
+		try
+		{
+			leaks.close(loader);
 		}
+		catch (final IOException ex)
+		{
+			plugin.getLogger().log(Level.WARNING, "Failed to close the class loader of " + loader.getJar().getName(), ex);
+		}
+	}
+
+
+	/**
+	 * Sets if expansions should be loaded lazily, and schedules unloading the ones that go unused.
+	 *
+	 * @param lazy If jars already in the index should only be loaded the first time one of their placeholders is
+	 *             requested, applies to jars registered from now on
+	 * @param idle Milliseconds after the request which loaded a lazily registered expansion that it is unloaded
+	 *             again, 0 to keep them loaded
+	 */
+	public void configure(final boolean lazy, final long idle)
+	{
+		this.lazy = lazy;
+		this.idle = TimeUnit.MILLISECONDS.toNanos(idle);
+
+		if (idleTask != null)
+		{
+			idleTask.cancel();
+			idleTask = null;
+		}
+
+		if (lazy && idle > 0)
+		{
+			final long ticks = Math.max(1, idle / 50);
+			idleTask = Bukkit.getScheduler().runTaskTimer(plugin, this::unloadIdleExpansions, ticks, ticks);
+		}
+	}
 
-		// only register the first instance found as an expansion jar should only have 1 class
-		// extending PlaceholderExpansion
-		final PlaceholderExpansion expansion = createInstance(subs.get(0));
-		if (expansion != null && registerExpansion(expansion))
+	/**
+	 * Unregisters every expansion registered from a jar, including lazily loaded ones, and closes their class loaders
+	 */
+	public void unloadExpansions()
+	{
+		final Set<String> unloaded = new HashSet<>();
+		sources.values().forEach(source -> unload(source, unloaded));
+		sources.clear();
+	}
+
+	/**
+	 * Get the jars whose class loader was closed minutes ago but is still reachable. Something, like a task or
+	 * listener left behind or another plugin, still references the unregistered expansion or one of its classes,
+	 * which keeps every class of the jar loaded.
+	 *
+	 * @return The file names of the jars
+	 */
+	@NotNull
+	public List<String> getLeakedClassLoaders()
+	{
+		return leaks.getLeaks(LEAK_CHECK_DELAY);
+	}
+
+	/**
+	 * @param identifier The identifier of an expansion
+	 * @return The jar the registered expansion was loaded from, or null if it wasn't loaded from a jar
+	 */
+	@Nullable
+	public File getExpansionJar(@NotNull final String identifier)
+	{
+		for (final Entry<String, Source> entry : sources.entrySet())
 		{
-			return expansion;
+			final Source source = entry.getValue();
+
+			final boolean found = source.expansions.stream().anyMatch(expansion -> identifier.equalsIgnoreCase(expansion.getIdentifier())) ||
+								  source.lazies.stream().anyMatch(lazy -> identifier.equalsIgnoreCase(lazy.getIdentifier()));
+			if (found)
+			{
+				return new File(folder, entry.getKey());
+			}
 		}
 
 		return null;
 	}
 
-	public void registerAllExpansions()
+	/**
+	 * Runs every idle period. Expansions loaded by a request to their stand in at least a whole period ago are
+	 * unloaded, and their stand in takes their place again, so the next request loads them anew.
+	 */
+	private void unloadIdleExpansions()
 	{
-		final List<@NotNull Class<? extends PlaceholderExpansion>> subs = FileUtil.getClasses(folder, PlaceholderExpansion.class);
-		if (subs.isEmpty())
+		final long now = System.nanoTime();
+
+		for (final Source source : sources.values())
 		{
-			return;
+			for (final LazyExpansion lazy : source.lazies)
+			{
+				final PlaceholderExpansion expansion = lazy.getExpansion();
+				if (expansion == null || now - lazy.getLastRequest() < idle)
+				{
+					continue;
+				}
+
+				// if the expansion was unregistered by something else the next reload registers it again
+				if (!PlaceholderAPI.replacePlaceholderHook(lazy.getIdentifier(), expansion, lazy))
+				{
+					continue;
+				}
+
+				final ExpansionClassLoader loader = lazy.getLoader();
+
+				lazy.setExpansion(null, null);
+				Bukkit.getPluginManager().callEvent(new ExpansionUnregisterEvent(expansion));
+
+				if (loader != null)
+				{
+					release(loader);
+				}
+
+				plugin.getLogger().info("Unloaded idle expansion: " + lazy.getIdentifier());
+			}
+		}
+	}
+
+	/**
+	 * Loads, creates and registers the expansion of the stand in, must be called on the main thread.
+	 * <br>The stand in is only replaced once the expansion is registered, it stays registered if anything fails
+	 * and the next request after {@link #RETRY_DELAY} tries again.
+	 *
+	 * @return The registered expansion, or null if it could not be loaded
+	 */
+	@Nullable
+	PlaceholderExpansion activate(@NotNull final LazyExpansion lazy)
+	{
+		final PlaceholderExpansion loaded = lazy.getExpansion();
+		if (loaded != null)
+		{
+			return loaded;
+		}
+
+		if (PlaceholderAPI.getPlaceholders().get(lazy.getIdentifier().toLowerCase()) != lazy)
+		{
+			return null; // unregistered while the activation was scheduled
 		}
 
-		for (final Class<? extends PlaceholderExpansion> clazz : subs)
+		final long start = System.nanoTime();
+
+		if (lazy.getLastFailure() != 0 && start - lazy.getLastFailure() < RETRY_DELAY)
 		{
-			final PlaceholderExpansion expansion = createInstance(clazz);
-			if (expansion == null)
+			return null;
+		}
+
+		ExpansionClassLoader loader    = null;
+		PlaceholderExpansion expansion = null;
+		try
+		{
+			loader = new ExpansionClassLoader(lazy.getJar());
+
+			final List<Class<? extends PlaceholderExpansion>> classes = FileUtil.loadClasses(loader, PlaceholderExpansion.class, Collections.singletonList(lazy.getClassName()));
+			if (!classes.isEmpty())
 			{
-				continue;
+				expansion = createInstance(classes.get(0));
+			}
+		}
+		catch (final IOException | ClassNotFoundException ex)
+		{
+			plugin.getLogger().log(Level.WARNING, "Failed to load expansion " + lazy.getIdentifier() + " from " + lazy.getJar().getName(), ex);
+		}
+
+		if (expansion == null || !lazy.getIdentifier().equalsIgnoreCase(expansion.getIdentifier()) || !registerExpansion(expansion, lazy))
+		{
+			if (loader != null)
+			{
+				release(loader);
 			}
 
+			lazy.setLastFailure(System.nanoTime());
+
+			plugin.getLogger().warning("Couldn't load expansion " + lazy.getIdentifier() + " on its first request");
+			return null;
+		}
+
+		lazy.setLastFailure(0);
+		lazy.setExpansion(expansion, loader);
+
+		plugin.getLogger().info("Loaded expansion " + lazy.getIdentifier() + " on its first request in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+		return expansion;
+	}
+
+	/**
+	 * Schedules {@link #activate(LazyExpansion)} on the main thread.
+	 */
+	void activateLater(@NotNull final LazyExpansion lazy, @NotNull final Runnable done)
+	{
+		Bukkit.getScheduler().runTask(plugin, () -> {
 			try
 			{
-				registerExpansion(expansion);
+				activate(lazy);
 			}
-			catch (final Exception ex)
+			finally
 			{
-				plugin.getLogger().log(Level.WARNING, "Couldn't register " + expansion.getIdentifier() + " expansion", ex);
+				done.run();
 			}
+		});
+	}
+
+	@NotNull
+	private File[] getJars()
+	{
+		final File[] jars = folder.listFiles((dir, name) -> name.endsWith(".jar"));
+		return jars == null ? new File[0] : jars;
+	}
+
+	/**
+	 * @return The values of every {@code expansions.<identifier>} config section, by identifier
+	 */
+	@NotNull
+	private Map<String, Map<String, Object>> getExpansionSections()
+	{
+		final ConfigurationSection expansions = plugin.getConfig().getConfigurationSection("expansions");
+		if (expansions == null)
+		{
+			return Collections.emptyMap();
 		}
+
+		final Map<String, Map<String, Object>> sections = new HashMap<>();
+
+		for (final String identifier : expansions.getKeys(false))
+		{
+			final ConfigurationSection section = expansions.getConfigurationSection(identifier);
+			final Map<String, Object>  values  = new HashMap<>();
+
+			if (section == null)
+			{
+				values.put("", expansions.get(identifier));
+			}
+			else
+			{
+				// nested sections are only compared through their values
+				section.getValues(true).forEach((key, value) -> {
+					if (!(value instanceof ConfigurationSection))
+					{
+						values.put(key, value);
+					}
+				});
+			}
+
+			sections.put(identifier, values);
+		}
+
+		return sections;
 	}
 
 	@Nullable
@@ -252,4 +978,139 @@ public final class ExpansionManager
 		return null;
 	}
 
+
+	/**
+	 * A jar in the expansions folder, and the expansions registered from it.
+	 */
+	private static final class Source
+	{
+
+		private final long                       size;
+		private final long                       modified;
+		@NotNull
+		private final List<PlaceholderExpansion> expansions = new ArrayList<>();
+		@NotNull
+		private final List<LazyExpansion>        lazies     = new ArrayList<>();
+		@NotNull
+		private final List<ExpansionClassLoader> loaders    = new ArrayList<>();
+
+
+		private Source(@NotNull final File jar)
+		{
+			this.size = jar.length();
+			this.modified = jar.lastModified();
+		}
+
+
+		/**
+		 * @return true if the jar and the config sections of its expansions are unchanged, and every expansion is
+		 * still registered
+		 */
+		private boolean isCurrent(@NotNull final File jar, @NotNull final Map<String, PlaceholderHook> registered,
+								  @NotNull final Map<String, Map<String, Object>> previous, @NotNull final Map<String, Map<String, Object>> current)
+		{
+			if (isEmpty() || size != jar.length() || modified != jar.lastModified())
+			{
+				return false;
+			}
+
+			for (final LazyExpansion lazy : lazies)
+			{
+				final PlaceholderHook hook       = registered.get(lazy.getIdentifier().toLowerCase());
+				final String          identifier = lazy.getIdentifier();
+
+				if ((hook != lazy && (hook == null || hook != lazy.getExpansion())) || !Objects.equals(previous.get(identifier), current.get(identifier)))
+				{
+					return false;
+				}
+			}
+
+			for (final PlaceholderExpansion expansion : expansions)
+			{
+				final String identifier = expansion.getIdentifier();
+
+				if (registered.get(identifier.toLowerCase()) != expansion || !Objects.equals(previous.get(identifier), current.get(identifier)))
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private boolean isEmpty()
+		{
+			return expansions.isEmpty() && lazies.isEmpty();
+		}
+
+	}
+
+	/**
+	 * The outcome of {@link #reloadExpansions()}.
+	 */
+	public static final class ReloadResult
+	{
+
+		@NotNull
+		private final List<String> added;
+		@NotNull
+		private final List<String> removed;
+		@NotNull
+		private final List<String> reloaded;
+		private final int          unchanged;
+		private final long         nanos;
+
+
+		private ReloadResult(@NotNull final List<String> added, @NotNull final List<String> removed, @NotNull final List<String> reloaded, final int unchanged, final long nanos)
+		{
+			this.added = added;
+			this.removed = removed;
+			this.reloaded = reloaded;
+			this.unchanged = unchanged;
+			this.nanos = nanos;
+		}
+
+
+		/**
+		 * @return Identifiers of the expansions which were not registered before the reload
+		 */
+		@NotNull
+		public List<String> getAdded()
+		{
+			return added;
+		}
+
+		/**
+		 * @return Identifiers of the expansions which were unregistered and not registered again
+		 */
+		@NotNull
+		public List<String> getRemoved()
+		{
+			return removed;
+		}
+
+		/**
+		 * @return Identifiers of the expansions which were unregistered and registered again
+		 */
+		@NotNull
+		public List<String> getReloaded()
+		{
+			return reloaded;
+		}
+
+		/**
+		 * @return Amount of expansions which were left untouched
+		 */
+		public int getUnchanged()
+		{
+			return unchanged;
+		}
+
+		public long getMillis()
+		{
+			return TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+
+	}
+
 }
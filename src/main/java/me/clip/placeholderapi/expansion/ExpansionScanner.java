@@ -0,0 +1,291 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import me.clip.placeholderapi.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the expansion classes of several jars at once, the jars are opened and their classes loaded on a small
+ * pool of threads, only instantiating and registering the expansions is left to the caller.
+ */
+final class ExpansionScanner
+{
+
+	private static final int MAXIMUM_THREADS = 4;
+
+
+	private ExpansionScanner()
+	{ }
+
+
+	/**
+	 * Scans every jar, blocking until all of them are done.
+	 * <br>Jars that are unchanged since they were put in the index only have their known classes loaded, every
+	 * other jar is searched and put in the index.
+	 *
+	 * @param jars  The jars to scan
+	 * @param index The classes previously found in the jars
+	 * @return The result of every jar, in the same order as the jars
+	 * @throws InterruptedException If the calling thread was interrupted while waiting, the class loaders of every
+	 *                              jar scanned so far, or still being scanned, are closed
+	 */
+	@NotNull
+	static List<Result> scan(@NotNull final File[] jars, @NotNull final ExpansionIndex index) throws InterruptedException
+	{
+		final int threads = getThreads(jars.length);
+		if (threads <= 1)
+		{
+			final List<Result> results = new ArrayList<>(jars.length);
+			for (final File jar : jars)
+			{
+				results.add(scan(jar, index));
+			}
+
+			return results;
+		}
+
+		final ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+				.setNameFormat("PlaceholderAPI Expansion Scanner #%d")
+				.setDaemon(true)
+				.build());
+
+		// every result is either handed over here, or closed by its scan once the caller gave up waiting
+		final List<Result>  completed = new ArrayList<>(jars.length);
+		final AtomicBoolean abandoned = new AtomicBoolean();
+
+		try
+		{
+			final List<Future<Result>> futures = new ArrayList<>(jars.length);
+			for (final File jar : jars)
+			{
+				futures.add(pool.submit(() -> {
+					final Result result = scan(jar, index);
+
+					synchronized (completed)
+					{
+						if (abandoned.get())
+						{
+							close(result.loader);
+						}
+						else
+						{
+							completed.add(result);
+						}
+					}
+
+					return result;
+				}));
+			}
+
+			final List<Result> results = new ArrayList<>(jars.length);
+			for (int i = 0; i < jars.length; i++)
+			{
+				try
+				{
+					results.add(futures.get(i).get());
+				}
+				catch (final ExecutionException ex)
+				{
+					results.add(new Result(jars[i], null, Collections.emptyList(), 0L, false, ex.getCause()));
+				}
+			}
+
+			return results;
+		}
+		catch (final InterruptedException ex)
+		{
+			synchronized (completed)
+			{
+				abandoned.set(true);
+				completed.forEach(result -> close(result.loader));
+			}
+
+			throw ex;
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * @param jars The amount of jars to scan
+	 * @return The amount of threads used to scan that many jars
+	 */
+	static int getThreads(final int jars)
+	{
+		return Math.min(jars, Math.min(MAXIMUM_THREADS, Runtime.getRuntime().availableProcessors()));
+	}
+
+	@NotNull
+	private static Result scan(@NotNull final File jar, @NotNull final ExpansionIndex index)
+	{
+		final long start = System.nanoTime();
+
+		ExpansionClassLoader loader = null;
+
+		try
+		{
+			final List<String> names = index.get(jar);
+			if (names != null)
+			{
+				loader = new ExpansionClassLoader(jar);
+
+				try
+				{
+					return result(jar, loader, FileUtil.loadClasses(loader, PlaceholderExpansion.class, names), start, true);
+				}
+				catch (final ClassNotFoundException ignored)
+				{
+					loader.close(); // the index is out of date, search the jar instead
+				}
+			}
+
+			loader = new ExpansionClassLoader(jar);
+
+			final List<Class<? extends PlaceholderExpansion>> classes = FileUtil.getClassesInJar(jar, PlaceholderExpansion.class, loader);
+			index.put(jar, classes.stream().map(Class::getName).collect(Collectors.toList()));
+
+			return result(jar, loader, classes, start, false);
+		}
+		catch (final Throwable ex)
+		{
+			close(loader);
+			return new Result(jar, null, Collections.emptyList(), System.nanoTime() - start, false, ex);
+		}
+	}
+
+	/**
+	 * A jar without expansions has nothing to keep its class loader open for
+	 */
+	@NotNull
+	private static Result result(@NotNull final File jar, @NotNull final ExpansionClassLoader loader, @NotNull final List<Class<? extends PlaceholderExpansion>> classes, final long start, final boolean indexed)
+	{
+		if (classes.isEmpty())
+		{
+			close(loader);
+			return new Result(jar, null, classes, System.nanoTime() - start, indexed, null);
+		}
+
+		return new Result(jar, loader, classes, System.nanoTime() - start, indexed, null);
+	}
+
+	private static void close(@Nullable final ExpansionClassLoader loader)
+	{
+		if (loader == null)
+		{
+			return;
+		}
+
+		try
+		{
+			loader.close();
+		}
+		catch (final IOException ignored)
+		{ }
+	}
+
+
+	static final class Result
+	{
+
+		@NotNull
+		private final File                                                 jar;
+		@Nullable
+		private final ExpansionClassLoader                                 loader;
+		@NotNull
+		private final List<@NotNull Class<? extends PlaceholderExpansion>> classes;
+		private final long                                                 nanos;
+		private final boolean                                              indexed;
+		@Nullable
+		private final Throwable                                            error;
+
+
+		private Result(@NotNull final File jar, @Nullable final ExpansionClassLoader loader, @NotNull final List<@NotNull Class<? extends PlaceholderExpansion>> classes, final long nanos, final boolean indexed, @Nullable final Throwable error)
+		{
+			this.jar = jar;
+			this.loader = loader;
+			this.classes = classes;
+			this.nanos = nanos;
+			this.indexed = indexed;
+			this.error = error;
+		}
+
+
+		@NotNull
+		public File getJar()
+		{
+			return jar;
+		}
+
+		/**
+		 * @return The still open class loader of the found classes, or null if none were found
+		 */
+		@Nullable
+		public ExpansionClassLoader getLoader()
+		{
+			return loader;
+		}
+
+		@NotNull
+		public List<@NotNull Class<? extends PlaceholderExpansion>> getClasses()
+		{
+			return classes;
+		}
+
+		public long getMillis()
+		{
+			return TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+
+		/**
+		 * @return true if the classes were known from the index, false if the jar was searched
+		 */
+		public boolean isIndexed()
+		{
+			return indexed;
+		}
+
+		@Nullable
+		public Throwable getError()
+		{
+			return error;
+		}
+
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion;
+
+import me.clip.placeholderapi.PlaceholderHook;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stands in for an expansion whose class was not loaded yet, the first request for its identifier loads,
+ * creates and registers the expansion in its place.
+ * <br>The stand in stays registered if that fails, and takes the place of the expansion again once it is unloaded
+ * for being idle.
+ */
+final class LazyExpansion extends PlaceholderHook implements Relational
+{
+
+	@NotNull
+	private final ExpansionManager manager;
+	@NotNull
+	private final File             jar;
+	@NotNull
+	private final String           className;
+	@NotNull
+	private final String           identifier;
+	@Nullable
+	private final String           version;
+
+	@Nullable
+	private volatile PlaceholderExpansion expansion;
+	@Nullable
+	private          ExpansionClassLoader loader;
+
+	private volatile long lastRequest;
+	private volatile long lastFailure;
+
+	private final AtomicBoolean activating = new AtomicBoolean();
+
+
+	LazyExpansion(@NotNull final ExpansionManager manager, @NotNull final File jar, @NotNull final String className, @NotNull final String identifier, @Nullable final String version)
+	{
+		this.manager = manager;
+		this.jar = jar;
+		this.className = className;
+		this.identifier = identifier;
+		this.version = version;
+	}
+
+
+	@NotNull
+	File getJar()
+	{
+		return jar;
+	}
+
+	@NotNull
+	String getClassName()
+	{
+		return className;
+	}
+
+	@NotNull
+	String getIdentifier()
+	{
+		return identifier;
+	}
+
+	/**
+	 * @return The version of the expansion when it was last created, or null if it is not known
+	 */
+	@Nullable
+	String getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * @return The loaded expansion, or null if it was not requested yet or was unloaded since
+	 */
+	@Nullable
+	PlaceholderExpansion getExpansion()
+	{
+		return expansion;
+	}
+
+	/**
+	 * @return The class loader of the loaded expansion, or null if it is not loaded
+	 */
+	@Nullable
+	ExpansionClassLoader getLoader()
+	{
+		return loader;
+	}
+
+	void setExpansion(@Nullable final PlaceholderExpansion expansion, @Nullable final ExpansionClassLoader loader)
+	{
+		this.loader = loader;
+		this.expansion = expansion;
+	}
+
+	/**
+	 * @return The {@link System#nanoTime()} of the last request which reached the stand in
+	 */
+	long getLastRequest()
+	{
+		return lastRequest;
+	}
+
+	/**
+	 * @return The {@link System#nanoTime()} of the last failed attempt to load the expansion, or 0 if it never failed
+	 */
+	long getLastFailure()
+	{
+		return lastFailure;
+	}
+
+	void setLastFailure(final long lastFailure)
+	{
+		this.lastFailure = lastFailure;
+	}
+
+
+	@Override
+	public String onRequest(@Nullable final OfflinePlayer player, @NotNull final String params)
+	{
+		final PlaceholderExpansion active = activate();
+		return active == null ? null : active.onRequest(player, params);
+	}
+
+	@Override
+	public String onPlaceholderRequest(final Player one, final Player two, final String identifier)
+	{
+		final PlaceholderExpansion active = activate();
+		return active instanceof Relational ? ((Relational) active).onPlaceholderRequest(one, two, identifier) : null;
+	}
+
+
+	/**
+	 * Loading an expansion registers its listeners and starts its tasks, which has to happen on the main
+	 * thread, requests from other threads schedule it and are left unparsed until it is done.
+	 */
+	@Nullable
+	private PlaceholderExpansion activate()
+	{
+		lastRequest = System.nanoTime();
+
+		// requests which looked the stand in up before it was replaced
+		final PlaceholderExpansion active = expansion;
+		if (active != null)
+		{
+			return active;
+		}
+
+		if (Bukkit.isPrimaryThread())
+		{
+			return manager.activate(this);
+		}
+
+		if (activating.compareAndSet(false, true))
+		{
+			manager.activateLater(this, () -> activating.set(false));
+		}
+
+		return null;
+	}
+
+}
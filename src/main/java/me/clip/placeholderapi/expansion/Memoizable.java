@@ -0,0 +1,42 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion;
+
+/**
+ * This interface allows a class which extends a {@link PlaceholderExpansion} to have the values it
+ * returns cached per player and params for a period of time, instead of computing them on every
+ * request. This is useful for expensive placeholders such as balances or database backed stats.
+ * Values of {@link Relational} expansions are cached per pair of players as well, these expansions
+ * should invalidate the affected players through
+ * {@link me.clip.placeholderapi.PlaceholderAPI#getRelationalCache()} when their relations change.
+ * Server owners can override the duration with the option expansions.(placeholder identifier).cache_ttl
+ * in the PlaceholderAPI config.yml
+ */
+public interface Memoizable {
+
+    /**
+     * The amount of time a value returned by this expansion may be reused for the same player and
+     * params, a duration of 0 or less disables caching
+     *
+     * @return duration in milliseconds
+     */
+    long getCacheDuration();
+}
@@ -26,11 +26,15 @@ import me.clip.placeholderapi.PlaceholderHook;
 import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class PlaceholderExpansion extends PlaceholderHook {
 
+    private volatile ConfigurationSection section;
+
     /**
      * The name of this expansion
      *
@@ -132,45 +136,61 @@ public abstract class PlaceholderExpansion extends PlaceholderHook {
     }
 
     public String getString(String path, String def) {
-        return getPlaceholderAPI().getConfig()
-                .getString("expansions." + getIdentifier() + "." + path, def);
+        final ConfigurationSection section = getConfigSection();
+        return section == null ? def : section.getString(path, def);
     }
 
     public int getInt(String path, int def) {
-        return getPlaceholderAPI().getConfig()
-                .getInt("expansions." + getIdentifier() + "." + path, def);
+        final ConfigurationSection section = getConfigSection();
+        return section == null ? def : section.getInt(path, def);
     }
 
     public long getLong(String path, long def) {
-        return getPlaceholderAPI().getConfig()
-                .getLong("expansions." + getIdentifier() + "." + path, def);
+        final ConfigurationSection section = getConfigSection();
+        return section == null ? def : section.getLong(path, def);
     }
 
     public double getDouble(String path, double def) {
-        return getPlaceholderAPI().getConfig()
-                .getDouble("expansions." + getIdentifier() + "." + path, def);
+        final ConfigurationSection section = getConfigSection();
+        return section == null ? def : section.getDouble(path, def);
     }
 
     public List<String> getStringList(String path) {
-        return getPlaceholderAPI().getConfig()
-                .getStringList("expansions." + getIdentifier() + "." + path);
+        final ConfigurationSection section = getConfigSection();
+        return section == null ? new ArrayList<>(0) : section.getStringList(path);
     }
 
     public Object get(String path, Object def) {
-        return getPlaceholderAPI().getConfig().get("expansions." + getIdentifier() + "." + path, def);
+        final ConfigurationSection section = getConfigSection();
+        return section == null ? def : section.get(path, def);
     }
 
     public ConfigurationSection getConfigSection(String path) {
-        return getPlaceholderAPI().getConfig()
-                .getConfigurationSection("expansions." + getIdentifier() + "." + path);
+        final ConfigurationSection section = getConfigSection();
+        return section == null ? null : section.getConfigurationSection(path);
     }
 
+    /**
+     * The section of this expansion in the config of PlaceholderAPI, looked up once and kept until the config is
+     * reloaded, which replaces the config and every section in it
+     *
+     * @return the section at {@code expansions.<identifier>}, or null if the config has none
+     */
     public ConfigurationSection getConfigSection() {
-        return getPlaceholderAPI().getConfig().getConfigurationSection("expansions." + getIdentifier());
+        final FileConfiguration config = getPlaceholderAPI().getConfig();
+
+        ConfigurationSection section = this.section;
+        if (section == null || section.getRoot() != config) {
+            section = config.getConfigurationSection("expansions." + getIdentifier());
+            this.section = section;
+        }
+
+        return section;
     }
 
     public boolean configurationContains(String path) {
-        return getPlaceholderAPI().getConfig().contains("expansions." + getIdentifier() + "." + path);
+        final ConfigurationSection section = getConfigSection();
+        return section != null && section.contains(path);
     }
 
 
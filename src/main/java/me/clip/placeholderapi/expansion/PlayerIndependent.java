@@ -0,0 +1,42 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This interface allows a class which extends a {@link PlaceholderExpansion} to declare that the values
+ * it returns are the same for every player, such as server stats or the time. When a text is parsed for
+ * many players at once, these placeholders are requested only once, with a null player, and the value is
+ * shared between all of them.
+ */
+public interface PlayerIndependent {
+
+    /**
+     * Check if the value of a placeholder of this expansion is the same for every player
+     *
+     * @param params the params of the placeholder
+     * @return true if the value does not depend on the player, by default every placeholder is
+     */
+    default boolean isPlayerIndependent(@NotNull String params) {
+        return true;
+    }
+}
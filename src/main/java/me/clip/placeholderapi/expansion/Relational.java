@@ -22,7 +22,32 @@ package me.clip.placeholderapi.expansion;
 
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 public interface Relational {
 
     String onPlaceholderRequest(Player one, Player two, String identifier);
+
+    /**
+     * Request the values of a placeholder between one player and many others at once, used when relational
+     * placeholders are parsed for many players, such as nameplates. Override it when the relations of a
+     * player can be resolved for all others in one go, by default every pair is requested on its own
+     *
+     * @param one the player to compare
+     * @param others the players to compare the player to
+     * @param identifier the params of the placeholder
+     * @return map of every other player to the value, players left out are requested one by one through
+     * {@link #onPlaceholderRequest(Player, Player, String)}
+     */
+    default Map<Player, String> onPlaceholderRequests(Player one, Collection<? extends Player> others, String identifier) {
+        final Map<Player, String> values = new HashMap<>(others.size());
+
+        for (Player two : others) {
+            values.put(two, onPlaceholderRequest(one, two, identifier));
+        }
+
+        return values;
+    }
 }
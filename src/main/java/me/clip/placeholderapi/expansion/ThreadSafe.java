@@ -0,0 +1,30 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion;
+
+/**
+ * This interface allows a class which extends a {@link PlaceholderExpansion} to declare that its
+ * placeholders can be requested from any thread. Expansions which don't implement it are treated as
+ * main thread only, when text is parsed asynchronously their placeholders are requested on the next
+ * server tick instead of on the thread parsing the text.
+ */
+public interface ThreadSafe {
+}
@@ -140,6 +140,10 @@ public class CloudExpansion {
         return verified;
     }
 
+    public void setVerified(boolean verified) {
+        this.verified = verified;
+    }
+
     public long getLastUpdate() {
         return last_update;
     }
@@ -173,7 +177,9 @@ public class CloudExpansion {
     }
 
     public class Version {
-        private String url, version, release_notes;
+        private String url, version, release_notes, sha256;
+
+        private long size;
 
         public String getUrl() {
             return url;
@@ -198,5 +204,27 @@ public class CloudExpansion {
         public void setReleaseNotes(String release_notes) {
             this.release_notes = release_notes;
         }
+
+        /**
+         * @return The size of the jar in bytes, or 0 if the cloud doesn't list it
+         */
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        /**
+         * @return The hex encoded SHA-256 hash of the jar, or null if the cloud doesn't list it
+         */
+        public String getSha256() {
+            return sha256;
+        }
+
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
     }
 }
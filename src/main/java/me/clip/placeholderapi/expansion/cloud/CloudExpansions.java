@@ -0,0 +1,150 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The expansions of a single fetch of the cloud, along with lookups by name and by author which are built once,
+ * so the snapshot can be swapped in as a whole and queried from any thread.
+ */
+final class CloudExpansions
+{
+
+	static final CloudExpansions EMPTY = new CloudExpansions(ImmutableMap.of());
+
+
+	@NotNull
+	private final ImmutableSortedMap<String, CloudExpansion>                  expansions;
+	@NotNull
+	private final ImmutableMap<String, CloudExpansion>                        byName;
+	@NotNull
+	private final ImmutableMap<String, ImmutableMap<String, CloudExpansion>> byAuthor;
+	@NotNull
+	private final ImmutableSet<String>                                        names;
+	@NotNull
+	private final ImmutableSet<String>                                        authors;
+
+
+	CloudExpansions(@NotNull final Map<String, CloudExpansion> expansions)
+	{
+		this.expansions = ImmutableSortedMap.copyOf(expansions);
+
+		final Map<String, CloudExpansion>              byName   = new HashMap<>();
+		final Map<String, Map<String, CloudExpansion>> byAuthor = new HashMap<>();
+		final Set<String>                              names    = new LinkedHashSet<>();
+		final Set<String>                              authors  = new LinkedHashSet<>();
+
+		for (final CloudExpansion expansion : this.expansions.values())
+		{
+			byName.putIfAbsent(normalize(expansion.getName()), expansion);
+			names.add(expansion.getName().replace(' ', '_'));
+
+			if (expansion.getAuthor() != null)
+			{
+				byAuthor.computeIfAbsent(expansion.getAuthor().toLowerCase(Locale.ROOT), author -> new LinkedHashMap<>()).put(expansion.getName(), expansion);
+				authors.add(expansion.getAuthor());
+			}
+		}
+
+		final ImmutableMap.Builder<String, ImmutableMap<String, CloudExpansion>> builder = ImmutableMap.builder();
+		byAuthor.forEach((author, values) -> builder.put(author, ImmutableMap.copyOf(values)));
+
+		this.byName = ImmutableMap.copyOf(byName);
+		this.byAuthor = builder.build();
+		this.names = ImmutableSet.copyOf(names);
+		this.authors = ImmutableSet.copyOf(authors);
+	}
+
+
+	boolean isEmpty()
+	{
+		return expansions.isEmpty();
+	}
+
+	/**
+	 * @return Every expansion by its name, sorted by name
+	 */
+	@NotNull
+	@Unmodifiable
+	Map<String, CloudExpansion> getExpansions()
+	{
+		return expansions;
+	}
+
+	/**
+	 * @param name The name of the expansion, spaces and underscores are interchangeable and case is ignored
+	 * @return The expansion, or null if there is none by that name
+	 */
+	@Nullable
+	CloudExpansion getExpansion(@NotNull final String name)
+	{
+		return byName.get(normalize(name));
+	}
+
+	/**
+	 * @param author The author, case is ignored
+	 * @return The expansions of the author by their name
+	 */
+	@NotNull
+	@Unmodifiable
+	Map<String, CloudExpansion> getByAuthor(@NotNull final String author)
+	{
+		return byAuthor.getOrDefault(author.toLowerCase(Locale.ROOT), ImmutableMap.of());
+	}
+
+	/**
+	 * @return The names of the expansions, with spaces replaced by underscores, as they're typed in commands
+	 */
+	@NotNull
+	@Unmodifiable
+	Set<String> getNames()
+	{
+		return names;
+	}
+
+	@NotNull
+	@Unmodifiable
+	Set<String> getAuthors()
+	{
+		return authors;
+	}
+
+
+	@NotNull
+	private static String normalize(@NotNull final String name)
+	{
+		return name.replace(' ', '_').toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,317 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last fetched expansion index of the cloud on disk, along with the validators the server sent for it,
+ * so it's available right away on the next start, and refreshing it only downloads the index if it changed.
+ */
+final class CloudIndexCache
+{
+
+	private static final Gson GSON = new Gson();
+
+	private static final int CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(10);
+	private static final int READ_TIMEOUT    = (int) TimeUnit.SECONDS.toMillis(30);
+
+
+	@NotNull
+	private final URL  url;
+	@NotNull
+	private final File file;
+	@NotNull
+	private final File metaFile;
+
+	@Nullable
+	private volatile Meta meta;
+
+
+	/**
+	 * @param url  The url of the index
+	 * @param file The file to keep the index in, its validators are kept next to it
+	 */
+	CloudIndexCache(@NotNull final URL url, @NotNull final File file)
+	{
+		this.url = url;
+		this.file = file;
+		this.metaFile = new File(file.getParentFile(), file.getName() + ".meta");
+	}
+
+
+	/**
+	 * Reads the cached index from disk.
+	 *
+	 * @param parser Reads the index
+	 * @return The index as it was last downloaded, or null if there is none
+	 */
+	@Nullable
+	synchronized <T> T load(@NotNull final Parser<T> parser) throws IOException
+	{
+		if (!file.exists())
+		{
+			meta = null;
+			return null;
+		}
+
+		meta = readMeta();
+
+		try (final Reader reader = Files.newReader(file, StandardCharsets.UTF_8))
+		{
+			return parser.parse(reader);
+		}
+	}
+
+	/**
+	 * Forgets the validators of the cached index, so the next refresh downloads it again.
+	 * <br>Used when the cached index turns out to be unreadable.
+	 */
+	synchronized void invalidate()
+	{
+		meta = null;
+
+		if (metaFile.exists() && !metaFile.delete())
+		{
+			metaFile.deleteOnExit();
+		}
+	}
+
+	/**
+	 * Requests the index, conditionally if it was loaded from disk before, a changed index is parsed while it's
+	 * being downloaded and cached once it was read completely.
+	 * <br>Refreshes don't overlap, one that waited for another sends the validators that one received.
+	 *
+	 * @param parser Reads the index
+	 * @return The downloaded index, or null if the loaded one is still current
+	 */
+	@Nullable
+	synchronized <T> T refresh(@NotNull final Parser<T> parser) throws IOException
+	{
+		final Meta current = meta;
+
+		final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+
+		if (current != null)
+		{
+			if (current.etag != null)
+			{
+				connection.setRequestProperty("If-None-Match", current.etag);
+			}
+			if (current.modified != null)
+			{
+				connection.setRequestProperty("If-Modified-Since", current.modified);
+			}
+		}
+
+		try
+		{
+			final int code = connection.getResponseCode();
+			if (code == HttpURLConnection.HTTP_NOT_MODIFIED && current != null)
+			{
+				return null;
+			}
+
+			if (code != HttpURLConnection.HTTP_OK)
+			{
+				throw new IOException("unexpected response " + code + " from " + url);
+			}
+
+			final File parent = file.getParentFile();
+			if (parent != null && !parent.exists() && !parent.mkdirs())
+			{
+				throw new IOException("failed to create " + parent);
+			}
+
+			final File temp = new File(parent, file.getName() + ".tmp");
+			final T    parsed;
+
+			try (final OutputStream copy = new FileOutputStream(temp);
+				 final InputStream stream = new CopyingInputStream(connection.getInputStream(), copy))
+			{
+				parsed = parser.parse(new InputStreamReader(stream, StandardCharsets.UTF_8));
+				ByteStreams.exhaust(stream); // anything after the index still belongs in the copy
+			}
+			catch (final IOException | RuntimeException ex)
+			{
+				if (!temp.delete())
+				{
+					temp.deleteOnExit();
+				}
+
+				throw ex;
+			}
+
+			final Meta next = new Meta();
+			next.url = url.toString();
+			next.etag = connection.getHeaderField("ETag");
+			next.modified = connection.getHeaderField("Last-Modified");
+
+			replace(temp, next);
+			meta = next;
+
+			return parsed;
+		}
+		finally
+		{
+			connection.disconnect();
+		}
+	}
+
+
+	/**
+	 * @return The validators of the cached index, or null if they're missing or belong to another url
+	 */
+	@Nullable
+	private Meta readMeta()
+	{
+		if (!metaFile.exists())
+		{
+			return null;
+		}
+
+		try (final Reader reader = Files.newReader(metaFile, StandardCharsets.UTF_8))
+		{
+			final Meta read = GSON.fromJson(reader, Meta.class);
+			return read == null || !url.toString().equals(read.url) ? null : read;
+		}
+		catch (final IOException | JsonParseException ex)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Replaces the cached index, the index is moved in place before its validators are written, so a crash in
+	 * between at worst makes the next refresh download it again.
+	 */
+	private void replace(@NotNull final File temp, @NotNull final Meta next) throws IOException
+	{
+		if (metaFile.exists() && !metaFile.delete())
+		{
+			throw new IOException("failed to delete " + metaFile);
+		}
+
+		java.nio.file.Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		try (final Writer writer = Files.newWriter(metaFile, StandardCharsets.UTF_8))
+		{
+			GSON.toJson(next, writer);
+		}
+	}
+
+
+	@FunctionalInterface
+	interface Parser<T>
+	{
+
+		@NotNull
+		T parse(@NotNull final Reader reader) throws IOException;
+
+	}
+
+	/**
+	 * Writes everything that is read from the stream to another one
+	 */
+	private static final class CopyingInputStream extends FilterInputStream
+	{
+
+		@NotNull
+		private final OutputStream copy;
+
+
+		private CopyingInputStream(@NotNull final InputStream stream, @NotNull final OutputStream copy)
+		{
+			super(stream);
+			this.copy = copy;
+		}
+
+
+		@Override
+		public int read() throws IOException
+		{
+			final int read = super.read();
+			if (read != -1)
+			{
+				copy.write(read);
+			}
+
+			return read;
+		}
+
+		@Override
+		public int read(@NotNull final byte[] bytes, final int offset, final int length) throws IOException
+		{
+			final int read = super.read(bytes, offset, length);
+			if (read > 0)
+			{
+				copy.write(bytes, offset, read);
+			}
+
+			return read;
+		}
+
+		@Override
+		public long skip(final long amount) throws IOException
+		{
+			return ByteStreams.exhaust(ByteStreams.limit(this, amount)); // skipped bytes still belong in the copy
+		}
+
+		@Override
+		public boolean markSupported()
+		{
+			return false;
+		}
+
+	}
+
+	private static final class Meta
+	{
+
+		private String url;
+		private String etag;
+		private String modified;
+
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the expansion index of the cloud one expansion at a time, only the fields the commands show are kept and
+ * expansions that are filtered out are dropped right after they were read, so the memory used while reading is
+ * about the size of the expansions that are kept.
+ */
+final class CloudIndexReader
+{
+
+	private CloudIndexReader()
+	{ }
+
+
+	/**
+	 * @param reader          The index, it's not closed
+	 * @param allowUnverified Whether unverified expansions should be kept
+	 * @return The expansions by their name, without those that have no download for their latest version
+	 */
+	@NotNull
+	static Map<String, CloudExpansion> read(@NotNull final Reader reader, final boolean allowUnverified) throws IOException
+	{
+		final Map<String, CloudExpansion> values = new HashMap<>();
+
+		final JsonReader json = new JsonReader(reader);
+		if (json.peek() == JsonToken.NULL)
+		{
+			return values;
+		}
+
+		json.beginObject();
+
+		while (json.hasNext())
+		{
+			final String name = json.nextName();
+			if (json.peek() != JsonToken.BEGIN_OBJECT)
+			{
+				json.skipValue();
+				continue;
+			}
+
+			final CloudExpansion expansion = readExpansion(json);
+			if ((allowUnverified || expansion.isVerified()) && expansion.getLatestVersion() != null && expansion.getVersion() != null)
+			{
+				expansion.setName(name);
+				values.put(name, expansion);
+			}
+		}
+
+		json.endObject();
+
+		return values;
+	}
+
+
+	@NotNull
+	private static CloudExpansion readExpansion(@NotNull final JsonReader json) throws IOException
+	{
+		final CloudExpansion expansion = new CloudExpansion();
+
+		json.beginObject();
+
+		while (json.hasNext())
+		{
+			final String field = json.nextName();
+			if (json.peek() == JsonToken.NULL)
+			{
+				json.nextNull();
+				continue;
+			}
+
+			switch (field)
+			{
+				case "author":
+					expansion.setAuthor(json.nextString());
+					break;
+				case "latest_version":
+					expansion.setLatestVersion(json.nextString());
+					break;
+				case "description":
+					expansion.setDescription(json.nextString());
+					break;
+				case "verified":
+					expansion.setVerified(json.nextBoolean());
+					break;
+				case "last_update":
+					expansion.setLastUpdate(json.nextLong());
+					break;
+				case "placeholders":
+					expansion.setPlaceholders(readStrings(json));
+					break;
+				case "versions":
+					expansion.setVersions(readVersions(json, expansion));
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+
+		json.endObject();
+
+		return expansion;
+	}
+
+	@NotNull
+	private static List<String> readStrings(@NotNull final JsonReader json) throws IOException
+	{
+		final List<String> values = new ArrayList<>();
+
+		json.beginArray();
+
+		while (json.hasNext())
+		{
+			if (json.peek() == JsonToken.STRING)
+			{
+				values.add(json.nextString());
+			}
+			else
+			{
+				json.skipValue();
+			}
+		}
+
+		json.endArray();
+
+		return values;
+	}
+
+	@NotNull
+	private static List<CloudExpansion.Version> readVersions(@NotNull final JsonReader json, @NotNull final CloudExpansion expansion) throws IOException
+	{
+		final List<CloudExpansion.Version> versions = new ArrayList<>();
+
+		json.beginArray();
+
+		while (json.hasNext())
+		{
+			if (json.peek() != JsonToken.BEGIN_OBJECT)
+			{
+				json.skipValue();
+				continue;
+			}
+
+			final CloudExpansion.Version version = readVersion(json, expansion);
+			if (version.getVersion() != null)
+			{
+				versions.add(version);
+			}
+		}
+
+		json.endArray();
+
+		return versions;
+	}
+
+	@NotNull
+	private static CloudExpansion.Version readVersion(@NotNull final JsonReader json, @NotNull final CloudExpansion expansion) throws IOException
+	{
+		final CloudExpansion.Version version = expansion.new Version();
+
+		json.beginObject();
+
+		while (json.hasNext())
+		{
+			final String field = json.nextName();
+			if (json.peek() == JsonToken.NULL)
+			{
+				json.nextNull();
+				continue;
+			}
+
+			switch (field)
+			{
+				case "url":
+					version.setUrl(json.nextString());
+					break;
+				case "version":
+					version.setVersion(json.nextString());
+					break;
+				case "release_notes":
+					version.setReleaseNotes(json.nextString());
+					break;
+				case "size":
+					version.setSize(json.nextLong());
+					break;
+				case "sha256":
+					version.setSha256(json.nextString());
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+
+		json.endObject();
+
+		return version;
+	}
+
+}
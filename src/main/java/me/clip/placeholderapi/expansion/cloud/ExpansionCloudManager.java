@@ -20,33 +20,24 @@
  */
 package me.clip.placeholderapi.expansion.cloud;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.io.Resources;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import me.clip.placeholderapi.PlaceholderAPI;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
-import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
@@ -56,20 +47,27 @@ public final class ExpansionCloudManager
 
 	private static final String API_URL = "http://api.extendedclip.com/v2/";
 
-	private static final Gson GSON = new Gson();
-	private static final Type TYPE = new TypeToken<Map<String, CloudExpansion>>() {}.getType();
+	/**
+	 * Milliseconds to wait before the first retry of a failed download
+	 */
+	private static final long DOWNLOAD_BACKOFF = TimeUnit.SECONDS.toMillis(2);
 
 
 	@NotNull
 	private final File                 folder;
 	@NotNull
 	private final PlaceholderAPIPlugin plugin;
+	@NotNull
+	private final CloudIndexCache      index;
 
 
 	@NotNull
-	private final Map<String, CloudExpansion>                  expansions  = new TreeMap<>();
+	private final ExpansionDownloader                          downloader  = new ExpansionDownloader(2, 3, DOWNLOAD_BACKOFF);
+	@NotNull
+	private final Map<CloudExpansion, CompletableFuture<File>> downloading = new ConcurrentHashMap<>();
+
 	@NotNull
-	private final Map<CloudExpansion, CompletableFuture<File>> downloading = new HashMap<>();
+	private volatile CloudExpansions expansions = CloudExpansions.EMPTY;
 
 
 	public ExpansionCloudManager(@NotNull final PlaceholderAPIPlugin plugin)
@@ -77,6 +75,15 @@ public final class ExpansionCloudManager
 		this.plugin = plugin;
 		this.folder = new File(plugin.getDataFolder(), "expansions");
 
+		try
+		{
+			this.index = new CloudIndexCache(new URL(API_URL), new File(plugin.getDataFolder(), "ecloud.index.json"));
+		}
+		catch (final MalformedURLException ex)
+		{
+			throw new IllegalStateException(ex);
+		}
+
 		if (!this.folder.exists() && !this.folder.mkdirs())
 		{
 			plugin.getLogger().severe("Failed to create expansions directory!");
@@ -88,55 +95,51 @@ public final class ExpansionCloudManager
 	@Unmodifiable
 	public Map<String, CloudExpansion> getCloudExpansions()
 	{
-		return ImmutableMap.copyOf(expansions);
+		return expansions.getExpansions();
+	}
+
+	/**
+	 * @return The names of the cloud expansions, with spaces replaced by underscores, as they're typed in commands
+	 */
+	@NotNull
+	@Unmodifiable
+	public Set<String> getCloudExpansionNames()
+	{
+		return expansions.getNames();
 	}
 
 	@NotNull
 	@Unmodifiable
 	public Set<String> getCloudAuthorNames()
 	{
-		return ImmutableSet.copyOf(expansions.values().stream().map(CloudExpansion::getAuthor).collect(Collectors.toSet()));
+		return expansions.getAuthors();
 	}
 
 	public int getCloudAuthorCount()
 	{
-		return expansions.values()
-						 .stream()
-						 .collect(Collectors.groupingBy(CloudExpansion::getAuthor, Collectors.counting()))
-						 .size();
+		return expansions.getAuthors().size();
 	}
 
 	@NotNull
 	public Optional<CloudExpansion> getCloudExpansion(String name)
 	{
-		return expansions.values()
-						 .stream()
-						 .filter(ex -> ex.getName().replace(' ', '_').equalsIgnoreCase(name.replace(' ', '_')))
-						 .findFirst();
+		return Optional.ofNullable(expansions.getExpansion(name));
 	}
 
 
 	public int getCloudUpdateCount()
 	{
-		return ((int) PlaceholderAPI.getExpansions()
-									.stream()
-									.filter(ex -> getCloudExpansion(ex.getName()).map(CloudExpansion::shouldUpdate).isPresent())
-									.count());
+		return (int) getAllInstalled().values()
+									  .stream()
+									  .filter(CloudExpansion::shouldUpdate)
+									  .count();
 	}
 
 	@NotNull
 	@Unmodifiable
 	public Map<String, CloudExpansion> getAllByAuthor(@NotNull final String author)
 	{
-		if (expansions.isEmpty())
-		{
-			return Collections.emptyMap();
-		}
-
-		return expansions.values()
-						 .stream()
-						 .filter(expansion -> author.equalsIgnoreCase(expansion.getAuthor()))
-						 .collect(Collectors.toMap(CloudExpansion::getName, Function.identity()));
+		return expansions.getByAuthor(author);
 	}
 
 	@NotNull
@@ -148,7 +151,8 @@ public final class ExpansionCloudManager
 			return Collections.emptyMap();
 		}
 
-		return expansions.values()
+		return expansions.getExpansions()
+						 .values()
 						 .stream()
 						 .filter(CloudExpansion::hasExpansion)
 						 .collect(Collectors.toMap(CloudExpansion::getName, Function.identity()));
@@ -157,74 +161,96 @@ public final class ExpansionCloudManager
 
 	public void clean()
 	{
-		expansions.clear();
+		expansions = CloudExpansions.EMPTY;
 
 		downloading.values().forEach(future -> future.cancel(true));
 		downloading.clear();
 	}
 
+	/**
+	 * Loads the expansions of the cloud, the cached index is used right away if none are loaded yet, after which
+	 * the index is only downloaded and parsed again if the cloud reports that it changed.
+	 *
+	 * @param allowUnverified Whether unverified expansions should be included
+	 * @return The loaded expansions
+	 */
 	@NotNull
 	public CompletableFuture<Map<String, CloudExpansion>> fetch(boolean allowUnverified)
 	{
 		plugin.getLogger().info("Fetching available expansion information...");
 
-		CompletableFuture<Map<String, CloudExpansion>> future = CompletableFuture.supplyAsync(() -> {
-			final Map<String, CloudExpansion> values = new HashMap<>();
+		final CompletableFuture<Map<String, CloudExpansion>> future = CompletableFuture.supplyAsync(() -> {
+
+			if (expansions.isEmpty())
+			{
+				loadCached(allowUnverified);
+			}
 
 			try
 			{
-				//noinspection UnstableApiUsage
-				final String json = Resources.toString(new URL(API_URL), StandardCharsets.UTF_8);
-				values.putAll(GSON.fromJson(json, TYPE));
+				final Map<String, CloudExpansion> values = index.refresh(reader -> CloudIndexReader.read(reader, allowUnverified));
+				if (values == null)
+				{
+					return getCloudExpansions(); // unchanged since it was cached
+				}
+
+				publish(prepare(values));
+
+				return values;
 			}
-			catch (final IOException ex)
+			catch (final IOException | IllegalStateException ex)
 			{
 				throw new CompletionException(ex);
 			}
+		});
 
-			values.values().removeIf(value -> value.getLatestVersion() == null || value.getVersion(value.getLatestVersion()) == null);
+		future.whenComplete((expansions, exception) -> {
 
-			return values;
+			if (exception != null)
+			{
+				plugin.getLogger().log(Level.WARNING, "failed to download expansion information", exception);
+			}
 		});
 
+		return future;
+	}
 
-		if (!allowUnverified)
+	private void loadCached(final boolean allowUnverified)
+	{
+		try
 		{
-			future = future.thenApplyAsync((values) -> {
-				values.values().removeIf(expansion -> !expansion.isVerified());
-				return values;
-			});
+			final Map<String, CloudExpansion> values = index.load(reader -> CloudIndexReader.read(reader, allowUnverified));
+			if (values != null)
+			{
+				publish(prepare(values));
+			}
 		}
+		catch (final IOException | IllegalStateException ex)
+		{
+			index.invalidate();
+			plugin.getLogger().log(Level.WARNING, "failed to read cached expansion information", ex);
+		}
+	}
 
-
-		future = future.thenApplyAsync((values) -> {
-
-			values.forEach((name, expansion) -> {
-				expansion.setName(name);
-
-				final PlaceholderExpansion local = plugin.getExpansionManager().getRegisteredExpansion(name);
-				if (local != null && local.isRegistered())
-				{
-					expansion.setHasExpansion(true);
-					expansion.setShouldUpdate(!local.getVersion().equals(expansion.getLatestVersion()));
-				}
-			});
-
-			return values;
-		});
-
-		future.whenComplete((expansions, exception) -> {
-
-			if (exception != null)
+	@NotNull
+	private Map<String, CloudExpansion> prepare(@NotNull final Map<String, CloudExpansion> values)
+	{
+		values.forEach((name, expansion) -> {
+			// also known for lazily registered expansions, without loading them off the main thread
+			final String version = plugin.getExpansionManager().getExpansionVersion(name);
+			if (version != null)
 			{
-				plugin.getLogger().log(Level.WARNING, "failed to download expansion information", exception);
-				return;
+				expansion.setHasExpansion(true);
+				expansion.setShouldUpdate(!version.equals(expansion.getLatestVersion()));
 			}
-
-			this.expansions.putAll(expansions);
 		});
 
-		return future;
+		return values;
+	}
+
+	private void publish(@NotNull final Map<String, CloudExpansion> values)
+	{
+		expansions = new CloudExpansions(values);
 	}
 
 
@@ -236,6 +262,22 @@ public final class ExpansionCloudManager
 
 	@NotNull
 	public CompletableFuture<@NotNull File> downloadExpansion(@NotNull final CloudExpansion expansion, @NotNull final CloudExpansion.Version version)
+	{
+		return downloadExpansion(expansion, version, DownloadListener.NONE);
+	}
+
+	/**
+	 * Downloads a version of an expansion, replacing the jar of the installed expansion if there is one.
+	 * <br>Downloads run on their own threads, at most {@code cloud_downloads.concurrency} at a time, and are
+	 * verified against the size and hash the cloud lists for the version, if it does.
+	 *
+	 * @param expansion The expansion to download
+	 * @param version   The version to download
+	 * @param listener  Notified about the progress of the download, unless the expansion is downloading already
+	 * @return The downloaded jar
+	 */
+	@NotNull
+	public CompletableFuture<@NotNull File> downloadExpansion(@NotNull final CloudExpansion expansion, @NotNull final CloudExpansion.Version version, @NotNull final DownloadListener listener)
 	{
 		final CompletableFuture<File> previous = downloading.get(expansion);
 		if (previous != null)
@@ -243,34 +285,98 @@ public final class ExpansionCloudManager
 			return previous;
 		}
 
-		final File file = new File(folder, "Expansion-" + expansion.getName() + ".jar");
+		final File installed = plugin.getExpansionManager().getExpansionJar(expansion.getName());
+		final File file      = installed != null ? installed : new File(folder, "Expansion-" + expansion.getName() + ".jar");
 
-		final CompletableFuture<File> download = CompletableFuture.supplyAsync(() -> {
+		final CompletableFuture<File> download;
+		try
+		{
+			download = downloader.download(new URL(version.getUrl()), file, version.getSize(), version.getSha256(), listener);
+		}
+		catch (final MalformedURLException ex)
+		{
+			final CompletableFuture<File> failed = new CompletableFuture<>();
+			failed.completeExceptionally(ex);
 
-			try (final ReadableByteChannel source = Channels.newChannel(new URL(version.getUrl()).openStream()); final FileOutputStream target = new FileOutputStream(file))
-			{
-				target.getChannel().transferFrom(source, 0, Long.MAX_VALUE);
-			}
-			catch (final IOException ex)
-			{
-				throw new CompletionException(ex);
-			}
+			return failed;
+		}
 
-			return file;
-		});
+		downloading.put(expansion, download);
 
-		download.whenCompleteAsync((value, exception) -> {
-			downloading.remove(expansion);
+		download.whenComplete((value, exception) -> {
+			downloading.remove(expansion, download);
 
-			if (exception != null)
+			if (exception != null && !(exception instanceof CancellationException))
 			{
 				plugin.getLogger().log(Level.SEVERE, "failed to download " + expansion.getName() + ":" + version.getVersion(), exception);
 			}
 		});
 
-		downloading.put(expansion, download);
-
 		return download;
 	}
 
+	/**
+	 * @param concurrency The amount of expansions downloaded at the same time
+	 * @param retries     The amount of times a failed download is tried again
+	 * @param sharedCache The folder the servers of the host share downloaded jars in, or null to not share them
+	 */
+	public void configureDownloads(final int concurrency, final int retries, @Nullable final File sharedCache)
+	{
+		downloader.configure(concurrency, retries, sharedCache);
+	}
+
+
+	/**
+	 * Notified about the progress of a download, on the download threads
+	 */
+	public interface DownloadListener
+	{
+
+		DownloadListener NONE = new DownloadListener()
+		{ };
+
+
+		/**
+		 * Called about once a second while the jar is being downloaded
+		 *
+		 * @param bytes The bytes downloaded so far
+		 * @param total The size of the jar, or -1 if it's unknown
+		 */
+		default void progress(final long bytes, final long total)
+		{ }
+
+		/**
+		 * @param attempt The number of the retry
+		 * @param delay   The milliseconds until the retry
+		 * @param error   Why the previous attempt failed
+		 */
+		default void retry(final int attempt, final long delay, @NotNull final Throwable error)
+		{ }
+
+		/**
+		 * @param file   The downloaded jar
+		 * @param bytes  The size of the jar
+		 * @param millis How long the successful attempt took
+		 */
+		default void complete(@NotNull final File file, final long bytes, final long millis)
+		{ }
+
+		/**
+		 * Called instead of downloading if the jar on disk already matches the hash the cloud lists for it
+		 *
+		 * @param file The jar
+		 */
+		default void skipped(@NotNull final File file)
+		{ }
+
+		/**
+		 * Called instead of downloading if the jar was taken from the shared cache of the host
+		 *
+		 * @param file The jar
+		 */
+		default void cached(@NotNull final File file)
+		{ }
+
+	}
+
 }
@@ -0,0 +1,417 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads expansion jars on its own threads, at most a configured amount at a time, a failed download is tried
+ * again after a delay that doubles with every attempt.
+ * <br>Every jar is streamed to a {@code .part} file next to it and only moved in place once it's complete and
+ * matches the size and hash the cloud lists for it, so the expansions folder never holds a partially downloaded
+ * jar. An interrupted download resumes from the end of its part file with a range request.
+ * <br>If a {@link SharedExpansionCache} is configured, jars are taken from it, and downloads are added to it.
+ */
+final class ExpansionDownloader
+{
+
+	private static final int  CONNECT_TIMEOUT   = (int) TimeUnit.SECONDS.toMillis(10);
+	private static final int  READ_TIMEOUT      = (int) TimeUnit.SECONDS.toMillis(30);
+	private static final int  BUFFER_SIZE       = 8192;
+	private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+	static final String PART_SUFFIX = ".part";
+
+
+	@NotNull
+	private final ScheduledThreadPoolExecutor executor;
+	private final long                        backoff;
+
+	private volatile int                  retries;
+	@Nullable
+	private volatile SharedExpansionCache cache;
+
+
+	/**
+	 * @param concurrency The amount of jars downloaded at the same time
+	 * @param retries     The amount of times a failed download is tried again
+	 * @param backoff     The milliseconds to wait before the first retry
+	 */
+	ExpansionDownloader(final int concurrency, final int retries, final long backoff)
+	{
+		this.executor = new ScheduledThreadPoolExecutor(Math.max(1, concurrency), new ThreadFactoryBuilder()
+				.setNameFormat("PlaceholderAPI Expansion Download #%d")
+				.setDaemon(true)
+				.build());
+		this.executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+		this.executor.allowCoreThreadTimeOut(true);
+		this.executor.setRemoveOnCancelPolicy(true);
+
+		this.backoff = backoff;
+		this.retries = Math.max(0, retries);
+	}
+
+
+	/**
+	 * @param concurrency The amount of jars downloaded at the same time
+	 * @param retries     The amount of times a failed download is tried again
+	 * @param cache       The folder shared by the servers of the host to download jars to first, or null
+	 */
+	void configure(final int concurrency, final int retries, @Nullable final File cache)
+	{
+		executor.setCorePoolSize(Math.max(1, concurrency));
+		this.retries = Math.max(0, retries);
+
+		final SharedExpansionCache current = this.cache;
+		if (cache == null)
+		{
+			this.cache = null;
+		}
+		else if (current == null || !current.getFolder().equals(cache))
+		{
+			this.cache = new SharedExpansionCache(cache);
+		}
+	}
+
+	/**
+	 * @param url      The url of the jar
+	 * @param target   The file to download the jar to, it's replaced once the download completed
+	 * @param size     The size of the jar in bytes, or 0 if it's unknown
+	 * @param hash     The hex encoded SHA-256 hash of the jar, or null if it's unknown
+	 * @param listener Notified about the progress, on the download threads
+	 * @return The target, once downloaded, cancelling it stops the download
+	 */
+	@NotNull
+	CompletableFuture<File> download(@NotNull final URL url, @NotNull final File target, final long size, @Nullable final String hash, @NotNull final ExpansionCloudManager.DownloadListener listener)
+	{
+		final CompletableFuture<File> future = new CompletableFuture<>();
+		executor.execute(new Download(url, target, size, hash, listener, future));
+
+		return future;
+	}
+
+
+	private final class Download implements Runnable
+	{
+
+		@NotNull
+		private final URL                                    url;
+		@NotNull
+		private final File                                   target;
+		@NotNull
+		private final File                                   part;
+		private final long                                   size;
+		@Nullable
+		private final String                                 hash;
+		@NotNull
+		private final ExpansionCloudManager.DownloadListener listener;
+		@NotNull
+		private final CompletableFuture<File>                future;
+
+		private int attempt;
+
+		/**
+		 * The ETag or Last-Modified of the jar the part file was started with
+		 */
+		@Nullable
+		private String validator;
+
+
+		private Download(@NotNull final URL url, @NotNull final File target, final long size, @Nullable final String hash,
+						 @NotNull final ExpansionCloudManager.DownloadListener listener, @NotNull final CompletableFuture<File> future)
+		{
+			this.url = url;
+			this.target = target;
+			this.part = new File(target.getAbsoluteFile().getParentFile(), target.getName() + PART_SUFFIX);
+			this.size = size;
+			this.hash = hash;
+			this.listener = listener;
+			this.future = future;
+		}
+
+
+		@Override
+		public void run()
+		{
+			if (future.isDone())
+			{
+				return;
+			}
+
+			try
+			{
+				final SharedExpansionCache cache = ExpansionDownloader.this.cache;
+
+				if (hash != null && target.exists() && hash.equalsIgnoreCase(hash(target)))
+				{
+					listener.skipped(target);
+				}
+				else if (cache != null)
+				{
+					cache.lock(url, () -> fetch(cache));
+				}
+				else
+				{
+					transfer();
+				}
+
+				future.complete(target);
+			}
+			catch (final Throwable ex)
+			{
+				if (future.isDone())
+				{
+					return;
+				}
+
+				if (attempt >= retries || ex instanceof ClientErrorException || !(ex instanceof IOException))
+				{
+					future.completeExceptionally(ex);
+					return;
+				}
+
+				final long delay = backoff << Math.min(attempt, 16);
+				attempt++;
+
+				listener.retry(attempt, delay, ex);
+				executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		/**
+		 * Installs the jar from the shared cache, or downloads it to the cache if it's not cached yet
+		 */
+		private void fetch(@NotNull final SharedExpansionCache cache) throws IOException
+		{
+			final File cached = cache.find(url, hash);
+			if (cached != null)
+			{
+				cache.install(cached, target);
+				listener.cached(target);
+				return;
+			}
+
+			transfer();
+
+			try
+			{
+				cache.store(url, target);
+			}
+			catch (final IOException ignored)
+			{ } // the jar is in place, the next server just downloads it again
+		}
+
+		private void transfer() throws IOException
+		{
+			final long start = System.nanoTime();
+
+			// a part left behind by an earlier run is only resumed if the result can be verified
+			long offset = part.exists() && (validator != null || hash != null) ? part.length() : 0;
+			if (offset == 0)
+			{
+				delete(part);
+			}
+			else if (offset == size)
+			{
+				complete(start);
+				return;
+			}
+
+			final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			connection.setConnectTimeout(CONNECT_TIMEOUT);
+			connection.setReadTimeout(READ_TIMEOUT);
+
+			if (offset > 0)
+			{
+				connection.setRequestProperty("Range", "bytes=" + offset + "-");
+				if (validator != null)
+				{
+					connection.setRequestProperty("If-Range", validator);
+				}
+			}
+
+			try
+			{
+				final int code = connection.getResponseCode();
+				if (code == HTTP_RANGE_NOT_SATISFIABLE)
+				{
+					delete(part);
+					throw new IOException("could not resume " + part.getName() + " at " + offset + " bytes");
+				}
+
+				if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_PARTIAL)
+				{
+					throw code >= 400 && code < 500 ? new ClientErrorException(code, url) : new IOException("unexpected response " + code + " from " + url);
+				}
+
+				if (code == HttpURLConnection.HTTP_OK)
+				{
+					offset = 0; // the server sent the whole jar
+					validator = getValidator(connection);
+				}
+
+				final long length = connection.getContentLengthLong();
+				final long total  = length < 0 ? -1 : offset + length;
+				long       bytes  = offset;
+
+				try (final InputStream source = connection.getInputStream(); final OutputStream output = new FileOutputStream(part, offset > 0))
+				{
+					final byte[] buffer = new byte[BUFFER_SIZE];
+					long         report = System.nanoTime() + PROGRESS_INTERVAL;
+
+					int read;
+					while ((read = source.read(buffer)) != -1)
+					{
+						if (future.isDone())
+						{
+							throw new CancellationException();
+						}
+
+						output.write(buffer, 0, read);
+						bytes += read;
+
+						if (System.nanoTime() - report >= 0)
+						{
+							listener.progress(bytes, total);
+							report = System.nanoTime() + PROGRESS_INTERVAL;
+						}
+					}
+				}
+
+				if (total >= 0 && bytes != total)
+				{
+					throw new IOException("received " + bytes + " of " + total + " bytes from " + url);
+				}
+			}
+			finally
+			{
+				connection.disconnect();
+			}
+
+			complete(start);
+		}
+
+		/**
+		 * Verifies the part file and moves it in place
+		 */
+		private void complete(final long start) throws IOException
+		{
+			final long length = part.length();
+
+			if (size > 0 && length != size)
+			{
+				delete(part);
+				throw new IOException("downloaded " + length + " bytes from " + url + ", expected " + size);
+			}
+
+			if (hash != null)
+			{
+				final String actual = hash(part);
+				if (!hash.equalsIgnoreCase(actual))
+				{
+					delete(part);
+					throw new IOException("downloaded " + actual + " from " + url + ", expected " + hash);
+				}
+			}
+
+			move(part, target);
+			listener.complete(target, length, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+
+	}
+
+
+	/**
+	 * @return The value to send in {@code If-Range} when resuming the response, weak ETags can't be used for it
+	 */
+	@Nullable
+	private static String getValidator(@NotNull final HttpURLConnection connection)
+	{
+		final String etag = connection.getHeaderField("ETag");
+		if (etag != null && !etag.startsWith("W/"))
+		{
+			return etag;
+		}
+
+		return connection.getHeaderField("Last-Modified");
+	}
+
+	@NotNull
+	static String hash(@NotNull final File file) throws IOException
+	{
+		return com.google.common.io.Files.asByteSource(file).hash(Hashing.sha256()).toString();
+	}
+
+	private static void delete(@NotNull final File file) throws IOException
+	{
+		if (file.exists() && !file.delete())
+		{
+			throw new IOException("failed to delete " + file);
+		}
+	}
+
+	static void move(@NotNull final File source, @NotNull final File target) throws IOException
+	{
+		try
+		{
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (final AtomicMoveNotSupportedException ex)
+		{
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+
+	/**
+	 * A response that won't change by asking again
+	 */
+	private static final class ClientErrorException extends IOException
+	{
+
+		private ClientErrorException(final int code, @NotNull final URL url)
+		{
+			super("unexpected response " + code + " from " + url);
+		}
+
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A folder of downloaded expansion jars shared by every server on a host, jars are stored by the SHA-256 of their
+ * content, along with which url each was downloaded from, and put in the expansions folder of a server as a hard
+ * link, or a copy if the folders are on different file systems.
+ * <br>A jar is only ever downloaded by one server at a time, the others wait for it and use the cached jar.
+ */
+final class SharedExpansionCache
+{
+
+	/**
+	 * A file can only be locked once per process, so threads wait for each other first, whichever cache they use
+	 */
+	private static final Striped<Lock> THREADS = Striped.lock(16);
+
+
+	@NotNull
+	private final File folder;
+	@NotNull
+	private final File objects;
+	@NotNull
+	private final File urls;
+	@NotNull
+	private final File locks;
+
+
+	SharedExpansionCache(@NotNull final File folder)
+	{
+		this.folder = folder;
+		this.objects = new File(folder, "objects");
+		this.urls = new File(folder, "urls");
+		this.locks = new File(folder, "locks");
+	}
+
+
+	@NotNull
+	File getFolder()
+	{
+		return folder;
+	}
+
+	/**
+	 * Runs the action while holding the lock of the url, in this process and in every other process sharing the
+	 * cache.
+	 *
+	 * @param url    The url of a jar
+	 * @param action The action, which downloads or installs the jar
+	 */
+	void lock(@NotNull final URL url, @NotNull final Action action) throws IOException
+	{
+		final File file = new File(locks, key(url) + ".lock").getAbsoluteFile();
+
+		final Lock lock = THREADS.get(file.getPath());
+		lock.lock();
+
+		try
+		{
+			mkdirs(locks);
+
+			try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				 final FileLock ignored = channel.lock())
+			{
+				action.run();
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param url  The url of a jar
+	 * @param hash The hex encoded SHA-256 hash of the jar, or null if it's unknown
+	 * @return The cached jar, or null if it was never downloaded
+	 */
+	@Nullable
+	File find(@NotNull final URL url, @Nullable final String hash) throws IOException
+	{
+		String content = hash;
+		if (content == null)
+		{
+			final File entry = new File(urls, key(url));
+			if (!entry.isFile())
+			{
+				return null;
+			}
+
+			final List<String> lines = Files.readAllLines(entry.toPath(), StandardCharsets.UTF_8);
+			content = lines.isEmpty() ? null : lines.get(0).trim();
+		}
+
+		if (content == null || content.isEmpty())
+		{
+			return null;
+		}
+
+		final File object = new File(objects, content.toLowerCase(Locale.ROOT) + ".jar");
+		return object.isFile() ? object : null;
+	}
+
+	/**
+	 * Adds a downloaded jar to the cache.
+	 *
+	 * @param url The url the jar was downloaded from
+	 * @param jar The jar
+	 */
+	void store(@NotNull final URL url, @NotNull final File jar) throws IOException
+	{
+		final String content = ExpansionDownloader.hash(jar);
+
+		final File object = new File(objects, content + ".jar");
+		if (!object.isFile())
+		{
+			mkdirs(objects);
+			install(jar, object);
+		}
+
+		mkdirs(urls);
+
+		final File entry = new File(urls, key(url));
+		final File temp  = new File(urls, entry.getName() + ".tmp");
+
+		Files.write(temp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		ExpansionDownloader.move(temp, entry);
+	}
+
+	/**
+	 * Replaces the target with a hard link to, or a copy of, the source.
+	 */
+	void install(@NotNull final File source, @NotNull final File target) throws IOException
+	{
+		final File temp = new File(target.getAbsoluteFile().getParentFile(), target.getName() + ".link");
+		Files.deleteIfExists(temp.toPath());
+
+		try
+		{
+			Files.createLink(temp.toPath(), source.toPath());
+		}
+		catch (final IOException | UnsupportedOperationException ex)
+		{
+			Files.copy(source.toPath(), temp.toPath());
+		}
+
+		try
+		{
+			ExpansionDownloader.move(temp, target);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp.toPath());
+		}
+	}
+
+
+	@NotNull
+	private static String key(@NotNull final URL url)
+	{
+		return Hashing.sha256().hashString(url.toString(), StandardCharsets.UTF_8).toString();
+	}
+
+	private static void mkdirs(@NotNull final File folder) throws IOException
+	{
+		if (!folder.isDirectory() && !folder.mkdirs() && !folder.isDirectory())
+		{
+			throw new IOException("failed to create " + folder);
+		}
+	}
+
+
+	@FunctionalInterface
+	interface Action
+	{
+
+		void run() throws IOException;
+
+	}
+
+}
@@ -105,6 +105,9 @@ public class PlaceholderListener implements Listener {
 
     @EventHandler
     public void onQuit(PlayerQuitEvent e) {
+        PlaceholderAPI.getValueCache().invalidate(e.getPlayer().getUniqueId());
+        PlaceholderAPI.getRelationalCache().invalidate(e.getPlayer().getUniqueId());
+
         Set<PlaceholderExpansion> expansions = PlaceholderAPI.getExpansions();
 
         if (expansions.isEmpty()) {
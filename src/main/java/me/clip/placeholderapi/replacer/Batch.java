@@ -0,0 +1,48 @@
+package me.clip.placeholderapi.replacer;
+
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Values resolved while parsing several texts for the same player, so a placeholder appearing more than once is
+ * only requested from its hook the first time.
+ * <br>A batch belongs to a single player and is not thread safe, create a new one for every player and parse.
+ *
+ * @see CharsReplacer#apply(List, OfflinePlayer, Function, Batch)
+ */
+public final class Batch
+{
+
+	/**
+	 * Raw placeholder, including its closure, to its value or null if it is kept as it is.
+	 */
+	@NotNull
+	final Map<String, @Nullable String> values = new HashMap<>();
+
+	int lookups;
+	int saved;
+
+
+	/**
+	 * @return The amount of distinct placeholders that were requested from their hooks
+	 */
+	public int getLookups()
+	{
+		return lookups;
+	}
+
+	/**
+	 * @return The amount of placeholders that reused an already resolved value instead of being requested again
+	 */
+	public int getSavedLookups()
+	{
+		return saved;
+	}
+
+}
@@ -6,11 +6,17 @@ import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 public final class CharsReplacer implements Replacer
 {
 
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+
 	@NotNull
 	private final Closure closure;
 
@@ -23,79 +29,241 @@ public final class CharsReplacer implements Replacer
 	@Override
 	public @NotNull String apply(@NotNull final String text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup)
 	{
-		final char[]        chars   = text.toCharArray();
-		final StringBuilder builder = new StringBuilder(text.length());
+		if (text.indexOf('&') == -1 && text.indexOf(closure.head) == -1)
+		{
+			return text;
+		}
+
+		final Scratch scratch = Scratch.acquire(player, lookup);
+
+		try
+		{
+			return parse(text, scratch.builder, scratch) ? scratch.builder.toString() : text;
+		}
+		finally
+		{
+			scratch.release();
+		}
+	}
+
+	@Override
+	public void apply(@NotNull final CharSequence text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, @NotNull final StringBuilder target)
+	{
+		final Scratch scratch = Scratch.acquire(player, lookup);
+
+		try
+		{
+			if (!parse(text, target, scratch))
+			{
+				target.append(text);
+			}
+		}
+		finally
+		{
+			scratch.release();
+		}
+	}
+
+	@Override
+	public void apply(@NotNull final CharSequence text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, @NotNull final Appendable target) throws IOException
+	{
+		if (target instanceof StringBuilder)
+		{
+			apply(text, player, lookup, (StringBuilder) target);
+			return;
+		}
 
-		final StringBuilder identifier = new StringBuilder();
-		final StringBuilder parameters = new StringBuilder();
+		final Scratch scratch = Scratch.acquire(player, lookup);
 
-		for (int i = 0; i < chars.length; i++)
+		try
+		{
+			if (parse(text, scratch.builder, scratch))
+			{
+				target.append(scratch.builder);
+			}
+			else
+			{
+				target.append(text);
+			}
+		}
+		finally
 		{
-			final char l = chars[i];
+			scratch.release();
+		}
+	}
+
+	/**
+	 * Translates every line, requesting each distinct placeholder only once and reusing its value for every
+	 * other occurrence in the lines.
+	 *
+	 * @param lines  Lines to set the placeholder values in
+	 * @param player Player to parse the placeholders against
+	 * @param lookup Function resolving an identifier to its placeholder hook
+	 * @param batch  Values already resolved for this player, filled with the ones resolved by this parse
+	 * @return The translated lines, in the same order
+	 */
+	@NotNull
+	public List<String> apply(@NotNull final List<@NotNull String> lines, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, @NotNull final Batch batch)
+	{
+		final List<String> translated = new ArrayList<>(lines.size());
+		final Scratch      scratch    = Scratch.acquire(player, lookup);
+
+		final Visitor visitor = (text, start, separator, end, offset) -> {
+			final String placeholder = text.subSequence(start, end + 1).toString();
+
+			if (batch.values.containsKey(placeholder))
+			{
+				batch.saved++;
+				return batch.values.get(placeholder);
+			}
+
+			final String value = scratch.visit(text, start, separator, end, offset);
+
+			batch.lookups++;
+			batch.values.put(placeholder, value);
+
+			return value;
+		};
 
-			if (l == '&' && ++i < chars.length)
+		try
+		{
+			for (final String line : lines)
 			{
-				final char c = Character.toLowerCase(chars[i]);
+				translated.add(parse(line, scratch.builder, visitor) ? scratch.builder.toString() : line);
+				scratch.builder.setLength(0);
+			}
+		}
+		finally
+		{
+			scratch.release();
+		}
+
+		return translated;
+	}
+
+	/**
+	 * Parses the text once into a {@link ParsedTemplate}, translating color codes and locating every placeholder
+	 * ahead of time, so only the placeholder values have to be requested when it is applied.
+	 *
+	 * @param text Text to compile
+	 * @return Template producing the same output as {@link #apply(String, OfflinePlayer, Function)}
+	 */
+	@NotNull
+	public ParsedTemplate compile(@NotNull final String text)
+	{
+		final StringBuilder             builder = new StringBuilder(text.length());
+		final List<ParsedTemplate.Slot> slots   = new ArrayList<>();
+
+		final boolean modified = parse(text, builder, (source, start, separator, end, offset) -> {
+			final String identifier = source.subSequence(start + 1, separator == -1 ? end : separator).toString();
+			final String parameters = separator == -1 ? "" : source.subSequence(separator + 1, end).toString();
+
+			slots.add(new ParsedTemplate.Slot(offset, identifier, parameters, source.subSequence(start, end + 1).toString()));
+			return ""; // the placeholder is cut out of the literal text, its value is spliced in when applied
+		});
+
+		return new ParsedTemplate(text, modified ? builder.toString() : text, slots.toArray(new ParsedTemplate.Slot[0]));
+	}
+
 
-				if (c != '0' && c != '1' && c != '2' && c != '3' && c != '4' && c != '5' && c != '6' && c != '7' && c != '8' && c != '9' && c != 'a' && c != 'b' && c != 'c' && c != 'd' && c != 'e' && c != 'f' && c != 'k' && c != 'l' && c != 'm' && c != 'o' && c != 'r' && c != 'x')
+	/**
+	 * Scans the text, writing the output into the builder.
+	 * <br>Unchanged ranges of the text are only copied once something actually differs, if nothing does the
+	 * builder is left untouched and the text itself is the output.
+	 *
+	 * @return true if the output was written into the builder, false if it is identical to the text
+	 */
+	private boolean parse(@NotNull final CharSequence text, @NotNull final StringBuilder builder, @NotNull final Visitor visitor)
+	{
+		return parse(text, builder, visitor, true);
+	}
+
+	/**
+	 * Scans the text, writing the output into the builder.
+	 *
+	 * @param colorize If color codes should be translated
+	 * @return true if the output was written into the builder, false if it is identical to the text
+	 * @see #parse(CharSequence, StringBuilder, Visitor)
+	 */
+	boolean parse(@NotNull final CharSequence text, @NotNull final StringBuilder builder, @NotNull final Visitor visitor, final boolean colorize)
+	{
+		final int length = text.length();
+
+		int     flushed = 0;
+		boolean touched = false;
+
+		for (int i = 0; i < length; i++)
+		{
+			final char l = text.charAt(i);
+
+			if (l == '&' && colorize)
+			{
+				if (++i >= length)
 				{
-					builder.append(l).append(chars[i]);
+					break;
 				}
-				else
-				{
-					builder.append(ChatColor.COLOR_CHAR);
 
-					if (c != 'x')
-					{
-						builder.append(chars[i]);
-						continue;
-					}
+				final char c = Character.toLowerCase(text.charAt(i));
 
-					if ((i > 1 && chars[i - 2] == '\\') /*allow escaping &x*/)
-					{
-						builder.setLength(builder.length() - 2);
-						builder.append('&').append(chars[i]);
-						continue;
-					}
+				if (!isColorCode(c))
+				{
+					continue;
+				}
 
-					builder.append(c);
+				builder.append(text, flushed, i - 1).append(ChatColor.COLOR_CHAR);
+				touched = true;
+				flushed = i + 1;
 
-					int j = 0;
-					while (++j <= 6)
-					{
-						if (i + j >= chars.length)
-						{
-							break;
-						}
+				if (c != 'x')
+				{
+					builder.append(text.charAt(i));
+					continue;
+				}
 
-						final char x = chars[i + j];
-						builder.append(ChatColor.COLOR_CHAR).append(x);
-					}
+				if ((i > 1 && text.charAt(i - 2) == '\\') /*allow escaping &x*/)
+				{
+					builder.setLength(builder.length() - 2);
+					builder.append('&').append(text.charAt(i));
+					continue;
+				}
 
-					if (j == 7)
-					{
-						i += 6;
-					}
-					else
+				builder.append(c);
+
+				int j = 0;
+				while (++j <= 6)
+				{
+					if (i + j >= length)
 					{
-						builder.setLength(builder.length() - (j * 2)); // undo &x parsing
+						break;
 					}
+
+					builder.append(ChatColor.COLOR_CHAR).append(text.charAt(i + j));
+				}
+
+				if (j == 7)
+				{
+					i += 6;
+					flushed = i + 1;
+				}
+				else
+				{
+					builder.setLength(builder.length() - (j * 2)); // undo &x parsing
 				}
 				continue;
 			}
 
-			if (l != closure.head || i + 1 >= chars.length)
+			if (l != closure.head || i + 1 >= length)
 			{
-				builder.append(l);
 				continue;
 			}
 
-			boolean identified = false;
-			boolean oopsitsbad = true;
+			final int start     = i;
+			int       separator = -1;
+			boolean   closed    = false;
 
-			while (++i < chars.length)
+			while (++i < length)
 			{
-				final char p = chars[i];
+				final char p = text.charAt(i);
 
 				if (p == ' ')
 				{
@@ -103,77 +271,174 @@ public final class CharsReplacer implements Replacer
 				}
 				if (p == closure.tail)
 				{
-					oopsitsbad = false;
+					closed = true;
 					break;
 				}
 
-				if (p == '_' && !identified)
+				if (p == '_' && separator == -1)
 				{
-					identified = true;
-					continue;
+					separator = i;
 				}
+			}
 
-				if (identified)
-				{
-					parameters.append(p);
-				}
-				else
+			if (!closed)
+			{
+				if (i < length)
 				{
-					identifier.append(p);
+					continue; // stopped at a space, kept as it is
 				}
+
+				builder.append(text, flushed, length).append(' ');
+				touched = true;
+				flushed = length;
+				break;
 			}
 
-			final String identifierString = identifier.toString();
-			final String parametersString = parameters.toString();
+			final String replacement = visitor.visit(text, start, separator, i, builder.length() + (start - flushed));
+			if (replacement == null)
+			{
+				continue;
+			}
 
-			identifier.setLength(0);
-			parameters.setLength(0);
+			builder.append(text, flushed, start).append(replacement);
+			touched = true;
+			flushed = i + 1;
+		}
 
-			if (oopsitsbad)
-			{
-				builder.append(closure.head).append(identifierString);
+		if (!touched)
+		{
+			return false;
+		}
 
-				if (identified)
-				{
-					builder.append('_').append(parametersString);
-				}
+		builder.append(text, flushed, length);
+		return true;
+	}
 
-				builder.append(' ');
-				continue;
-			}
 
-			final PlaceholderHook placeholder = lookup.apply(identifierString);
-			if (placeholder == null)
-			{
-				builder.append(closure.head).append(identifierString);
+	private static boolean isColorCode(final char c)
+	{
+		switch (c)
+		{
+			case '0':
+			case '1':
+			case '2':
+			case '3':
+			case '4':
+			case '5':
+			case '6':
+			case '7':
+			case '8':
+			case '9':
+			case 'a':
+			case 'b':
+			case 'c':
+			case 'd':
+			case 'e':
+			case 'f':
+			case 'k':
+			case 'l':
+			case 'm':
+			case 'o':
+			case 'r':
+			case 'x':
+				return true;
+			default:
+				return false;
+		}
+	}
 
-				if (identified)
-				{
-					builder.append('_');
-				}
 
-				builder.append(parametersString).append(closure.tail);
-				continue;
+	@FunctionalInterface
+	interface Visitor
+	{
+
+		/**
+		 * Called for every closed placeholder.
+		 *
+		 * @param text      The parsed text
+		 * @param start     Index of the closure head
+		 * @param separator Index of the underscore separating the identifier from the params, or -1 if there is none
+		 * @param end       Index of the closure tail
+		 * @param offset    Index in the output the placeholder would be written at
+		 * @return The replacement of the placeholder, or null to keep it as it is
+		 */
+		@Nullable
+		String visit(@NotNull final CharSequence text, final int start, final int separator, final int end, final int offset);
+
+	}
+
+	/**
+	 * Per thread state of {@link #apply(String, OfflinePlayer, Function)}, reused to avoid allocating a builder
+	 * for every parse.
+	 */
+	private static final class Scratch implements Visitor
+	{
+
+		private static final int MAXIMUM_CAPACITY = 8192;
+
+
+		@NotNull
+		private StringBuilder builder = new StringBuilder(256);
+		private boolean       busy;
+
+		@Nullable
+		private OfflinePlayer                               player;
+		@Nullable
+		private Function<String, @Nullable PlaceholderHook> lookup;
+
+
+		@NotNull
+		private static Scratch acquire(@Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup)
+		{
+			Scratch scratch = SCRATCH.get();
+
+			if (scratch.busy)
+			{
+				scratch = new Scratch(); // a hook is parsing placeholders while we are parsing its own
 			}
 
-			final String replacement = placeholder.onRequest(player, parametersString);
-			if (replacement == null)
+			scratch.busy = true;
+			scratch.player = player;
+			scratch.lookup = lookup;
+
+			return scratch;
+		}
+
+		private void release()
+		{
+			busy = false;
+			player = null;
+			lookup = null;
+
+			if (builder.capacity() > MAXIMUM_CAPACITY)
+			{
+				builder = new StringBuilder(256);
+			}
+			else
 			{
-				builder.append(closure.head).append(identifierString);
+				builder.setLength(0);
+			}
+		}
 
-				if (identified)
-				{
-					builder.append('_');
-				}
 
-				builder.append(parametersString).append(closure.tail);
-				continue;
+		@Override
+		public @Nullable String visit(@NotNull final CharSequence text, final int start, final int separator, final int end, final int offset)
+		{
+			final int identifierEnd = separator == -1 ? end : separator;
+
+			//noinspection ConstantConditions (only visited while acquired)
+			final PlaceholderHook placeholder = lookup instanceof RangeLookup ?
+												((RangeLookup) lookup).apply(text, start + 1, identifierEnd) :
+												lookup.apply(text.subSequence(start + 1, identifierEnd).toString());
+
+			if (placeholder == null)
+			{
+				return null;
 			}
 
-			builder.append(replacement);
+			return placeholder.onRequest(player, separator == -1 ? "" : text.subSequence(separator + 1, end).toString());
 		}
 
-		return builder.toString();
 	}
 
 }
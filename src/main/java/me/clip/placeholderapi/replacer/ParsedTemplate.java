@@ -0,0 +1,328 @@
+package me.clip.placeholderapi.replacer;
+
+import com.google.common.collect.Maps;
+import me.clip.placeholderapi.PlaceholderHook;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An immutable, pre-parsed piece of text created by {@link CharsReplacer#compile(String)}.
+ * <br>Color codes are already translated and every placeholder has already been split into its identifier and
+ * parameters, so applying a template only has to request the placeholder values.
+ */
+public final class ParsedTemplate
+{
+
+	@NotNull
+	private final String text;
+	@NotNull
+	private final String literal;
+	@NotNull
+	private final Slot[] slots;
+
+	ParsedTemplate(@NotNull final String text, @NotNull final String literal, @NotNull final Slot[] slots)
+	{
+		this.text = text;
+		this.literal = literal;
+		this.slots = slots;
+	}
+
+
+	/**
+	 * Get the text this template was compiled from
+	 *
+	 * @return The original text
+	 */
+	@NotNull
+	public String getText()
+	{
+		return text;
+	}
+
+	/**
+	 * Check if this template contains any placeholders
+	 *
+	 * @return true if applying this template always produces the same output
+	 */
+	public boolean isStatic()
+	{
+		return slots.length == 0;
+	}
+
+
+	/**
+	 * Translates all placeholders of this template into their corresponding values.
+	 *
+	 * @param player Player to parse the placeholders against
+	 * @param lookup Function resolving an identifier to its placeholder hook
+	 * @return String containing all translated placeholders
+	 */
+	@NotNull
+	public String apply(@Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup)
+	{
+		if (slots.length == 0)
+		{
+			return literal;
+		}
+
+		final StringBuilder builder = new StringBuilder(literal.length() + (slots.length * 16));
+
+		int last = 0;
+		for (final Slot slot : slots)
+		{
+			builder.append(literal, last, slot.offset);
+			last = slot.offset;
+
+			final PlaceholderHook placeholder = lookup.apply(slot.identifier);
+			final String          replacement = placeholder == null ? null : placeholder.onRequest(player, slot.parameters);
+
+			builder.append(replacement != null ? replacement : slot.raw);
+		}
+
+		builder.append(literal, last, literal.length());
+
+		return builder.toString();
+	}
+
+
+	/**
+	 * Translates all placeholders of this template into their corresponding values for every player.
+	 * <br>Each hook is looked up once, placeholders the predicate declares player independent are also requested
+	 * only once, with a null player, and their value is shared between all players.
+	 *
+	 * @param players     Players to parse the placeholders against
+	 * @param lookup      Function resolving an identifier to its placeholder hook
+	 * @param independent Predicate testing if the value of an identifier and params is the same for every player
+	 * @param <P>         The type of the players
+	 * @return Map of every player to its translated text, in the order of the players
+	 */
+	@NotNull
+	public <P extends OfflinePlayer> Map<P, String> apply(@NotNull final Collection<? extends P> players, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, @NotNull final BiPredicate<String, String> independent)
+	{
+		final Map<P, String> translated = Maps.newLinkedHashMapWithExpectedSize(players.size());
+
+		if (players.isEmpty())
+		{
+			return translated;
+		}
+
+		final PlaceholderHook[]   hooks  = new PlaceholderHook[slots.length];
+		final String[]            shared = new String[slots.length];
+		final Map<String, String> values = new HashMap<>();
+
+		for (int i = 0; i < slots.length; i++)
+		{
+			final Slot slot = slots[i];
+
+			hooks[i] = lookup.apply(slot.identifier);
+
+			if (hooks[i] == null)
+			{
+				shared[i] = slot.raw;
+			}
+			else if (independent.test(slot.identifier, slot.parameters))
+			{
+				final PlaceholderHook hook = hooks[i];
+
+				shared[i] = values.computeIfAbsent(slot.raw, raw -> {
+					final String replacement = hook.onRequest(null, slot.parameters);
+					return replacement != null ? replacement : raw;
+				});
+			}
+		}
+
+		for (final P player : players)
+		{
+			if (slots.length == 0)
+			{
+				translated.put(player, literal);
+				continue;
+			}
+
+			final StringBuilder builder = new StringBuilder(literal.length() + (slots.length * 16));
+
+			int last = 0;
+			for (int i = 0; i < slots.length; i++)
+			{
+				final Slot slot = slots[i];
+
+				builder.append(literal, last, slot.offset);
+				last = slot.offset;
+
+				if (shared[i] != null)
+				{
+					builder.append(shared[i]);
+					continue;
+				}
+
+				final String replacement = hooks[i].onRequest(player, slot.parameters);
+				builder.append(replacement != null ? replacement : slot.raw);
+			}
+
+			builder.append(literal, last, literal.length());
+
+			translated.put(player, builder.toString());
+		}
+
+		return translated;
+	}
+
+
+	/**
+	 * Translates all placeholders of this template into their corresponding values without requesting placeholders
+	 * that aren't thread safe on the calling thread.
+	 * <br>Thread safe placeholders are requested right away, the others are requested on the main thread executor,
+	 * which completes the future once all of them are translated.
+	 *
+	 * @param player     Player to parse the placeholders against
+	 * @param lookup     Function resolving an identifier to its placeholder hook
+	 * @param threadSafe Predicate testing if the placeholders of an identifier can be requested from any thread
+	 * @param mainThread Executor running tasks on the main thread, its tasks are {@link Future}s it may cancel
+	 * @return Future completed with the String containing all translated placeholders
+	 */
+	@NotNull
+	public CompletableFuture<String> applyAsync(@Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, @NotNull final Predicate<String> threadSafe, @NotNull final Executor mainThread)
+	{
+		final CompletableFuture<String> future = new CompletableFuture<>();
+
+		if (slots.length == 0)
+		{
+			future.complete(literal);
+			return future;
+		}
+
+		final PlaceholderHook[] deferred = new PlaceholderHook[slots.length];
+		final String[]          values   = new String[slots.length];
+
+		boolean defer = false;
+
+		try
+		{
+			for (int i = 0; i < slots.length; i++)
+			{
+				final Slot            slot        = slots[i];
+				final PlaceholderHook placeholder = lookup.apply(slot.identifier);
+
+				if (placeholder == null)
+				{
+					values[i] = slot.raw;
+				}
+				else if (threadSafe.test(slot.identifier))
+				{
+					values[i] = request(placeholder, player, slot);
+				}
+				else
+				{
+					deferred[i] = placeholder;
+					defer = true;
+				}
+			}
+
+			if (!defer)
+			{
+				future.complete(splice(values));
+				return future;
+			}
+
+			mainThread.execute(new FutureTask<String>(() -> {
+				for (int i = 0; i < slots.length; i++)
+				{
+					if (deferred[i] != null)
+					{
+						values[i] = request(deferred[i], player, slots[i]);
+					}
+				}
+
+				return splice(values);
+			})
+			{
+				@Override
+				protected void done()
+				{
+					// also called when the executor cancels the task instead of running it
+					try
+					{
+						future.complete(get());
+					}
+					catch (final ExecutionException ex)
+					{
+						future.completeExceptionally(ex.getCause());
+					}
+					catch (final CancellationException | InterruptedException ex)
+					{
+						future.completeExceptionally(new RejectedExecutionException("the main thread task was cancelled", ex));
+					}
+				}
+			});
+		}
+		catch (final Throwable throwable)
+		{
+			future.completeExceptionally(throwable);
+		}
+
+		return future;
+	}
+
+
+	@NotNull
+	private static String request(@NotNull final PlaceholderHook placeholder, @Nullable final OfflinePlayer player, @NotNull final Slot slot)
+	{
+		final String replacement = placeholder.onRequest(player, slot.parameters);
+		return replacement != null ? replacement : slot.raw;
+	}
+
+	@NotNull
+	private String splice(@NotNull final String[] values)
+	{
+		final StringBuilder builder = new StringBuilder(literal.length() + (slots.length * 16));
+
+		int last = 0;
+		for (int i = 0; i < slots.length; i++)
+		{
+			builder.append(literal, last, slots[i].offset).append(values[i]);
+			last = slots[i].offset;
+		}
+
+		builder.append(literal, last, literal.length());
+
+		return builder.toString();
+	}
+
+
+	static final class Slot
+	{
+
+		private final int    offset;
+		@NotNull
+		private final String identifier;
+		@NotNull
+		private final String parameters;
+		@NotNull
+		private final String raw;
+
+		Slot(final int offset, @NotNull final String identifier, @NotNull final String parameters, @NotNull final String raw)
+		{
+			this.offset = offset;
+			this.identifier = identifier;
+			this.parameters = parameters;
+			this.raw = raw;
+		}
+
+	}
+
+}
@@ -24,15 +24,34 @@ public final class RegexReplacer implements Replacer
 
 	@Override
 	public @NotNull String apply(@NotNull final String text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup)
+	{
+		final String replaced = replace(text, player, lookup);
+		return replaced != null ? replaced : text;
+	}
+
+	@Override
+	public void apply(@NotNull final CharSequence text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, @NotNull final StringBuilder target)
+	{
+		final String replaced = replace(text, player, lookup);
+		target.append(replaced != null ? replaced : text);
+	}
+
+
+	/**
+	 * @return The translated text, or null if it doesn't contain anything matching a placeholder
+	 */
+	@Nullable
+	private String replace(@NotNull final CharSequence text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup)
 	{
 		final Matcher matcher = pattern.matcher(text);
 		if (!matcher.find())
 		{
-			return text;
+			return null;
 		}
 
-		final StringBuffer builder = new StringBuffer();
+		final StringBuilder builder = new StringBuilder(text.length());
 
+		int last = 0;
 		do
 		{
 			final String identifier = matcher.group("identifier");
@@ -45,11 +64,15 @@ public final class RegexReplacer implements Replacer
 			}
 
 			final String requested = hook.onRequest(player, parameters);
-			matcher.appendReplacement(builder, requested != null ? requested : matcher.group(0));
+
+			builder.append(text, last, matcher.start()).append(requested != null ? requested : matcher.group(0));
+			last = matcher.end();
 		}
 		while (matcher.find());
 
-		return ChatColor.translateAlternateColorCodes('&', matcher.appendTail(builder).toString());
+		builder.append(text, last, text.length());
+
+		return ChatColor.translateAlternateColorCodes('&', builder.toString());
 	}
 
 }
@@ -0,0 +1,243 @@
+package me.clip.placeholderapi.replacer;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.expansion.Relational;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Translates relational placeholders, {@literal %rel_<identifier>_<params>%}, in a single pass using the same parser
+ * and color translation as {@link CharsReplacer}.
+ * <br>Other placeholders are kept as they are.
+ */
+public final class RelationalReplacer
+{
+
+	@NotNull
+	private static final String PREFIX = "rel";
+
+
+	@NotNull
+	private final CharsReplacer replacer = new CharsReplacer(Replacer.Closure.PERCENT);
+
+
+	/**
+	 * Translates all relational placeholders into their corresponding values.
+	 *
+	 * @param text     Text to set the placeholder values in
+	 * @param one      Player to compare
+	 * @param two      Player to compare
+	 * @param lookup   Function resolving a lowercase identifier to its placeholder hook, hooks that don't implement
+	 *                 {@link Relational} are ignored
+	 * @param colorize If color codes should be translated
+	 * @return String containing all translated placeholders
+	 */
+	@NotNull
+	public String apply(@NotNull final String text, @Nullable final Player one, @Nullable final Player two, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, final boolean colorize)
+	{
+		if (isUnchanged(text, colorize))
+		{
+			return text;
+		}
+
+		final StringBuilder builder = new StringBuilder(text.length() + 16);
+
+		final boolean modified = replacer.parse(text, builder, (source, start, separator, end, offset) -> {
+			final int underscore = findUnderscore(source, start, separator, end);
+			if (underscore == -1)
+			{
+				return null;
+			}
+
+			final Relational hook = resolve(source, separator, underscore, lookup);
+			return hook == null ? null : hook.onPlaceholderRequest(one, two, source.subSequence(underscore + 1, end).toString());
+		}, colorize);
+
+		return modified ? builder.toString() : text;
+	}
+
+	/**
+	 * Translates all relational placeholders into their corresponding values for every viewer and target.
+	 * <br>The text is parsed once and every distinct placeholder is requested once per viewer for all targets at once,
+	 * through {@link Relational#onPlaceholderRequests(Player, Collection, String)}.
+	 *
+	 * @param text     Text to set the placeholder values in
+	 * @param viewers  Players to compare, the rows of the result
+	 * @param targets  Players to compare the viewers to, the columns of the result
+	 * @param lookup   Function resolving a lowercase identifier to its placeholder hook, hooks that don't implement
+	 *                 {@link Relational} are ignored
+	 * @param colorize If color codes should be translated
+	 * @return Table of viewer and target to the translated text
+	 */
+	@NotNull
+	public Table<Player, Player, String> applyForEach(@NotNull final String text, @NotNull final Collection<? extends Player> viewers, @NotNull final Collection<? extends Player> targets, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, final boolean colorize)
+	{
+		final Table<Player, Player, String> translated = HashBasedTable.create(viewers.size(), targets.size());
+
+		if (viewers.isEmpty() || targets.isEmpty())
+		{
+			return translated;
+		}
+
+		final StringBuilder builder = new StringBuilder(text.length());
+		final List<Slot>    slots   = new ArrayList<>();
+
+		final boolean modified = !isUnchanged(text, colorize) && replacer.parse(text, builder, (source, start, separator, end, offset) -> {
+			final int underscore = findUnderscore(source, start, separator, end);
+			if (underscore == -1)
+			{
+				return null;
+			}
+
+			final Relational hook = resolve(source, separator, underscore, lookup);
+			if (hook == null)
+			{
+				return null;
+			}
+
+			slots.add(new Slot(offset, hook, source.subSequence(underscore + 1, end).toString(), source.subSequence(start, end + 1).toString()));
+			return ""; // spliced in per viewer and target
+		}, colorize);
+
+		final String literal = modified ? builder.toString() : text;
+
+		for (final Player viewer : viewers)
+		{
+			final Map<String, Map<Player, String>> requested = new HashMap<>();
+			final List<Map<Player, String>>        values    = new ArrayList<>(slots.size());
+
+			for (final Slot slot : slots)
+			{
+				values.add(requested.computeIfAbsent(slot.raw, raw -> request(slot, viewer, targets)));
+			}
+
+			for (final Player target : targets)
+			{
+				if (slots.isEmpty())
+				{
+					translated.put(viewer, target, literal);
+					continue;
+				}
+
+				builder.setLength(0);
+
+				int last = 0;
+				for (int i = 0; i < slots.size(); i++)
+				{
+					final Slot   slot  = slots.get(i);
+					final String value = values.get(i).get(target);
+
+					builder.append(literal, last, slot.offset).append(value != null ? value : slot.raw);
+					last = slot.offset;
+				}
+
+				builder.append(literal, last, literal.length());
+
+				translated.put(viewer, target, builder.toString());
+			}
+		}
+
+		return translated;
+	}
+
+
+	private static boolean isUnchanged(@NotNull final String text, final boolean colorize)
+	{
+		return (!colorize || text.indexOf('&') == -1) && !text.contains("%rel_");
+	}
+
+	/**
+	 * @return Index of the underscore separating the identifier from the params of a relational placeholder, or -1 if
+	 * the placeholder isn't one
+	 */
+	private static int findUnderscore(@NotNull final CharSequence text, final int start, final int separator, final int end)
+	{
+		if (separator != start + 1 + PREFIX.length())
+		{
+			return -1;
+		}
+
+		for (int i = 0; i < PREFIX.length(); i++)
+		{
+			if (text.charAt(start + 1 + i) != PREFIX.charAt(i))
+			{
+				return -1;
+			}
+		}
+
+		for (int i = separator + 1; i < end; i++)
+		{
+			if (text.charAt(i) == '_')
+			{
+				return i == separator + 1 ? -1 : i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Requests the values of a slot for all targets at once, targets left out of the result, or all of them if the
+	 * hook returned null, are requested one by one
+	 */
+	@NotNull
+	private static Map<Player, String> request(@NotNull final Slot slot, @NotNull final Player viewer, @NotNull final Collection<? extends Player> targets)
+	{
+		final Map<Player, String> requested = slot.hook.onPlaceholderRequests(viewer, targets, slot.parameters);
+		if (requested != null && requested.keySet().containsAll(targets))
+		{
+			return requested;
+		}
+
+		final Map<Player, String> values = requested == null ? new HashMap<>(targets.size()) : new HashMap<>(requested);
+		for (final Player target : targets)
+		{
+			if (!values.containsKey(target))
+			{
+				values.put(target, slot.hook.onPlaceholderRequest(viewer, target, slot.parameters));
+			}
+		}
+
+		return values;
+	}
+
+	@Nullable
+	private static Relational resolve(@NotNull final CharSequence text, final int separator, final int underscore, @NotNull final Function<String, @Nullable PlaceholderHook> lookup)
+	{
+		final PlaceholderHook hook = lookup.apply(text.subSequence(separator + 1, underscore).toString().toLowerCase());
+		return hook instanceof Relational ? (Relational) hook : null;
+	}
+
+
+	private static final class Slot
+	{
+
+		private final int        offset;
+		@NotNull
+		private final Relational hook;
+		@NotNull
+		private final String     parameters;
+		@NotNull
+		private final String     raw;
+
+		private Slot(final int offset, @NotNull final Relational hook, @NotNull final String parameters, @NotNull final String raw)
+		{
+			this.offset = offset;
+			this.hook = hook;
+			this.parameters = parameters;
+			this.raw = raw;
+		}
+
+	}
+
+}
@@ -5,6 +5,7 @@ import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.function.Function;
 
 public interface Replacer
@@ -13,6 +14,63 @@ public interface Replacer
 	@NotNull
 	String apply(@NotNull final String text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup);
 
+	/**
+	 * Writes the text with all placeholders translated into the target, without creating an intermediate string
+	 * when the replacer supports it.
+	 *
+	 * @param text   Text to set the placeholder values in
+	 * @param player Player to parse the placeholders against
+	 * @param lookup Function resolving an identifier to its placeholder hook
+	 * @param target Builder the result is appended to
+	 */
+	default void apply(@NotNull final CharSequence text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, @NotNull final StringBuilder target)
+	{
+		target.append(apply(text.toString(), player, lookup));
+	}
+
+	/**
+	 * Writes the text with all placeholders translated into the target.
+	 *
+	 * @param text   Text to set the placeholder values in
+	 * @param player Player to parse the placeholders against
+	 * @param lookup Function resolving an identifier to its placeholder hook
+	 * @param target Appendable the result is appended to
+	 * @throws IOException If the target fails to append
+	 */
+	default void apply(@NotNull final CharSequence text, @Nullable final OfflinePlayer player, @NotNull final Function<String, @Nullable PlaceholderHook> lookup, @NotNull final Appendable target) throws IOException
+	{
+		if (target instanceof StringBuilder)
+		{
+			apply(text, player, lookup, (StringBuilder) target);
+			return;
+		}
+
+		final StringBuilder builder = new StringBuilder(text.length());
+		apply(text, player, lookup, builder);
+
+		target.append(builder);
+	}
+
+
+	/**
+	 * A lookup that can resolve an identifier straight from the parsed text, replacers use it to avoid creating a
+	 * substring for every identifier.
+	 */
+	interface RangeLookup extends Function<String, @Nullable PlaceholderHook>
+	{
+
+		/**
+		 * Resolve the placeholder hook of the identifier in the range of the text
+		 *
+		 * @param text  Text containing the identifier
+		 * @param start Index of the first character of the identifier
+		 * @param end   Index after the last character of the identifier
+		 * @return The placeholder hook, or null if there is none
+		 */
+		@Nullable
+		PlaceholderHook apply(@NotNull final CharSequence text, final int start, final int end);
+
+	}
 
 	enum Closure
 	{
@@ -0,0 +1,446 @@
+package me.clip.placeholderapi.stats;
+
+import com.google.common.collect.ImmutableMap;
+import me.clip.placeholderapi.PlaceholderHook;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Runtime toggleable instrumentation of {@link PlaceholderHook#onRequest(OfflinePlayer, String)}, recording the
+ * amount of requests, null returns and latency of every identifier, and optionally of every identifier and params.
+ * <br>Counters are striped so concurrent requests don't contend, and only one out of every sample rate requests is
+ * timed. When disabled hooks are not decorated at all.
+ */
+public final class PlaceholderStatistics
+{
+
+	public static final int DEFAULT_SAMPLE_RATE = 16;
+
+	/**
+	 * The maximum amount of distinct identifier and params combinations recorded, to keep params containing player
+	 * input from growing the statistics without bounds.
+	 */
+	private static final int MAXIMUM_PARAMS = 1000;
+
+
+	@NotNull
+	private final Map<String, RecordingPlaceholderHook>       hooks        = new ConcurrentHashMap<>();
+	@NotNull
+	private final Map<String, Recorder>                       identifiers  = new ConcurrentHashMap<>();
+	@NotNull
+	private final Map<String, Recorder>                       combinations = new ConcurrentHashMap<>();
+	@NotNull
+	private final Function<String, @Nullable PlaceholderHook> registered;
+	@NotNull
+	private final Runnable                                    changed;
+
+	private volatile boolean enabled    = false;
+	private volatile boolean perParams  = false;
+	private volatile int     sampleRate = DEFAULT_SAMPLE_RATE;
+
+
+	/**
+	 * @param registered Function resolving the hook currently registered for an identifier, only that hook is
+	 *                   decorated
+	 * @param changed    Called whenever hooks decorated before must be decorated again
+	 */
+	public PlaceholderStatistics(@NotNull final Function<String, @Nullable PlaceholderHook> registered, @NotNull final Runnable changed)
+	{
+		this.registered = registered;
+		this.changed = changed;
+	}
+
+	PlaceholderStatistics(@NotNull final Function<String, @Nullable PlaceholderHook> registered)
+	{
+		this(registered, () -> {
+		});
+	}
+
+
+	/**
+	 * Apply new settings, recorded statistics are kept.
+	 *
+	 * @param enabled    If requests should be recorded at all
+	 * @param sampleRate Time one out of every this many requests, 1 times every request
+	 * @param perParams  If requests should also be recorded per identifier and params
+	 */
+	public void configure(final boolean enabled, final int sampleRate, final boolean perParams)
+	{
+		this.sampleRate = Math.max(1, sampleRate);
+		this.perParams = perParams;
+
+		setEnabled(enabled);
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+
+		if (!enabled)
+		{
+			hooks.clear();
+		}
+
+		changed.run();
+	}
+
+	public int getSampleRate()
+	{
+		return sampleRate;
+	}
+
+	public boolean isRecordingParams()
+	{
+		return perParams;
+	}
+
+
+	/**
+	 * Get the hook that should be used to request values for this identifier
+	 * <br>The result stays valid until the hook is unregistered or this reports a change, so callers may keep it
+	 * instead of decorating the hook on every request.
+	 *
+	 * @param identifier The identifier the hook is registered for
+	 * @param hook       The registered hook
+	 * @return A hook recording every request, or the given hook if statistics are disabled
+	 */
+	@NotNull
+	public PlaceholderHook decorate(@NotNull final String identifier, @NotNull final PlaceholderHook hook)
+	{
+		if (!enabled)
+		{
+			return hook;
+		}
+
+		RecordingPlaceholderHook recording = hooks.get(identifier);
+		if (recording == null || recording.hook != hook)
+		{
+			// the hook may have been unregistered since it was looked up, it must not be referenced after that
+			recording = hooks.compute(identifier, (key, current) -> {
+				if (registered.apply(key) != hook)
+				{
+					return current;
+				}
+
+				return current != null && current.hook == hook ? current : new RecordingPlaceholderHook(key, hook, identifiers.computeIfAbsent(key, name -> new Recorder()));
+			});
+		}
+
+		return recording == null || recording.hook != hook ? hook : recording;
+	}
+
+	/**
+	 * Stop referencing the hook of an identifier, must be called once it is unregistered, its recorded statistics
+	 * are kept
+	 *
+	 * @param identifier The identifier the hook was registered for
+	 */
+	public void invalidate(@NotNull final String identifier)
+	{
+		hooks.remove(identifier);
+		changed.run();
+	}
+
+	/**
+	 * Stop referencing any hook, recorded statistics are kept
+	 */
+	public void invalidateAll()
+	{
+		hooks.clear();
+		changed.run();
+	}
+
+
+	/**
+	 * Drop every recorded statistic
+	 */
+	public void reset()
+	{
+		hooks.clear();
+		identifiers.clear();
+		combinations.clear();
+
+		changed.run();
+	}
+
+	/**
+	 * Get the statistics of every identifier that was requested while recording
+	 *
+	 * @return Map of identifier to a snapshot of its statistics
+	 */
+	@NotNull
+	@Unmodifiable
+	public Map<String, Snapshot> getStatistics()
+	{
+		return snapshot(identifiers);
+	}
+
+	/**
+	 * Get the statistics of every identifier and params combination that was requested while recording them
+	 *
+	 * @return Map of {@literal <identifier>_<params>} to a snapshot of its statistics
+	 */
+	@NotNull
+	@Unmodifiable
+	public Map<String, Snapshot> getParamsStatistics()
+	{
+		return snapshot(combinations);
+	}
+
+
+	@NotNull
+	private static Map<String, Snapshot> snapshot(@NotNull final Map<String, Recorder> recorders)
+	{
+		final ImmutableMap.Builder<String, Snapshot> snapshots = ImmutableMap.builder();
+		recorders.forEach((key, recorder) -> snapshots.put(key, recorder.snapshot()));
+
+		return snapshots.build();
+	}
+
+
+	/**
+	 * The statistics of an identifier, or identifier and params, at the time it was taken.
+	 */
+	public static final class Snapshot
+	{
+
+		private final long calls;
+		private final long nulls;
+		private final long averageNanos;
+		private final long p99Nanos;
+
+		private Snapshot(final long calls, final long nulls, final long averageNanos, final long p99Nanos)
+		{
+			this.calls = calls;
+			this.nulls = nulls;
+			this.averageNanos = averageNanos;
+			this.p99Nanos = p99Nanos;
+		}
+
+
+		public long getCalls()
+		{
+			return calls;
+		}
+
+		public long getNullReturns()
+		{
+			return nulls;
+		}
+
+		/**
+		 * @return The fraction of requests that returned null, between 0 and 1
+		 */
+		public double getNullRate()
+		{
+			return calls == 0 ? 0 : (double) nulls / calls;
+		}
+
+		/**
+		 * @return The average latency of the sampled requests in nanoseconds
+		 */
+		public long getAverageNanos()
+		{
+			return averageNanos;
+		}
+
+		/**
+		 * @return The estimated time spent in all requests in nanoseconds, extrapolated from the sampled requests
+		 */
+		public long getTotalNanos()
+		{
+			return averageNanos * calls;
+		}
+
+		/**
+		 * @return The upper bound of the 99th percentile latency of the sampled requests in nanoseconds, accurate to
+		 * within 25%
+		 */
+		public long getP99Nanos()
+		{
+			return p99Nanos;
+		}
+
+	}
+
+
+	private final class RecordingPlaceholderHook extends PlaceholderHook
+	{
+
+		@NotNull
+		private final String          identifier;
+		@NotNull
+		private final PlaceholderHook hook;
+		@NotNull
+		private final Recorder        recorder;
+
+		private RecordingPlaceholderHook(@NotNull final String identifier, @NotNull final PlaceholderHook hook, @NotNull final Recorder recorder)
+		{
+			this.identifier = identifier;
+			this.hook = hook;
+			this.recorder = recorder;
+		}
+
+
+		@Override
+		public @Nullable String onRequest(@Nullable final OfflinePlayer player, @NotNull final String params)
+		{
+			final Recorder paramsRecorder = perParams ? paramsRecorder(params) : null;
+
+			if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0)
+			{
+				final String value = hook.onRequest(player, params);
+
+				recorder.record(value == null, -1);
+				if (paramsRecorder != null)
+				{
+					paramsRecorder.record(value == null, -1);
+				}
+
+				return value;
+			}
+
+			final long   start   = System.nanoTime();
+			final String value   = hook.onRequest(player, params);
+			final long   elapsed = System.nanoTime() - start;
+
+			recorder.record(value == null, elapsed);
+			if (paramsRecorder != null)
+			{
+				paramsRecorder.record(value == null, elapsed);
+			}
+
+			return value;
+		}
+
+		@Nullable
+		private Recorder paramsRecorder(@NotNull final String params)
+		{
+			final String   key      = identifier + '_' + params;
+			final Recorder recorder = combinations.get(key);
+
+			if (recorder != null || combinations.size() >= MAXIMUM_PARAMS)
+			{
+				return recorder;
+			}
+
+			return combinations.computeIfAbsent(key, name -> new Recorder());
+		}
+
+	}
+
+	static final class Recorder
+	{
+
+		/**
+		 * Latencies are counted in buckets of a quarter of a power of two, values below 8 have a bucket each.
+		 */
+		private static final int BUCKETS = 256;
+
+
+		@NotNull
+		private final LongAdder       calls   = new LongAdder();
+		@NotNull
+		private final LongAdder       nulls   = new LongAdder();
+		@NotNull
+		private final LongAdder       samples = new LongAdder();
+		@NotNull
+		private final LongAdder       nanos   = new LongAdder();
+		@NotNull
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+
+		/**
+		 * @param empty   If the request returned null
+		 * @param elapsed The latency of the request in nanoseconds, or -1 if it wasn't sampled
+		 */
+		void record(final boolean empty, final long elapsed)
+		{
+			calls.increment();
+
+			if (empty)
+			{
+				nulls.increment();
+			}
+
+			if (elapsed < 0)
+			{
+				return;
+			}
+
+			samples.increment();
+			nanos.add(elapsed);
+			buckets.incrementAndGet(bucket(elapsed));
+		}
+
+		@NotNull
+		Snapshot snapshot()
+		{
+			final long sampled = samples.sum();
+			return new Snapshot(calls.sum(), nulls.sum(), sampled == 0 ? 0 : nanos.sum() / sampled, percentile(0.99));
+		}
+
+		private long percentile(final double percentile)
+		{
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				total += buckets.get(i);
+			}
+
+			final long target = (long) Math.ceil(total * percentile);
+
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				seen += buckets.get(i);
+
+				if (seen >= target && seen > 0)
+				{
+					return upperBound(i);
+				}
+			}
+
+			return 0;
+		}
+
+
+		private static int bucket(final long nanos)
+		{
+			if (nanos < 8)
+			{
+				return (int) nanos;
+			}
+
+			final int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+			return (magnitude * 4) + (int) ((nanos >>> (magnitude - 2)) & 3);
+		}
+
+		private static long upperBound(final int bucket)
+		{
+			if (bucket < 8)
+			{
+				return bucket;
+			}
+
+			final int magnitude = bucket / 4;
+			return ((5L + (bucket % 4)) << (magnitude - 2)) - 1;
+		}
+
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ *
+ * PlaceholderAPI
+ * Copyright (C) 2019 Ryan McCarthy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ */
+package me.clip.placeholderapi.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+
+/**
+ * The name, superclass and interfaces of a class, read straight from its class file without loading it.
+ */
+final class ClassHeader
+{
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+
+	@NotNull
+	private final String   name;
+	@Nullable
+	private final String   superName;
+	@NotNull
+	private final String[] interfaces;
+
+
+	private ClassHeader(@NotNull final String name, @Nullable final String superName, @NotNull final String[] interfaces)
+	{
+		this.name = name;
+		this.superName = superName;
+		this.interfaces = interfaces;
+	}
+
+
+	/**
+	 * @return The internal name of the class, like {@code me/clip/placeholderapi/PlaceholderHook}
+	 */
+	@NotNull
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return The internal name of the superclass, or null for {@link Object} and module descriptors
+	 */
+	@Nullable
+	public String getSuperName()
+	{
+		return superName;
+	}
+
+	/**
+	 * @return The internal names of the directly implemented interfaces
+	 */
+	@NotNull
+	public String[] getInterfaces()
+	{
+		return interfaces;
+	}
+
+
+	/**
+	 * Reads the header of a class file, only the constant pool and the class declaration are read, the
+	 * fields, methods and attributes are left in the stream.
+	 *
+	 * @param stream The class file
+	 * @return The header, or null if the stream is not a class file or is malformed
+	 */
+	@Nullable
+	public static ClassHeader read(@NotNull final InputStream stream) throws IOException
+	{
+		try
+		{
+			return read(new DataInputStream(stream));
+		}
+		catch (final EOFException | UTFDataFormatException ex)
+		{
+			return null; // truncated or malformed
+		}
+	}
+
+	@Nullable
+	private static ClassHeader read(@NotNull final DataInputStream input) throws IOException
+	{
+		if (input.readInt() != MAGIC)
+		{
+			return null;
+		}
+
+		input.skipBytes(4); // minor and major version
+
+		final int      count   = input.readUnsignedShort();
+		final String[] strings = new String[count];
+		final int[]    classes = new int[count];
+
+		for (int i = 1; i < count; i++)
+		{
+			final int tag = input.readUnsignedByte();
+			switch (tag)
+			{
+				case 1: // Utf8
+					strings[i] = input.readUTF();
+					break;
+				case 7: // Class
+					classes[i] = input.readUnsignedShort();
+					break;
+				case 8: // String
+				case 16: // MethodType
+				case 19: // Module
+				case 20: // Package
+					input.skipBytes(2);
+					break;
+				case 15: // MethodHandle
+					input.skipBytes(3);
+					break;
+				case 3: // Integer
+				case 4: // Float
+				case 9: // Fieldref
+				case 10: // Methodref
+				case 11: // InterfaceMethodref
+				case 12: // NameAndType
+				case 17: // Dynamic
+				case 18: // InvokeDynamic
+					input.skipBytes(4);
+					break;
+				case 5: // Long
+				case 6: // Double
+					input.skipBytes(8);
+					i++; // takes up two entries
+					break;
+				default:
+					return null; // malformed, or a newer class file format
+			}
+		}
+
+		input.skipBytes(2); // access flags
+
+		final String name = resolve(strings, classes, input.readUnsignedShort());
+		if (name == null)
+		{
+			return null;
+		}
+
+		final String   superName  = resolve(strings, classes, input.readUnsignedShort());
+		final String[] interfaces = new String[input.readUnsignedShort()];
+
+		for (int i = 0; i < interfaces.length; i++)
+		{
+			interfaces[i] = resolve(strings, classes, input.readUnsignedShort());
+		}
+
+		return new ClassHeader(name, superName, interfaces);
+	}
+
+	@Nullable
+	private static String resolve(@NotNull final String[] strings, @NotNull final int[] classes, final int index)
+	{
+		if (index <= 0 || index >= classes.length || classes[index] >= strings.length)
+		{
+			return null;
+		}
+
+		return strings[classes[index]];
+	}
+
+}
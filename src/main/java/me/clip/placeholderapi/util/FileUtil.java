@@ -23,16 +23,25 @@ package me.clip.placeholderapi.util;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
+import java.util.jar.JarFile;
 
 public class FileUtil
 {
@@ -66,7 +75,7 @@ public class FileUtil
 
 			for (File file : jars)
 			{
-				gather(file.toURI().toURL(), clazz, list);
+				list.addAll(getClassesInJar(file, clazz));
 			}
 
 			return list;
@@ -79,31 +88,219 @@ public class FileUtil
 		return Collections.emptyList();
 	}
 
-	private static <T> void gather(@NotNull final URL jar, @NotNull final Class<T> clazz, @NotNull final List<@NotNull Class<? extends T>> list) throws IOException, ClassNotFoundException
+	/**
+	 * Find every class in a single jar which extends or implements the given class.
+	 * <br>If the jar lists its implementations in a {@code META-INF/services/<class name>} entry only those are
+	 * loaded, otherwise the class file headers are read to find them, so only the matching classes are ever loaded.
+	 *
+	 * <br>The classes are loaded by a class loader which is closed once the jar was searched.
+	 *
+	 * @param jar   The jar to search
+	 * @param clazz The class the found classes must be assignable to
+	 * @return Every matching class in the jar
+	 */
+	@NotNull
+	public static <T> List<@NotNull Class<? extends T>> getClassesInJar(@NotNull final File jar, @NotNull final Class<T> clazz) throws IOException, ClassNotFoundException
+	{
+		try (final URLClassLoader loader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, clazz.getClassLoader()))
+		{
+			return getClassesInJar(jar, clazz, loader);
+		}
+	}
+
+	/**
+	 * Find every class in a single jar which extends or implements the given class, like
+	 * {@link #getClassesInJar(File, Class)} but loaded by the given class loader, which is left open.
+	 *
+	 * @param jar    The jar to search
+	 * @param clazz  The class the found classes must be assignable to
+	 * @param loader The class loader of the jar, the given class must be visible to it
+	 * @return Every matching class in the jar
+	 */
+	@NotNull
+	public static <T> List<@NotNull Class<? extends T>> getClassesInJar(@NotNull final File jar, @NotNull final Class<T> clazz, @NotNull final ClassLoader loader) throws IOException, ClassNotFoundException
+	{
+		try (final JarFile file = new JarFile(jar))
+		{
+			final List<String> names = getServiceNames(file, clazz);
+			return loadClasses(loader, clazz, names != null ? names : getSubclassNames(file, loader, clazz));
+		}
+	}
+
+	/**
+	 * Load the given classes, without searching for them.
+	 *
+	 * @param loader The class loader to load the classes with
+	 * @param clazz  The class the loaded classes must be assignable to
+	 * @param names  The binary names of the classes, like the ones previously found by {@link #getClassesInJar(File, Class)}
+	 * @return Every named class which is assignable to the given class
+	 * @throws ClassNotFoundException if one of the classes can't be found by the loader
+	 */
+	@NotNull
+	public static <T> List<@NotNull Class<? extends T>> loadClasses(@NotNull final ClassLoader loader, @NotNull final Class<T> clazz, @NotNull final Collection<@NotNull String> names) throws ClassNotFoundException
+	{
+		final List<@NotNull Class<? extends T>> list = new ArrayList<>();
+
+		for (final String name : names)
+		{
+			try
+			{
+				final Class<?> loaded = loader.loadClass(name);
+				if (clazz.isAssignableFrom(loaded))
+				{
+					list.add(loaded.asSubclass(clazz));
+				}
+			}
+			catch (final NoClassDefFoundError ignored)
+			{ }
+		}
+
+		return list;
+	}
+
+	/**
+	 * @return The classes listed in the service entry of the given class, or null if the jar has none
+	 */
+	@Nullable
+	private static List<String> getServiceNames(@NotNull final JarFile file, @NotNull final Class<?> clazz) throws IOException
 	{
-		try (final URLClassLoader loader = new URLClassLoader(new URL[]{jar}, clazz.getClassLoader()); final JarInputStream stream = new JarInputStream(jar.openStream()))
+		final JarEntry entry = file.getJarEntry("META-INF/services/" + clazz.getName());
+		if (entry == null)
 		{
-			JarEntry entry;
-			while ((entry = stream.getNextJarEntry()) != null)
+			return null;
+		}
+
+		final List<String> names = new ArrayList<>();
+
+		try (final BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(entry), StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				final int comment = line.indexOf('#');
+				final String name = (comment == -1 ? line : line.substring(0, comment)).trim();
+
+				if (!name.isEmpty())
+				{
+					names.add(name);
+				}
+			}
+		}
+
+		return names;
+	}
+
+	/**
+	 * Reads the header of every class in the jar and follows their superclasses and interfaces to find the ones
+	 * which extend or implement the given class.
+	 * <br>Types outside of the jar are resolved through the parent of the loader, which never loads anything
+	 * from the jar itself.
+	 *
+	 * @return The binary names of the matching classes, in the order they appear in the jar
+	 */
+	@NotNull
+	private static List<String> getSubclassNames(@NotNull final JarFile file, @NotNull final ClassLoader loader, @NotNull final Class<?> clazz) throws IOException
+	{
+		final Map<String, ClassHeader> headers = new LinkedHashMap<>();
+
+		final Enumeration<JarEntry> entries = file.entries();
+		while (entries.hasMoreElements())
+		{
+			final JarEntry entry = entries.nextElement();
+			final String   name  = entry.getName();
+
+			if (!name.endsWith(".class") || name.startsWith("META-INF/") || name.endsWith("module-info.class"))
 			{
-				final String name = entry.getName();
-				if (name == null || name.isEmpty() || !name.endsWith(".class"))
+				continue;
+			}
+
+			try (final InputStream stream = file.getInputStream(entry))
+			{
+				final ClassHeader header = ClassHeader.read(stream);
+				if (header != null)
 				{
-					continue;
+					headers.put(header.getName(), header);
 				}
+			}
+		}
+
+		final String               target   = clazz.getName().replace('.', '/');
+		final Map<String, Boolean> subtypes = new HashMap<>();
+		final List<String>         names    = new ArrayList<>();
+
+		for (final ClassHeader header : headers.values())
+		{
+			if (!header.getName().equals(target) && isSubtype(header.getName(), target, headers, subtypes, loader, clazz))
+			{
+				names.add(header.getName().replace('/', '.'));
+			}
+		}
+
+		return names;
+	}
+
+	private static boolean isSubtype(@Nullable final String name, @NotNull final String target, @NotNull final Map<String, ClassHeader> headers,
+									 @NotNull final Map<String, Boolean> subtypes, @NotNull final ClassLoader loader, @NotNull final Class<?> clazz)
+	{
+		if (name == null)
+		{
+			return false;
+		}
+		if (name.equals(target))
+		{
+			return true;
+		}
+
+		final Boolean known = subtypes.get(name);
+		if (known != null)
+		{
+			return known;
+		}
+
+		subtypes.put(name, false); // guards against malformed, circular hierarchies
+
+		boolean subtype = false;
 
-				try
+		final ClassHeader header = headers.get(name);
+		if (header == null)
+		{
+			subtype = isExternalSubtype(name, loader, clazz);
+		}
+		else if (isSubtype(header.getSuperName(), target, headers, subtypes, loader, clazz))
+		{
+			subtype = true;
+		}
+		else
+		{
+			for (final String type : header.getInterfaces())
+			{
+				if (isSubtype(type, target, headers, subtypes, loader, clazz))
 				{
-					final Class<?> loaded = loader.loadClass(name.substring(0, name.lastIndexOf('.')).replace('/', '.'));
-					if (clazz.isAssignableFrom(loaded))
-					{
-						list.add(loaded.asSubclass(clazz));
-					}
+					subtype = true;
+					break;
 				}
-				catch (final NoClassDefFoundError ignored)
-				{ }
 			}
 		}
+
+		subtypes.put(name, subtype);
+		return subtype;
+	}
+
+	private static boolean isExternalSubtype(@NotNull final String name, @NotNull final ClassLoader loader, @NotNull final Class<?> clazz)
+	{
+		if (name.startsWith("java/") || loader.getParent() == null)
+		{
+			return false;
+		}
+
+		try
+		{
+			return clazz.isAssignableFrom(Class.forName(name.replace('/', '.'), false, loader.getParent()));
+		}
+		catch (final ClassNotFoundException | LinkageError ignored)
+		{
+			return false;
+		}
 	}
 
 }
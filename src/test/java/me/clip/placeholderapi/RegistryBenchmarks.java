@@ -0,0 +1,53 @@
+package me.clip.placeholderapi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures placeholder lookups from several parsing threads while another thread keeps registering and
+ * unregistering a hook, like async chat parsing during expansion (un)registration.
+ */
+@State(Scope.Group)
+public class RegistryBenchmarks
+{
+
+	private final PlaceholderHook churn = new Values.MockPlayerPlaceholderHook();
+
+
+	@Setup
+	public void setup()
+	{
+		Values.PLACEHOLDERS.forEach(PlaceholderAPI::registerPlaceholderHook);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		Values.PLACEHOLDERS.keySet().forEach(PlaceholderAPI::unregisterPlaceholderHook);
+		PlaceholderAPI.unregisterPlaceholderHook("churn");
+	}
+
+
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(3)
+	public String measureLookupWhileRegistering()
+	{
+		return PlaceholderAPI.setPlaceholders(null, Values.LARGE_TEXT);
+	}
+
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(1)
+	public boolean measureRegisterAndUnregister()
+	{
+		PlaceholderAPI.registerPlaceholderHook("churn", churn);
+		return PlaceholderAPI.unregisterPlaceholderHook("churn");
+	}
+
+}
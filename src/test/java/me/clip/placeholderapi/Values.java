@@ -2,30 +2,64 @@ package me.clip.placeholderapi;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import me.clip.placeholderapi.expansion.Relational;
 import me.clip.placeholderapi.replacer.CharsReplacer;
+import me.clip.placeholderapi.replacer.ParsedTemplate;
 import me.clip.placeholderapi.replacer.RegexReplacer;
+import me.clip.placeholderapi.replacer.RelationalReplacer;
 import me.clip.placeholderapi.replacer.Replacer;
 import org.bukkit.ChatColor;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.reflect.Proxy;
 import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 
 public interface Values
 {
 
+	String PLAIN_TEXT = "My name is Sxtanna and I have no placeholders";
 	String SMALL_TEXT = "My name is %player_name%";
 	String LARGE_TEXT = "My name is %player_name% and my location is (%player_x%, %player_y%, %player_z%), this placeholder is invalid %server_name%";
+	String RELATIONAL_TEXT = "&7%rel_friends_relation% with %player_name%, %rel_friends_unknown% and %rel_enemies_relation%";
 
 	ImmutableMap<String, PlaceholderHook> PLACEHOLDERS = ImmutableMap.<String, PlaceholderHook>builder()
 			.put("player", new MockPlayerPlaceholderHook())
+			.put("friends", new MockRelationalPlaceholderHook())
 			.build();
 
+	/**
+	 * Resolves identifiers from a range of the text like {@link PlaceholderAPI} does, without creating a substring
+	 */
+	Replacer.RangeLookup INDEXED_LOOKUP = new Replacer.RangeLookup()
+	{
+		private final PlaceholderIndex index = new PlaceholderIndex(PLACEHOLDERS);
+
+		@Override
+		public @Nullable PlaceholderHook apply(@NotNull final String identifier)
+		{
+			return PLACEHOLDERS.get(identifier);
+		}
+
+		@Override
+		public @Nullable PlaceholderHook apply(@NotNull final CharSequence text, final int start, final int end)
+		{
+			final int slot = index.find(text, start, end);
+			return slot == -1 ? null : index.getHook(slot);
+		}
+	};
+
 
-	Replacer CHARS_REPLACER = new CharsReplacer(Replacer.Closure.PERCENT);
+	CharsReplacer CHARS_REPLACER = new CharsReplacer(Replacer.Closure.PERCENT);
 	Replacer REGEX_REPLACER = new RegexReplacer(Replacer.Closure.PERCENT);
+	RelationalReplacer RELATIONAL_REPLACER = new RelationalReplacer();
+	ParsedTemplate SMALL_TEMPLATE = CHARS_REPLACER.compile(SMALL_TEXT);
+	ParsedTemplate LARGE_TEMPLATE = CHARS_REPLACER.compile(LARGE_TEXT);
+
 	Replacer TESTS_REPLACER = new Replacer()
 	{
 		private final Set<Character> COLOR_CODES = ImmutableSet.of('0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
@@ -149,6 +183,31 @@ public interface Values
 	};
 
 
+	/**
+	 * Creates a player which only knows its unique id, every other method throws
+	 *
+	 * @param type     The type of player to create
+	 * @param uniqueId The unique id of the player
+	 */
+	@NotNull
+	static <P extends OfflinePlayer> P mockPlayer(@NotNull final Class<P> type, @NotNull final UUID uniqueId)
+	{
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+			switch (method.getName())
+			{
+				case "getUniqueId":
+					return uniqueId;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		}));
+	}
+
+
 	final class MockPlayerPlaceholderHook extends PlaceholderHook
 	{
 
@@ -184,4 +243,18 @@ public interface Values
 
 	}
 
+	class MockRelationalPlaceholderHook extends PlaceholderHook implements Relational
+	{
+
+		public static final String RELATION = "Ally";
+
+
+		@Override
+		public String onPlaceholderRequest(final Player one, final Player two, final String params)
+		{
+			return params.equals("relation") ? RELATION : null;
+		}
+
+	}
+
 }
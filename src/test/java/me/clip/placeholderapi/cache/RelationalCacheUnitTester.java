@@ -0,0 +1,211 @@
+package me.clip.placeholderapi.cache;
+
+import com.google.common.base.Ticker;
+import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.Values;
+import me.clip.placeholderapi.expansion.Memoizable;
+import me.clip.placeholderapi.expansion.Relational;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class RelationalCacheUnitTester
+{
+
+	private static final String IDENTIFIER = "friends";
+
+
+	private final Map<String, PlaceholderHook> registry = new HashMap<>();
+	private final AtomicLong                   nanos    = new AtomicLong();
+	private final RelationalCache              cache    = new RelationalCache(registry::get, new Ticker()
+	{
+		@Override
+		public long read()
+		{
+			return nanos.get();
+		}
+	});
+
+	private final Player one   = Values.mockPlayer(Player.class, UUID.randomUUID());
+	private final Player two   = Values.mockPlayer(Player.class, UUID.randomUUID());
+	private final Player three = Values.mockPlayer(Player.class, UUID.randomUUID());
+
+
+	@Test
+	void testValuesAreReusedUntilTheyExpire()
+	{
+		final RelationHook hook = register(new RelationHook(1000));
+
+		assertEquals("1", request(hook, one, two));
+		assertEquals("1", request(hook, one, two));
+		assertEquals("2", request(hook, two, one));
+
+		nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+		assertEquals("3", request(hook, one, two));
+	}
+
+	@Test
+	void testConfiguredDurationTakesPrecedenceOverMemoizable()
+	{
+		final RelationHook hook = register(new RelationHook(1000));
+
+		cache.configure(true, RelationalCache.DEFAULT_MAXIMUM_SIZE, identifier -> 0L);
+		assertSame(hook, cache.decorate(IDENTIFIER, hook));
+
+		cache.configure(true, RelationalCache.DEFAULT_MAXIMUM_SIZE, identifier -> 10L);
+		assertEquals("1", request(hook, one, two));
+
+		nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+		assertEquals("2", request(hook, one, two));
+	}
+
+	@Test
+	void testInvalidatingPlayerDropsBothDirections()
+	{
+		final RelationHook hook = register(new RelationHook(1000));
+
+		assertEquals("1", request(hook, one, two));
+		assertEquals("2", request(hook, two, one));
+		assertEquals("3", request(hook, two, three));
+
+		cache.invalidate(one.getUniqueId());
+
+		assertEquals("4", request(hook, one, two));
+		assertEquals("5", request(hook, two, one));
+		assertEquals("3", request(hook, two, three));
+	}
+
+	@Test
+	void testInvalidatingPairOnlyDropsThatPair()
+	{
+		final RelationHook hook = register(new RelationHook(1000));
+
+		assertEquals("1", request(hook, one, two));
+		assertEquals("2", request(hook, two, one));
+		assertEquals("3", request(hook, one, three));
+
+		cache.invalidate(two.getUniqueId(), one.getUniqueId());
+
+		assertEquals("4", request(hook, one, two));
+		assertEquals("5", request(hook, two, one));
+		assertEquals("3", request(hook, one, three));
+	}
+
+	@Test
+	void testInvalidatingOnlyTestsValuesOfThatPlayer()
+	{
+		final RelationHook  hook   = register(new RelationHook(1000));
+		final AtomicInteger tested = new AtomicInteger();
+
+		request(hook, one, two);
+		request(hook, three, one);
+		request(hook, two, three);
+		request(hook, three, two);
+
+		cache.invalidate(one.getUniqueId(), key -> tested.incrementAndGet() < 0);
+
+		assertEquals(2, tested.get());
+		assertEquals(4, cache.size());
+	}
+
+	@Test
+	void testBatchRequestOnlyForwardsMissedTargets()
+	{
+		final RelationHook hook = register(new RelationHook(1000));
+		final Relational   cached = (Relational) cache.decorate(IDENTIFIER, hook);
+
+		assertEquals("1", cached.onPlaceholderRequest(one, two, "relation"));
+
+		final Map<Player, String> values = cached.onPlaceholderRequests(one, Arrays.asList(two, three), "relation");
+
+		assertEquals("1", values.get(two));
+		assertEquals("2", values.get(three));
+		assertEquals(Arrays.asList(Arrays.asList(three)), hook.batches);
+
+		cached.onPlaceholderRequests(one, Arrays.asList(two, three), "relation");
+		assertEquals(1, hook.batches.size());
+	}
+
+	@Test
+	void testBatchRequestFallsBackForTargetsLeftOut()
+	{
+		final RelationHook hook = register(new RelationHook(1000)
+		{
+			@Override
+			public Map<Player, String> onPlaceholderRequests(final Player one, final Collection<? extends Player> others, final String identifier)
+			{
+				return null;
+			}
+		});
+
+		final Map<Player, String> values = ((Relational) cache.decorate(IDENTIFIER, hook)).onPlaceholderRequests(one, Arrays.asList(two, three), "relation");
+
+		assertEquals("1", values.get(two));
+		assertEquals("2", values.get(three));
+		assertNull(values.get(one));
+	}
+
+
+	@NotNull
+	private RelationHook register(@NotNull final RelationHook hook)
+	{
+		registry.put(IDENTIFIER, hook);
+		return hook;
+	}
+
+	private String request(@NotNull final RelationHook hook, @NotNull final Player one, @NotNull final Player two)
+	{
+		return ((Relational) cache.decorate(IDENTIFIER, hook)).onPlaceholderRequest(one, two, "relation");
+	}
+
+
+	private static class RelationHook extends PlaceholderHook implements Relational, Memoizable
+	{
+
+		private final long               duration;
+		private final AtomicInteger      requests = new AtomicInteger();
+		private final List<List<Player>> batches  = new ArrayList<>();
+
+		private RelationHook(final long duration)
+		{
+			this.duration = duration;
+		}
+
+
+		@Override
+		public String onPlaceholderRequest(final Player one, final Player two, final String identifier)
+		{
+			return String.valueOf(requests.incrementAndGet());
+		}
+
+		@Override
+		public Map<Player, String> onPlaceholderRequests(final Player one, final Collection<? extends Player> others, final String identifier)
+		{
+			batches.add(new ArrayList<>(others));
+			return Relational.super.onPlaceholderRequests(one, others, identifier);
+		}
+
+		@Override
+		public long getCacheDuration()
+		{
+			return duration;
+		}
+
+	}
+
+}
@@ -0,0 +1,213 @@
+package me.clip.placeholderapi.cache;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.Values;
+import me.clip.placeholderapi.expansion.Memoizable;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ValueCacheUnitTester
+{
+
+	private static final String IDENTIFIER = "counter";
+
+
+	private final Map<String, PlaceholderHook> registry = new HashMap<>();
+	private final AtomicInteger                lookups  = new AtomicInteger();
+	private final AtomicLong                   nanos    = new AtomicLong();
+	private final ValueCache                   cache    = new ValueCache(identifier -> {
+		lookups.incrementAndGet();
+		return registry.get(identifier);
+	}, new Ticker()
+	{
+		@Override
+		public long read()
+		{
+			return nanos.get();
+		}
+	});
+
+
+	@Test
+	void testValuesAreReusedUntilTheyExpire()
+	{
+		final CountingHook hook = register(new MemoizableHook(1000));
+		final OfflinePlayer player = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+
+		assertEquals("1", request(hook, player));
+		assertEquals("1", request(hook, player));
+
+		nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+		assertEquals("1", request(hook, player));
+
+		nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		assertEquals("2", request(hook, player));
+	}
+
+	@Test
+	void testConfiguredDurationTakesPrecedenceOverMemoizable()
+	{
+		final CountingHook memoizable = register(new MemoizableHook(1000));
+
+		cache.configure(true, ValueCache.DEFAULT_MAXIMUM_SIZE, identifier -> 0L);
+		assertSame(memoizable, cache.decorate(IDENTIFIER, memoizable));
+
+		final CountingHook plain = new CountingHook();
+		registry.put(IDENTIFIER, plain);
+
+		cache.configure(true, ValueCache.DEFAULT_MAXIMUM_SIZE, identifier -> null);
+		assertSame(plain, cache.decorate(IDENTIFIER, plain));
+
+		cache.configure(true, ValueCache.DEFAULT_MAXIMUM_SIZE, identifier -> 1000L);
+
+		final OfflinePlayer player = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+		assertEquals("1", request(plain, player));
+		assertEquals("1", request(plain, player));
+	}
+
+	@Test
+	void testHookWithoutDurationIsLeftAlone()
+	{
+		final CountingHook hook = register(new CountingHook());
+
+		assertSame(hook, cache.decorate(IDENTIFIER, hook));
+		assertSame(hook, cache.decorate(IDENTIFIER, hook));
+
+		assertEquals(0, lookups.get());
+		assertTrue(cache.getStatistics().isEmpty());
+	}
+
+	@Test
+	void testInvalidatingPlayerOnlyDropsTheirValues()
+	{
+		final CountingHook hook = register(new MemoizableHook(1000));
+		final OfflinePlayer one = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+		final OfflinePlayer two = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+
+		assertEquals("1", request(hook, one));
+		assertEquals("2", request(hook, two));
+
+		cache.invalidate(one.getUniqueId());
+
+		assertEquals("3", request(hook, one));
+		assertEquals("2", request(hook, two));
+	}
+
+	@Test
+	void testUnregisteredHookIsNeverCached()
+	{
+		final CountingHook hook = register(new MemoizableHook(1000));
+		final OfflinePlayer player = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+
+		assertEquals("1", request(hook, player));
+
+		// a lookup that read the hook just before it was unregistered
+		registry.remove(IDENTIFIER);
+		cache.invalidate(IDENTIFIER);
+
+		assertSame(hook, cache.decorate(IDENTIFIER, hook));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void testReplacedHookGetsItsOwnCache()
+	{
+		final CountingHook one = register(new MemoizableHook(1000));
+		final OfflinePlayer player = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+
+		assertEquals("1", request(one, player));
+
+		final CountingHook two = register(new MemoizableHook(1000));
+
+		assertEquals("1", request(two, player));
+		assertEquals(1, cache.size());
+	}
+
+
+	@Test
+	void testMaximumSizeBoundsAllIdentifiers()
+	{
+		cache.configure(true, 10, identifier -> 1000L);
+
+		final OfflinePlayer player = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+		for (int i = 0; i < 5; i++)
+		{
+			final String       identifier = "counter" + i;
+			final CountingHook hook       = new CountingHook();
+			registry.put(identifier, hook);
+
+			for (int j = 0; j < 10; j++)
+			{
+				cache.decorate(identifier, hook).onRequest(player, "value" + j);
+			}
+		}
+
+		// guava evicts per concurrency segment, so the size may stay below the maximum
+		assertTrue(cache.size() <= 10);
+		assertEquals(50 - cache.size(), cache.getStatistics().values().stream().mapToLong(CacheStats::evictionCount).sum());
+	}
+
+
+	@NotNull
+	private CountingHook register(@NotNull final CountingHook hook)
+	{
+		registry.put(IDENTIFIER, hook);
+		return hook;
+	}
+
+	@Nullable
+	private String request(@NotNull final PlaceholderHook hook, @NotNull final OfflinePlayer player)
+	{
+		return cache.decorate(IDENTIFIER, hook).onRequest(player, "value");
+	}
+
+
+	private static class CountingHook extends PlaceholderHook
+	{
+
+		private final AtomicInteger requests = new AtomicInteger();
+
+
+		@Override
+		public String onRequest(final OfflinePlayer player, @NotNull final String params)
+		{
+			return String.valueOf(requests.incrementAndGet());
+		}
+
+	}
+
+	private static final class MemoizableHook extends CountingHook implements Memoizable
+	{
+
+		private final long duration;
+
+		private MemoizableHook(final long duration)
+		{
+			this.duration = duration;
+		}
+
+
+		@Override
+		public long getCacheDuration()
+		{
+			return duration;
+		}
+
+	}
+
+}
@@ -0,0 +1,200 @@
+package me.clip.placeholderapi.expansion;
+
+import me.clip.placeholderapi.PlaceholderAPI;
+import me.clip.placeholderapi.PlaceholderHook;
+import me.clip.placeholderapi.cache.RelationalCache;
+import me.clip.placeholderapi.cache.ValueCache;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ExpansionLoaderUnitTester
+{
+
+	private static final int  RELOADS          = 1_000;
+	private static final long METASPACE_GROWTH  = 16L * 1024 * 1024;
+
+
+	private Path             folder;
+	private File             jar;
+	private ExpansionIndex   index;
+	private ExpansionManager manager;
+
+
+	@BeforeEach
+	void setup() throws Exception
+	{
+		folder = Files.createTempDirectory("papi-loaders");
+
+		final Plugin plugin = TestServer.get().createPlugin(folder.toFile());
+		plugin.getLogger().setLevel(Level.WARNING);
+
+		manager = new ExpansionManager(plugin, identifier -> Optional.empty());
+		jar = SyntheticExpansions.createJars(manager.getFolder().toPath(), 1, 20)[0];
+		index = new ExpansionIndex(folder.resolve("index.json").toFile());
+
+		// every layer that could keep an unregistered expansion around
+		PlaceholderAPI.getValueCache().configure(true, ValueCache.DEFAULT_MAXIMUM_SIZE, identifier -> 60_000L);
+		PlaceholderAPI.getRelationalCache().configure(true, RelationalCache.DEFAULT_MAXIMUM_SIZE, identifier -> 60_000L);
+		PlaceholderAPI.getPlaceholderStatistics().configure(true, 1, true);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException
+	{
+		manager.unloadExpansions();
+
+		PlaceholderAPI.getValueCache().configure(true, ValueCache.DEFAULT_MAXIMUM_SIZE, identifier -> null);
+		PlaceholderAPI.getRelationalCache().configure(true, RelationalCache.DEFAULT_MAXIMUM_SIZE, identifier -> null);
+		PlaceholderAPI.getPlaceholderStatistics().setEnabled(false);
+		PlaceholderAPI.getPlaceholderStatistics().reset();
+
+		SyntheticExpansions.delete(folder);
+	}
+
+
+	@Test
+	void testReloadsDoNotLeakClassLoaders() throws Exception
+	{
+		reload(); // warms up the index and the classes shared by every reload
+		collect(new ArrayList<>());
+
+		final long before = getMetaspace();
+
+		final List<WeakReference<ClassLoader>> loaders = new ArrayList<>();
+		for (int i = 0; i < RELOADS; i++)
+		{
+			loaders.add(new WeakReference<>(reload()));
+		}
+
+		assertEquals(2 * (RELOADS + 1), PlaceholderAPI.getPlaceholderStatistics().getStatistics().get(SyntheticExpansions.IDENTIFIER).getCalls());
+		assertTrue(collect(loaders), "class loaders of unregistered expansions were not collected");
+
+		final long after = getMetaspace();
+		if (before >= 0 && after >= 0)
+		{
+			assertTrue(after - before < METASPACE_GROWTH, "metaspace grew by " + (after - before) + " bytes");
+		}
+	}
+
+	@Test
+	void testRetainedExpansionIsReported() throws Exception
+	{
+		final ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector();
+
+		final PlaceholderExpansion retained = load(detector);
+		collect(detector);
+
+		final List<String> leaks = detector.getLeaks(0);
+		assertEquals(1, leaks.size());
+		assertEquals(jar.getName(), leaks.get(0));
+		assertEquals(SyntheticExpansions.IDENTIFIER, retained.getIdentifier());
+	}
+
+
+	/**
+	 * Registers the expansion, requests one of its placeholders through the caches and statistics, and unregisters
+	 * it again
+	 *
+	 * @return The class loader of the unregistered expansion
+	 */
+	private ClassLoader reload()
+	{
+		assertNotNull(manager.registerExpansion(jar.getName()));
+
+		final PlaceholderHook hook = PlaceholderAPI.getPlaceholders().get(SyntheticExpansions.IDENTIFIER);
+		assertNotNull(hook);
+
+		assertEquals("value190", PlaceholderAPI.setPlaceholders(null, "%synthetic_value%"));
+		assertEquals("value190", PlaceholderAPI.setPlaceholders(null, "%synthetic_value%"));
+
+		manager.unloadExpansions();
+		assertNull(PlaceholderAPI.getPlaceholders().get(SyntheticExpansions.IDENTIFIER));
+
+		return hook.getClass().getClassLoader();
+	}
+
+	/**
+	 * Loads the expansion the way the manager does, and releases its class loader right away
+	 */
+	private PlaceholderExpansion load(final ClassLoaderLeakDetector detector) throws Exception
+	{
+		final ExpansionScanner.Result result = ExpansionScanner.scan(new File[]{jar}, index).get(0);
+		assertEquals(1, result.getClasses().size());
+
+		final ExpansionClassLoader loader = result.getLoader();
+		assertNotNull(loader);
+
+		try
+		{
+			return result.getClasses().get(0).getDeclaredConstructor().newInstance();
+		}
+		finally
+		{
+			detector.close(loader);
+		}
+	}
+
+	/**
+	 * @return true if every class loader was collected
+	 */
+	private static boolean collect(final List<WeakReference<ClassLoader>> loaders) throws InterruptedException
+	{
+		for (int i = 0; i < 20 && loaders.stream().anyMatch(loader -> loader.get() != null); i++)
+		{
+			System.gc();
+			Thread.sleep(50);
+		}
+
+		return loaders.stream().allMatch(loader -> loader.get() == null);
+	}
+
+	/**
+	 * @return true if every closed class loader was collected
+	 */
+	private static boolean collect(final ClassLoaderLeakDetector detector) throws InterruptedException
+	{
+		for (int i = 0; i < 20 && detector.size() > 0; i++)
+		{
+			System.gc();
+			Thread.sleep(50);
+		}
+
+		return detector.size() == 0;
+	}
+
+	/**
+	 * @return The used metaspace in bytes, or -1 if the vm has no metaspace pool
+	 */
+	private static long getMetaspace()
+	{
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (pool.getName().equals("Metaspace"))
+			{
+				return pool.getUsage().getUsed();
+			}
+		}
+
+		return -1;
+	}
+
+}
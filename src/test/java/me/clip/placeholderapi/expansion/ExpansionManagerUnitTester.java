@@ -0,0 +1,204 @@
+package me.clip.placeholderapi.expansion;
+
+import me.clip.placeholderapi.PlaceholderAPI;
+import me.clip.placeholderapi.PlaceholderHook;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ExpansionManagerUnitTester
+{
+
+	private Path             folder;
+	private Path             expansions;
+	private Plugin           plugin;
+	private ExpansionManager manager;
+
+
+	@BeforeEach
+	void setup() throws Exception
+	{
+		folder = Files.createTempDirectory("papi-manager");
+		plugin = TestServer.get().createPlugin(folder.toFile());
+		manager = new ExpansionManager(plugin, identifier -> Optional.empty());
+		expansions = manager.getFolder().toPath();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception
+	{
+		manager.unloadExpansions();
+		SyntheticExpansions.delete(folder);
+	}
+
+
+	@Test
+	void testReloadOnlyTouchesChangedExpansions() throws Exception
+	{
+		final File[] jars = SyntheticExpansions.createJars(expansions, "alpha", "bravo", "charlie", "delta", "echo");
+		plugin.getConfig().set("expansions.charlie.format", "before");
+
+		manager.registerAllExpansions();
+		assertEquals(set("alpha", "bravo", "charlie", "delta", "echo"), registered());
+
+		assertTrue(jars[1].setLastModified(jars[1].lastModified() - 60_000));
+		plugin.getConfig().set("expansions.charlie.format", "after");
+		assertTrue(jars[3].delete());
+		SyntheticExpansions.createJars(expansions, "foxtrot");
+
+		final ExpansionManager.ReloadResult result = manager.reloadExpansions();
+
+		assertEquals(set("bravo", "charlie"), new HashSet<>(result.getReloaded()));
+		assertEquals(set("foxtrot"), new HashSet<>(result.getAdded()));
+		assertEquals(set("delta"), new HashSet<>(result.getRemoved()));
+		assertEquals(2, result.getUnchanged());
+
+		assertEquals(set("alpha", "bravo", "charlie", "echo", "foxtrot"), registered());
+
+		final ExpansionManager.ReloadResult again = manager.reloadExpansions();
+
+		assertTrue(again.getReloaded().isEmpty() && again.getAdded().isEmpty() && again.getRemoved().isEmpty());
+		assertEquals(5, again.getUnchanged());
+	}
+
+
+	@Test
+	void testFirstRequestLoadsLazyExpansion() throws Exception
+	{
+		registerLazily(0, "alpha", "bravo");
+
+		assertTrue(hook("alpha") instanceof LazyExpansion);
+		assertEquals("1.0.0", manager.getExpansionVersion("alpha"));
+
+		assertEquals("value0", PlaceholderAPI.setPlaceholders(null, "%alpha_value%"));
+
+		final PlaceholderHook loaded = hook("alpha");
+		assertTrue(loaded instanceof PlaceholderExpansion);
+		assertSame(loaded, manager.getRegisteredExpansion("alpha"));
+		assertTrue(hook("bravo") instanceof LazyExpansion);
+
+		// commands on the main thread load the expansions they ask for
+		assertSame(manager.getRegisteredExpansion("bravo"), hook("bravo"));
+	}
+
+	@Test
+	void testRequestOffMainThreadIsDeferred() throws Exception
+	{
+		final TestServer server = TestServer.get();
+		registerLazily(0, "alpha");
+
+		assertEquals("%alpha_value%", CompletableFuture.supplyAsync(() -> PlaceholderAPI.setPlaceholders(null, "%alpha_value%")).get());
+		assertEquals("%alpha_value%", CompletableFuture.supplyAsync(() -> PlaceholderAPI.setPlaceholders(null, "%alpha_value%")).get());
+
+		assertEquals(1, server.getScheduled());
+		assertTrue(hook("alpha") instanceof LazyExpansion);
+
+		server.tick();
+
+		assertTrue(hook("alpha") instanceof PlaceholderExpansion);
+		assertEquals("value0", CompletableFuture.supplyAsync(() -> PlaceholderAPI.setPlaceholders(null, "%alpha_value%")).get());
+	}
+
+	@Test
+	void testFailedLoadKeepsStandIn() throws Exception
+	{
+		final File[] jars = registerLazily(0, "alpha");
+		final PlaceholderHook standIn = hook("alpha");
+
+		assertTrue(jars[0].delete());
+
+		assertEquals("%alpha_value%", PlaceholderAPI.setPlaceholders(null, "%alpha_value%"));
+		assertSame(standIn, hook("alpha"));
+		assertNotNull(manager.getExpansionJar("alpha"));
+
+		// the next request doesn't try again right away
+		assertEquals("%alpha_value%", PlaceholderAPI.setPlaceholders(null, "%alpha_value%"));
+		assertSame(standIn, hook("alpha"));
+	}
+
+	@Test
+	void testIdleExpansionIsUnloaded() throws Exception
+	{
+		final TestServer server = TestServer.get();
+		registerLazily(200, "alpha");
+
+		final PlaceholderHook standIn = hook("alpha");
+		assertEquals("value0", PlaceholderAPI.setPlaceholders(null, "%alpha_value%"));
+
+		server.tick();
+		assertTrue(hook("alpha") instanceof PlaceholderExpansion);
+
+		Thread.sleep(250);
+		server.tick();
+
+		assertSame(standIn, hook("alpha"));
+		assertNotNull(manager.getExpansionJar("alpha"));
+
+		assertEquals("value0", PlaceholderAPI.setPlaceholders(null, "%alpha_value%"));
+		assertTrue(hook("alpha") instanceof PlaceholderExpansion);
+	}
+
+
+	/**
+	 * Registers the jars once so the index knows their identifiers, then registers them again with stand ins
+	 *
+	 * @param idle Milliseconds after which loaded expansions are unloaded again, 0 to keep them loaded
+	 */
+	@NotNull
+	private File[] registerLazily(final long idle, @NotNull final String... identifiers) throws Exception
+	{
+		final File[] jars = SyntheticExpansions.createJars(expansions, identifiers);
+
+		manager.registerAllExpansions();
+		manager.unloadExpansions();
+
+		manager.configure(true, idle);
+		manager.registerAllExpansions();
+
+		return jars;
+	}
+
+	private static PlaceholderHook hook(@NotNull final String identifier)
+	{
+		return PlaceholderAPI.getPlaceholders().get(identifier);
+	}
+
+	@NotNull
+	private Set<String> registered()
+	{
+		final Set<String> identifiers = new HashSet<>();
+
+		for (final String identifier : Arrays.asList("alpha", "bravo", "charlie", "delta", "echo", "foxtrot"))
+		{
+			if (manager.getRegisteredExpansion(identifier) != null)
+			{
+				identifiers.add(identifier);
+			}
+		}
+
+		return identifiers;
+	}
+
+	@NotNull
+	private static Set<String> set(@NotNull final String... identifiers)
+	{
+		return new HashSet<>(Arrays.asList(identifiers));
+	}
+
+}
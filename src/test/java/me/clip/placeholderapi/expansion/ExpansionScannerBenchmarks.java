@@ -0,0 +1,103 @@
+package me.clip.placeholderapi.expansion;
+
+import me.clip.placeholderapi.util.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the discovery of a folder of synthetic expansion jars, each holding one expansion and a number of
+ * filler classes, scanned one after another, on the scanner's pool, and resolved through a warm index.
+ * <br>The sequential and parallel scans both put every jar in a cold index, so both hash every jar.
+ */
+@State(Scope.Benchmark)
+public class ExpansionScannerBenchmarks
+{
+
+	@Param({"8", "32"})
+	public int jars;
+
+	@Param({"50"})
+	public int classes;
+
+
+	private Path           folder;
+	private File[]         files;
+	private ExpansionIndex index;
+
+
+	@Setup
+	public void setup() throws IOException, InterruptedException
+	{
+		folder = Files.createTempDirectory("papi-expansions");
+		files = SyntheticExpansions.createJars(folder, jars, classes);
+
+		index = new ExpansionIndex(folder.resolve("index.json").toFile());
+		close(ExpansionScanner.scan(files, index));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		SyntheticExpansions.delete(folder);
+	}
+
+
+	@Benchmark
+	public int measureSequentialDiscovery() throws Exception
+	{
+		final ExpansionIndex cold = new ExpansionIndex(folder.resolve("cold.json").toFile());
+
+		int found = 0;
+		for (final File file : files)
+		{
+			final List<Class<? extends PlaceholderExpansion>> classes = FileUtil.getClassesInJar(file, PlaceholderExpansion.class);
+
+			// hashes the jar, like the scanner does for every jar missing from its index
+			cold.put(file, classes.stream().map(Class::getName).collect(Collectors.toList()));
+			found += classes.size();
+		}
+
+		return found;
+	}
+
+	@Benchmark
+	public int measureParallelDiscovery() throws IOException, InterruptedException
+	{
+		return close(ExpansionScanner.scan(files, new ExpansionIndex(folder.resolve("cold.json").toFile())));
+	}
+
+	@Benchmark
+	public int measureIndexedDiscovery() throws IOException, InterruptedException
+	{
+		return close(ExpansionScanner.scan(files, index));
+	}
+
+
+	private static int close(final List<ExpansionScanner.Result> results) throws IOException
+	{
+		int found = 0;
+		for (final ExpansionScanner.Result result : results)
+		{
+			found += result.getClasses().size();
+
+			if (result.getLoader() != null)
+			{
+				result.getLoader().close();
+			}
+		}
+
+		return found;
+	}
+
+}
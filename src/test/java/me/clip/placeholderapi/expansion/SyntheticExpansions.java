@@ -0,0 +1,170 @@
+package me.clip.placeholderapi.expansion;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Builds expansion jars for tests and benchmarks, each holding {@code synthetic.SyntheticExpansion} and a number
+ * of filler classes, which are all loaded once the expansion is created.
+ * <br>The expansion is identified by {@link #IDENTIFIER}, unless its jar holds a {@code synthetic/identifier} entry.
+ */
+final class SyntheticExpansions
+{
+
+	static final String CLASS_NAME = "synthetic.SyntheticExpansion";
+	static final String IDENTIFIER = "synthetic";
+
+
+	private SyntheticExpansions()
+	{ }
+
+
+	/**
+	 * @param folder  The folder to create the jars in
+	 * @param jars    The amount of jars
+	 * @param fillers The amount of filler classes in every jar
+	 * @return The jars, named {@code Expansion-<index>.jar}
+	 */
+	static File[] createJars(final Path folder, final int jars, final int fillers) throws IOException
+	{
+		final List<Path> compiled = compile(folder, fillers);
+
+		final File[] files = new File[jars];
+		for (int i = 0; i < jars; i++)
+		{
+			files[i] = createJar(folder, folder.resolve("Expansion-" + i + ".jar").toFile(), compiled, null);
+		}
+
+		return files;
+	}
+
+	/**
+	 * @param folder      The folder to create the jars in
+	 * @param identifiers The identifier of the expansion in every jar
+	 * @return The jars, named {@code <identifier>.jar}
+	 */
+	static File[] createJars(final Path folder, final String... identifiers) throws IOException
+	{
+		final List<Path> compiled = compile(folder, 0);
+
+		final File[] files = new File[identifiers.length];
+		for (int i = 0; i < identifiers.length; i++)
+		{
+			files[i] = createJar(folder, folder.resolve(identifiers[i] + ".jar").toFile(), compiled, identifiers[i]);
+		}
+
+		return files;
+	}
+
+	static void delete(final Path folder) throws IOException
+	{
+		try (final Stream<Path> stream = Files.walk(folder))
+		{
+			stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+
+	private static List<Path> compile(final Path folder, final int fillers) throws IOException
+	{
+		final Path sources = Files.createDirectories(folder.resolve("sources/synthetic"));
+		final Path output  = Files.createDirectories(folder.resolve("classes"));
+
+		final List<String> arguments = new ArrayList<>();
+		arguments.add("-d");
+		arguments.add(output.toString());
+		arguments.add("-cp");
+		arguments.add(System.getProperty("java.class.path"));
+
+		final StringBuilder constructor = new StringBuilder();
+		for (int i = 0; i < fillers; i++)
+		{
+			constructor.append("    total += new Filler").append(i).append("().get(\"value\");\n");
+
+			arguments.add(write(sources.resolve("Filler" + i + ".java"),
+								"package synthetic;\n" +
+								"public class Filler" + i + " {\n" +
+								"  private final java.util.Map<String, Integer> values = new java.util.HashMap<>();\n" +
+								"  public int get(String key) { return values.getOrDefault(key, " + i + "); }\n" +
+								"  public void put(String key, int value) { values.put(key, value + " + i + "); }\n" +
+								"  @Override public String toString() { return \"Filler" + i + "\" + values; }\n" +
+								"}\n"));
+		}
+
+		arguments.add(write(sources.resolve("SyntheticExpansion.java"),
+							"package synthetic;\n" +
+							"public class SyntheticExpansion extends me.clip.placeholderapi.expansion.PlaceholderExpansion {\n" +
+							"  private final int total;\n" +
+							"  public SyntheticExpansion() {\n" +
+							"    int total = 0;\n" +
+							constructor +
+							"    this.total = total;\n" +
+							"  }\n" +
+							"  private static final String IDENTIFIER = identifier();\n" +
+							"  private static String identifier() {\n" +
+							"    try (java.io.InputStream in = SyntheticExpansion.class.getResourceAsStream(\"identifier\")) {\n" +
+							"      return in == null ? \"" + IDENTIFIER + "\" : new java.io.BufferedReader(new java.io.InputStreamReader(in, \"UTF-8\")).readLine();\n" +
+							"    } catch (java.io.IOException ex) { throw new IllegalStateException(ex); }\n" +
+							"  }\n" +
+							"  public String getIdentifier() { return IDENTIFIER; }\n" +
+							"  public String getAuthor() { return \"PlaceholderAPI\"; }\n" +
+							"  public String getVersion() { return \"1.0.0\"; }\n" +
+							"  @Override public String onRequest(org.bukkit.OfflinePlayer player, String params) { return params + total; }\n" +
+							"}\n"));
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null || compiler.run(null, null, null, arguments.toArray(new String[0])) != 0)
+		{
+			throw new IllegalStateException("failed to compile the synthetic expansion classes");
+		}
+
+		final List<Path> compiled = new ArrayList<>();
+		try (final Stream<Path> stream = Files.walk(output))
+		{
+			stream.filter(Files::isRegularFile).forEach(compiled::add);
+		}
+
+		return compiled;
+	}
+
+	private static File createJar(final Path folder, final File jar, final List<Path> compiled, final String identifier) throws IOException
+	{
+		final Path output = folder.resolve("classes");
+
+		try (final JarOutputStream stream = new JarOutputStream(Files.newOutputStream(jar.toPath())))
+		{
+			for (final Path path : compiled)
+			{
+				stream.putNextEntry(new JarEntry(output.relativize(path).toString().replace(File.separatorChar, '/')));
+				Files.copy(path, stream);
+				stream.closeEntry();
+			}
+
+			if (identifier != null)
+			{
+				stream.putNextEntry(new JarEntry("synthetic/identifier"));
+				stream.write(identifier.getBytes(StandardCharsets.UTF_8));
+				stream.closeEntry();
+			}
+		}
+
+		return jar;
+	}
+
+	private static String write(final Path path, final String source) throws IOException
+	{
+		return Files.write(path, source.getBytes(StandardCharsets.UTF_8)).toString();
+	}
+
+}
@@ -0,0 +1,257 @@
+package me.clip.placeholderapi.expansion;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Stands in for the server while testing the {@link ExpansionManager}. Scheduled tasks only run when a test calls
+ * {@link #tick()}, and the thread which last called {@link #get()} is the main thread.
+ * <br>Bukkit only accepts a single server, so every test shares it.
+ */
+final class TestServer implements InvocationHandler
+{
+
+	private static final TestServer INSTANCE = new TestServer();
+
+
+	private final Logger          logger = Logger.getLogger("TestServer");
+	private final Queue<Task>     tasks  = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger   ids    = new AtomicInteger();
+	private final BukkitScheduler scheduler;
+	private final PluginManager   plugins;
+
+	private volatile Thread primary = Thread.currentThread();
+
+
+	private TestServer()
+	{
+		final ClassLoader loader = TestServer.class.getClassLoader();
+
+		this.scheduler = (BukkitScheduler) Proxy.newProxyInstance(loader, new Class<?>[]{BukkitScheduler.class}, this);
+		this.plugins = (PluginManager) Proxy.newProxyInstance(loader, new Class<?>[]{PluginManager.class}, this);
+
+		// the server version is read from the package of the server class, the proxy is defined in the package of
+		// the non public interface, like org.bukkit.craftbukkit.v1_16_R1 for the real server
+		Bukkit.setServer((Server) Proxy.newProxyInstance(loader, new Class<?>[]{Server.class, Craft.class}, this));
+	}
+
+
+	/**
+	 * @return The server, with no tasks scheduled and the calling thread as its main thread
+	 */
+	static TestServer get()
+	{
+		INSTANCE.tasks.clear();
+		INSTANCE.primary = Thread.currentThread();
+
+		return INSTANCE;
+	}
+
+	/**
+	 * Creates a plugin owning the expansions of a manager under test, its config only lives in memory.
+	 *
+	 * @param dataFolder The data folder of the plugin
+	 */
+	Plugin createPlugin(final File dataFolder)
+	{
+		return (Plugin) Proxy.newProxyInstance(TestServer.class.getClassLoader(), new Class<?>[]{Plugin.class}, new TestPlugin(dataFolder));
+	}
+
+	/**
+	 * Runs every scheduled task once, repeating tasks stay scheduled.
+	 *
+	 * @return The amount of tasks which ran
+	 */
+	int tick()
+	{
+		final List<Task> due = new ArrayList<>(tasks);
+
+		for (final Task task : due)
+		{
+			if (!task.repeating)
+			{
+				tasks.remove(task);
+			}
+
+			if (!task.cancelled)
+			{
+				task.runnable.run();
+			}
+		}
+
+		return due.size();
+	}
+
+	/**
+	 * @return The amount of scheduled tasks which were not cancelled
+	 */
+	int getScheduled()
+	{
+		return (int) tasks.stream().filter(task -> !task.cancelled).count();
+	}
+
+
+	@Override
+	public Object invoke(final Object proxy, final Method method, final Object[] args)
+	{
+		switch (method.getName())
+		{
+			case "getLogger":
+				return logger;
+			case "getName":
+			case "getVersion":
+			case "getBukkitVersion":
+				return "test";
+			case "isPrimaryThread":
+				return Thread.currentThread() == primary;
+			case "getScheduler":
+				return scheduler;
+			case "getPluginManager":
+				return plugins;
+			case "runTask":
+				return schedule((Plugin) args[0], (Runnable) args[1], false);
+			case "runTaskTimer":
+				return schedule((Plugin) args[0], (Runnable) args[1], true);
+			case "cancelTasks":
+				tasks.clear();
+				return null;
+			case "callEvent":
+			case "registerEvents":
+				return null;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "TestServer";
+			default:
+				throw new UnsupportedOperationException(method.toString());
+		}
+	}
+
+	private BukkitTask schedule(final Plugin owner, final Runnable runnable, final boolean repeating)
+	{
+		final Task task = new Task(ids.incrementAndGet(), owner, runnable, repeating);
+		tasks.add(task);
+
+		return task;
+	}
+
+
+	interface Craft
+	{ }
+
+	private static final class TestPlugin implements InvocationHandler
+	{
+
+		private final File              dataFolder;
+		private final Logger            logger = Logger.getAnonymousLogger();
+		private final YamlConfiguration config = new YamlConfiguration();
+
+
+		private TestPlugin(final File dataFolder)
+		{
+			this.dataFolder = dataFolder;
+		}
+
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args)
+		{
+			switch (method.getName())
+			{
+				case "getDataFolder":
+					return dataFolder;
+				case "getLogger":
+					return logger;
+				case "getConfig":
+					return config;
+				case "getName":
+					return "PlaceholderAPI";
+				case "isEnabled":
+					return true;
+				case "saveConfig":
+				case "reloadConfig":
+					return null;
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return "TestPlugin";
+				default:
+					throw new UnsupportedOperationException(method.toString());
+			}
+		}
+
+	}
+
+	private static final class Task implements BukkitTask
+	{
+
+		private final int      id;
+		private final Plugin   owner;
+		private final Runnable runnable;
+		private final boolean  repeating;
+
+		private volatile boolean cancelled;
+
+
+		private Task(final int id, final Plugin owner, final Runnable runnable, final boolean repeating)
+		{
+			this.id = id;
+			this.owner = owner;
+			this.runnable = runnable;
+			this.repeating = repeating;
+		}
+
+
+		@Override
+		public int getTaskId()
+		{
+			return id;
+		}
+
+		@Override
+		public Plugin getOwner()
+		{
+			return owner;
+		}
+
+		@Override
+		public boolean isSync()
+		{
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled()
+		{
+			return cancelled;
+		}
+
+		@Override
+		public void cancel()
+		{
+			cancelled = true;
+		}
+
+	}
+
+}
@@ -0,0 +1,67 @@
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CloudExpansionsUnitTester
+{
+
+	private final CloudExpansion  player   = expansion("Player", "clip");
+	private final CloudExpansion  world    = expansion("World Guard", "Clip");
+	private final CloudExpansion  server   = expansion("Server", "someone");
+	private final CloudExpansions snapshot = snapshot(server, world, player);
+
+
+	@Test
+	void testExpansionsAreFoundByName()
+	{
+		assertSame(player, snapshot.getExpansion("player"));
+		assertSame(world, snapshot.getExpansion("world_guard"));
+		assertSame(world, snapshot.getExpansion("WORLD GUARD"));
+		assertNull(snapshot.getExpansion("world"));
+
+		assertEquals(Arrays.asList("Player", "Server", "World Guard"), Arrays.asList(snapshot.getExpansions().keySet().toArray()));
+		assertEquals(ImmutableSet.of("Player", "Server", "World_Guard"), snapshot.getNames());
+	}
+
+	@Test
+	void testExpansionsAreFoundByAuthor()
+	{
+		assertEquals(ImmutableSet.of("Player", "World Guard"), snapshot.getByAuthor("CLIP").keySet());
+		assertEquals(ImmutableSet.of("Server"), snapshot.getByAuthor("someone").keySet());
+		assertTrue(snapshot.getByAuthor("nobody").isEmpty());
+
+		assertEquals(ImmutableSet.of("clip", "Clip", "someone"), snapshot.getAuthors());
+	}
+
+
+	private static CloudExpansion expansion(final String name, final String author)
+	{
+		final CloudExpansion expansion = new CloudExpansion();
+		expansion.setName(name);
+		expansion.setAuthor(author);
+
+		return expansion;
+	}
+
+	private static CloudExpansions snapshot(final CloudExpansion... expansions)
+	{
+		final Map<String, CloudExpansion> values = new LinkedHashMap<>();
+		for (final CloudExpansion expansion : expansions)
+		{
+			values.put(expansion.getName(), expansion);
+		}
+
+		return new CloudExpansions(values);
+	}
+
+}
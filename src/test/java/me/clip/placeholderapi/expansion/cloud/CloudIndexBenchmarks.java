@@ -0,0 +1,178 @@
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compares reading a large synthetic cloud index into a string and parsing it as a whole, like the index used to
+ * be read, with streaming it through the {@link CloudIndexReader}.
+ * <br>Every read is measured on its own, {@link Heap#peakBytes} is the most heap used while it ran above what was
+ * used before it started. The young generation is kept small, so garbage is collected long before it could add
+ * more than a few megabytes to the peak of a read, which leaves the heap the read actually retained at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 5)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseSerialGC", "-Xmn4m"})
+public class CloudIndexBenchmarks
+{
+
+	private static final Gson GSON = new Gson();
+	private static final Type TYPE = new TypeToken<Map<String, CloudExpansion>>() {}.getType();
+
+
+	@Param({"2000"})
+	public int expansions;
+
+	@Param({"20"})
+	public int versions;
+
+
+	private File file;
+
+
+	@Setup
+	public void setup() throws IOException
+	{
+		file = File.createTempFile("papi-ecloud", ".json");
+
+		try (final Writer writer = Files.newWriter(file, StandardCharsets.UTF_8))
+		{
+			writer.write('{');
+
+			for (int i = 0; i < expansions; i++)
+			{
+				if (i > 0)
+				{
+					writer.write(',');
+				}
+
+				writer.write("\"Expansion" + i + "\":{\"author\":\"author" + (i % 100) + "\",\"latest_version\":\"" + versions + ".0\"," +
+							 "\"verified\":" + (i % 2 == 0) + ",\"last_update\":1600000000000,\"description\":\"An expansion for tests\"," +
+							 "\"source_url\":\"https://example.com/source\",\"dependency_url\":\"https://example.com/dependency\"," +
+							 "\"average_rating\":4.5,\"ratings_count\":42,\"placeholders\":[\"%expansion_one%\",\"%expansion_two%\"],\"versions\":[");
+
+				for (int v = 1; v <= versions; v++)
+				{
+					if (v > 1)
+					{
+						writer.write(',');
+					}
+
+					writer.write("{\"version\":\"" + v + ".0\",\"url\":\"https://example.com/" + i + "/" + v + ".jar\",\"release_notes\":\"");
+					for (int n = 0; n < 20; n++)
+					{
+						writer.write("Fixed a bug. ");
+					}
+					writer.write("\"}");
+				}
+
+				writer.write("]}");
+			}
+
+			writer.write('}');
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		if (!file.delete())
+		{
+			file.deleteOnExit();
+		}
+	}
+
+
+	@Benchmark
+	public Map<String, CloudExpansion> measureWholeParse(final Heap heap) throws IOException
+	{
+		final Map<String, CloudExpansion> values = new HashMap<>(GSON.fromJson(Files.asCharSource(file, StandardCharsets.UTF_8).read(), TYPE));
+		values.values().removeIf(expansion -> !expansion.isVerified());
+
+		return values;
+	}
+
+	@Benchmark
+	public Map<String, CloudExpansion> measureStreamingParse(final Heap heap) throws IOException
+	{
+		try (final Reader reader = Files.newReader(file, StandardCharsets.UTF_8))
+		{
+			return CloudIndexReader.read(reader, false);
+		}
+	}
+
+
+	/**
+	 * Resets the peak usage of every heap pool before a read and reports how far it rose during the read.
+	 * <br>Reported as events, which are summed over the measured iterations, so only a single read is measured.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Heap
+	{
+
+		private final List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans()
+																	   .stream()
+																	   .filter(pool -> pool.getType() == MemoryType.HEAP)
+																	   .collect(Collectors.toList());
+
+		public long peakBytes;
+
+		private long before;
+
+
+		@Setup(Level.Invocation)
+		public void reset()
+		{
+			System.gc();
+
+			before = sum(MemoryPoolMXBean::getUsage);
+			pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+		}
+
+		@TearDown(Level.Invocation)
+		public void record()
+		{
+			peakBytes = sum(MemoryPoolMXBean::getPeakUsage) - before;
+		}
+
+		private long sum(final Function<MemoryPoolMXBean, MemoryUsage> usage)
+		{
+			return pools.stream().mapToLong(pool -> usage.apply(pool).getUsed()).sum();
+		}
+
+	}
+
+}
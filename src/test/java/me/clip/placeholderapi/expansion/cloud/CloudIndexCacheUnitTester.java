@@ -0,0 +1,182 @@
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.common.io.CharStreams;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CloudIndexCacheUnitTester
+{
+
+	private final AtomicInteger downloads = new AtomicInteger();
+
+	private volatile String index = "{\"first\":{}}";
+	private volatile String etag  = "\"1\"";
+	private volatile long   delay = 0;
+
+
+	private HttpServer server;
+	private URL        url;
+	private Path       folder;
+
+
+	@BeforeEach
+	void setup() throws IOException
+	{
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", exchange -> {
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+			{
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+
+			final byte[] body = index.getBytes(StandardCharsets.UTF_8);
+			downloads.incrementAndGet();
+
+			try
+			{
+				Thread.sleep(delay);
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			exchange.getResponseHeaders().set("ETag", etag);
+			exchange.sendResponseHeaders(200, body.length);
+
+			try (final OutputStream stream = exchange.getResponseBody())
+			{
+				stream.write(body);
+			}
+		});
+		server.start();
+
+		url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/v2/");
+		folder = Files.createTempDirectory("papi-cloud");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException
+	{
+		server.stop(0);
+
+		try (final Stream<Path> stream = Files.walk(folder))
+		{
+			stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+
+	@Test
+	void testUnchangedIndexIsNotDownloadedAgain() throws IOException
+	{
+		final CloudIndexCache first = cache();
+		assertNull(first.load(CharStreams::toString));
+		assertEquals(index, first.refresh(CharStreams::toString));
+
+		final CloudIndexCache second = cache();
+		assertEquals(index, second.load(CharStreams::toString));
+		assertNull(second.refresh(CharStreams::toString));
+
+		assertEquals(1, downloads.get());
+	}
+
+	@Test
+	void testChangedIndexIsDownloaded() throws IOException
+	{
+		cache().refresh(CharStreams::toString);
+
+		index = "{\"second\":{}}";
+		etag = "\"2\"";
+
+		final CloudIndexCache cache = cache();
+		assertEquals("{\"first\":{}}", cache.load(CharStreams::toString));
+		assertEquals(index, cache.refresh(CharStreams::toString));
+		assertEquals(index, cache().load(CharStreams::toString));
+
+		assertEquals(2, downloads.get());
+	}
+
+	@Test
+	void testInvalidatedIndexIsDownloaded() throws IOException
+	{
+		cache().refresh(CharStreams::toString);
+
+		final CloudIndexCache cache = cache();
+		cache.load(CharStreams::toString);
+		cache.invalidate();
+
+		assertEquals(index, cache.refresh(CharStreams::toString));
+		assertEquals(2, downloads.get());
+	}
+
+	@Test
+	void testOverlappingRefreshesDownloadOnce() throws Exception
+	{
+		delay = 200;
+
+		final CloudIndexCache cache    = cache();
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try
+		{
+			final Callable<String> refresh = () -> cache.refresh(CharStreams::toString);
+			final List<String>     results = new ArrayList<>();
+
+			for (final Future<String> future : executor.invokeAll(Arrays.asList(refresh, refresh)))
+			{
+				results.add(future.get());
+			}
+
+			// the refresh which waited only asked whether the index changed
+			assertTrue(results.contains(index) && results.contains(null));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, downloads.get());
+		assertEquals(index, cache().load(CharStreams::toString));
+
+		try (final Stream<Path> stream = Files.list(folder))
+		{
+			assertTrue(stream.noneMatch(path -> path.toString().endsWith(".tmp")));
+		}
+	}
+
+
+	private CloudIndexCache cache()
+	{
+		return new CloudIndexCache(url, folder.resolve("ecloud.index.json").toFile());
+	}
+
+}
@@ -0,0 +1,57 @@
+package me.clip.placeholderapi.expansion.cloud;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CloudIndexReaderUnitTester
+{
+
+	private static final String INDEX = "{" +
+										"\"Player\": {\"author\": \"clip\", \"latest_version\": \"2.0\", \"verified\": true, \"last_update\": 1600000000000," +
+										" \"source_url\": \"https://example.com\", \"ratings_count\": 3, \"unknown\": {\"nested\": [1, 2]}," +
+										" \"placeholders\": [\"%player_name%\", \"%player_x%\"]," +
+										" \"versions\": [{\"version\": \"1.0\", \"url\": \"one\", \"release_notes\": \"first\"}, {\"version\": \"2.0\", \"url\": \"two\", \"release_notes\": null}]}," +
+										"\"Unverified\": {\"author\": \"someone\", \"latest_version\": \"1.0\", \"verified\": false, \"versions\": [{\"version\": \"1.0\", \"url\": \"one\"}]}," +
+										"\"Missing\": {\"author\": \"clip\", \"latest_version\": \"3.0\", \"verified\": true, \"versions\": [{\"version\": \"1.0\", \"url\": \"one\"}]}" +
+										"}";
+
+
+	@Test
+	void testVerifiedExpansionsAreRead() throws IOException
+	{
+		final Map<String, CloudExpansion> expansions = CloudIndexReader.read(new StringReader(INDEX), false);
+		assertEquals(1, expansions.size());
+
+		final CloudExpansion player = expansions.get("Player");
+		assertEquals("Player", player.getName());
+		assertEquals("clip", player.getAuthor());
+		assertTrue(player.isVerified());
+		assertEquals(1600000000000L, player.getLastUpdate());
+		assertEquals(Arrays.asList("%player_name%", "%player_x%"), player.getPlaceholders());
+		assertEquals(Arrays.asList("1.0", "2.0"), player.getAvailableVersions());
+		assertEquals("two", player.getVersion().getUrl());
+		assertEquals("first", player.getVersion("1.0").getReleaseNotes());
+		assertNull(player.getVersion().getReleaseNotes());
+		assertNull(player.getSourceUrl());
+	}
+
+	@Test
+	void testUnverifiedExpansionsAreReadIfAllowed() throws IOException
+	{
+		final Map<String, CloudExpansion> expansions = CloudIndexReader.read(new StringReader(INDEX), true);
+
+		assertEquals(2, expansions.size());
+		assertFalse(expansions.get("Unverified").isVerified());
+		assertFalse(expansions.containsKey("Missing"));
+	}
+
+}
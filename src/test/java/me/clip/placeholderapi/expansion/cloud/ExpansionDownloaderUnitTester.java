@@ -0,0 +1,318 @@
+package me.clip.placeholderapi.expansion.cloud;
+
+import com.google.common.hash.Hashing;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class ExpansionDownloaderUnitTester
+{
+
+	private static final int JARS        = 8;
+	private static final int CONCURRENCY = 2;
+
+
+	private final byte[]        jar     = new byte[64 * 1024];
+	private final AtomicInteger active  = new AtomicInteger();
+	private final AtomicInteger maximum = new AtomicInteger();
+	private final AtomicInteger failing = new AtomicInteger();
+	private final AtomicInteger cutting = new AtomicInteger();
+	private final AtomicInteger served  = new AtomicInteger();
+	private final List<String>  ranges  = new CopyOnWriteArrayList<>();
+
+
+	private HttpServer server;
+	private String     url;
+	private Path       folder;
+
+
+	@BeforeEach
+	void setup() throws IOException
+	{
+		new Random(42).nextBytes(jar);
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+
+		server.createContext("/jars/", exchange -> {
+			maximum.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+			try
+			{
+				Thread.sleep(50);
+
+				if (failing.getAndDecrement() > 0)
+				{
+					exchange.sendResponseHeaders(503, -1);
+					return;
+				}
+
+				served.incrementAndGet();
+				exchange.getResponseHeaders().set("ETag", "\"jar\"");
+
+				final String range = exchange.getRequestHeaders().getFirst("Range");
+				if (range != null)
+				{
+					ranges.add(range + " " + exchange.getRequestHeaders().getFirst("If-Range"));
+
+					final int offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+					exchange.getResponseHeaders().set("Content-Range", "bytes " + offset + "-" + (jar.length - 1) + "/" + jar.length);
+					exchange.sendResponseHeaders(206, jar.length - offset);
+
+					try (final OutputStream stream = exchange.getResponseBody())
+					{
+						stream.write(jar, offset, jar.length - offset);
+					}
+					return;
+				}
+
+				exchange.sendResponseHeaders(200, jar.length);
+
+				final OutputStream stream = exchange.getResponseBody();
+				if (cutting.getAndDecrement() > 0)
+				{
+					stream.write(jar, 0, jar.length / 2);
+					stream.flush();
+
+					return; // closing the exchange before the whole body was written drops the connection
+				}
+
+				stream.write(jar);
+				stream.close();
+			}
+			catch (final InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+			finally
+			{
+				active.decrementAndGet();
+				exchange.close();
+			}
+		});
+		server.createContext("/missing/", exchange -> {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.start();
+
+		url = "http://127.0.0.1:" + server.getAddress().getPort();
+		folder = Files.createTempDirectory("papi-downloads");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException
+	{
+		server.stop(0);
+
+		try (final Stream<Path> stream = Files.walk(folder))
+		{
+			stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+
+	@Test
+	void testDownloadsAreBounded() throws Exception
+	{
+		final ExpansionDownloader downloader = new ExpansionDownloader(CONCURRENCY, 0, 10);
+
+		final List<CompletableFuture<File>> downloads = new ArrayList<>();
+		for (int i = 0; i < JARS; i++)
+		{
+			downloads.add(downloader.download(new URL(url + "/jars/" + i + ".jar"), folder.resolve("Expansion-" + i + ".jar").toFile(), 0, null, ExpansionCloudManager.DownloadListener.NONE));
+		}
+
+		for (final CompletableFuture<File> download : downloads)
+		{
+			assertArrayEquals(jar, Files.readAllBytes(download.get(10, TimeUnit.SECONDS).toPath()));
+		}
+
+		assertEquals(CONCURRENCY, maximum.get());
+		assertOnlyJars(JARS);
+	}
+
+	@Test
+	void testFailedDownloadsAreRetried() throws Exception
+	{
+		failing.set(2);
+
+		final AtomicInteger retries  = new AtomicInteger();
+		final AtomicInteger complete = new AtomicInteger();
+
+		final ExpansionCloudManager.DownloadListener listener = new ExpansionCloudManager.DownloadListener()
+		{
+			@Override
+			public void retry(final int attempt, final long delay, final Throwable error)
+			{
+				assertEquals(10L << (attempt - 1), delay);
+				retries.incrementAndGet();
+			}
+
+			@Override
+			public void complete(final File file, final long bytes, final long millis)
+			{
+				assertEquals(jar.length, bytes);
+				complete.incrementAndGet();
+			}
+		};
+
+		final File file = new ExpansionDownloader(1, 3, 10).download(new URL(url + "/jars/retry.jar"), folder.resolve("Expansion-retry.jar").toFile(), jar.length, hash(jar), listener).get(10, TimeUnit.SECONDS);
+
+		assertArrayEquals(jar, Files.readAllBytes(file.toPath()));
+		assertEquals(2, retries.get());
+		assertEquals(1, complete.get());
+		assertOnlyJars(1);
+	}
+
+	@Test
+	void testMissingDownloadsAreNotRetried() throws Exception
+	{
+		final AtomicInteger retries = new AtomicInteger();
+
+		final ExpansionCloudManager.DownloadListener listener = new ExpansionCloudManager.DownloadListener()
+		{
+			@Override
+			public void retry(final int attempt, final long delay, final Throwable error)
+			{
+				retries.incrementAndGet();
+			}
+		};
+
+		final CompletableFuture<File> download = new ExpansionDownloader(1, 3, 10).download(new URL(url + "/missing/x.jar"), folder.resolve("Expansion-x.jar").toFile(), 0, null, listener);
+
+		final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.get(10, TimeUnit.SECONDS));
+		assertTrue(ex.getCause() instanceof IOException);
+		assertEquals(0, retries.get());
+		assertOnlyJars(0);
+	}
+
+
+	@Test
+	void testInterruptedDownloadsAreResumed() throws Exception
+	{
+		cutting.set(1);
+
+		final File file = new ExpansionDownloader(1, 1, 10).download(new URL(url + "/jars/resume.jar"), folder.resolve("Expansion-resume.jar").toFile(), 0, null, ExpansionCloudManager.DownloadListener.NONE).get(10, TimeUnit.SECONDS);
+
+		assertArrayEquals(jar, Files.readAllBytes(file.toPath()));
+		assertEquals(1, ranges.size());
+		assertTrue(ranges.get(0).endsWith(" \"jar\""), ranges.get(0));
+		assertOnlyJars(1);
+	}
+
+	@Test
+	void testCorruptDownloadsAreRejected() throws Exception
+	{
+		final CompletableFuture<File> download = new ExpansionDownloader(1, 0, 10).download(new URL(url + "/jars/corrupt.jar"), folder.resolve("Expansion-corrupt.jar").toFile(), jar.length, hash(new byte[1]), ExpansionCloudManager.DownloadListener.NONE);
+
+		final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.get(10, TimeUnit.SECONDS));
+		assertTrue(ex.getCause() instanceof IOException);
+		assertOnlyJars(0);
+	}
+
+	@Test
+	void testMatchingJarsAreNotDownloaded() throws Exception
+	{
+		final File target = folder.resolve("Expansion-current.jar").toFile();
+		Files.write(target.toPath(), jar);
+
+		final AtomicInteger skipped = new AtomicInteger();
+
+		final ExpansionCloudManager.DownloadListener listener = new ExpansionCloudManager.DownloadListener()
+		{
+			@Override
+			public void skipped(final File file)
+			{
+				skipped.incrementAndGet();
+			}
+		};
+
+		new ExpansionDownloader(1, 0, 10).download(new URL(url + "/jars/current.jar"), target, jar.length, hash(jar), listener).get(10, TimeUnit.SECONDS);
+
+		assertEquals(1, skipped.get());
+		assertEquals(0, served.get());
+	}
+
+	@Test
+	void testSharedCacheIsUsedByEveryServer() throws Exception
+	{
+		final AtomicInteger cached = new AtomicInteger();
+
+		final ExpansionCloudManager.DownloadListener listener = new ExpansionCloudManager.DownloadListener()
+		{
+			@Override
+			public void cached(final File file)
+			{
+				cached.incrementAndGet();
+			}
+		};
+
+		final List<CompletableFuture<File>> downloads = new ArrayList<>();
+		for (int i = 0; i < 4; i++)
+		{
+			final ExpansionDownloader server = new ExpansionDownloader(1, 0, 10);
+			server.configure(1, 0, folder.resolve("cache").toFile());
+
+			final File expansions = Files.createDirectories(folder.resolve("server-" + i)).toFile();
+			downloads.add(server.download(new URL(url + "/jars/shared.jar"), new File(expansions, "Expansion-shared.jar"), 0, null, listener));
+		}
+
+		for (final CompletableFuture<File> download : downloads)
+		{
+			assertArrayEquals(jar, Files.readAllBytes(download.get(10, TimeUnit.SECONDS).toPath()));
+		}
+
+		assertEquals(1, served.get());
+		assertEquals(3, cached.get());
+	}
+
+
+	private static String hash(final byte[] bytes)
+	{
+		return Hashing.sha256().hashBytes(bytes).toString();
+	}
+
+	/**
+	 * No temporary or part files are left behind
+	 */
+	private void assertOnlyJars(final int jars) throws IOException
+	{
+		try (final Stream<Path> stream = Files.list(folder))
+		{
+			final List<Path> files = new ArrayList<>();
+			stream.forEach(files::add);
+
+			assertEquals(jars, files.size());
+			assertFalse(files.stream().anyMatch(path -> !path.toString().endsWith(".jar")));
+		}
+	}
+
+}
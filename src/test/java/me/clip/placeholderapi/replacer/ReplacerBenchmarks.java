@@ -1,17 +1,49 @@
 package me.clip.placeholderapi.replacer;
 
+import me.clip.placeholderapi.PlaceholderAPI;
 import me.clip.placeholderapi.Values;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 
+/**
+ * Run with {@code -prof gc} to compare the allocation rate of the replacers, the plain text, the indexed and the
+ * {@link PlaceholderAPI} benchmarks measure the allocation free paths. The indexed benchmarks resolve identifiers
+ * from a range of the text like {@link PlaceholderAPI} does, instead of through a substring.
+ */
+@State(Scope.Benchmark)
 public class ReplacerBenchmarks
 {
 
+	private final StringBuilder target = new StringBuilder(1024);
+
+	@Setup
+	public void setup()
+	{
+		Values.PLACEHOLDERS.forEach(PlaceholderAPI::registerPlaceholderHook);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		Values.PLACEHOLDERS.keySet().forEach(PlaceholderAPI::unregisterPlaceholderHook);
+	}
+
+
 	@Benchmark
 	public void measureCharsReplacerSmallText()
 	{
 		Values.CHARS_REPLACER.apply(Values.SMALL_TEXT, null, Values.PLACEHOLDERS::get);
 	}
 
+	@Benchmark
+	public String measureCharsReplacerSmallTextIndexed()
+	{
+		return Values.CHARS_REPLACER.apply(Values.SMALL_TEXT, null, Values.INDEXED_LOOKUP);
+	}
+
 	@Benchmark
 	public void measureRegexReplacerSmallText()
 	{
@@ -24,6 +56,12 @@ public class ReplacerBenchmarks
 		Values.CHARS_REPLACER.apply(Values.LARGE_TEXT, null, Values.PLACEHOLDERS::get);
 	}
 
+	@Benchmark
+	public String measureCharsReplacerLargeTextIndexed()
+	{
+		return Values.CHARS_REPLACER.apply(Values.LARGE_TEXT, null, Values.INDEXED_LOOKUP);
+	}
+
 	@Benchmark
 	public void measureRegexReplacerLargeText()
 	{
@@ -42,4 +80,55 @@ public class ReplacerBenchmarks
 		Values.TESTS_REPLACER.apply(Values.LARGE_TEXT, null, Values.PLACEHOLDERS::get);
 	}
 
-}
\ No newline at end of file
+	@Benchmark
+	public void measureParsedTemplateSmallText()
+	{
+		Values.SMALL_TEMPLATE.apply(null, Values.PLACEHOLDERS::get);
+	}
+
+	@Benchmark
+	public void measureParsedTemplateLargeText()
+	{
+		Values.LARGE_TEMPLATE.apply(null, Values.PLACEHOLDERS::get);
+	}
+
+	@Benchmark
+	public String measureCharsReplacerPlainText()
+	{
+		return Values.CHARS_REPLACER.apply(Values.PLAIN_TEXT, null, Values.PLACEHOLDERS::get);
+	}
+
+	@Benchmark
+	public String measureCharsReplacerPlainTextIndexed()
+	{
+		return Values.CHARS_REPLACER.apply(Values.PLAIN_TEXT, null, Values.INDEXED_LOOKUP);
+	}
+
+	@Benchmark
+	public String measurePlaceholderAPISmallText()
+	{
+		return PlaceholderAPI.setPlaceholders(null, Values.SMALL_TEXT);
+	}
+
+	@Benchmark
+	public String measurePlaceholderAPILargeText()
+	{
+		return PlaceholderAPI.setPlaceholders(null, Values.LARGE_TEXT);
+	}
+
+	@Benchmark
+	public String measureRelationalReplacer()
+	{
+		return Values.RELATIONAL_REPLACER.apply(Values.RELATIONAL_TEXT, null, null, Values.PLACEHOLDERS::get, true);
+	}
+
+	@Benchmark
+	public int measurePlaceholderAPILargeTextIntoBuilder()
+	{
+		target.setLength(0);
+		PlaceholderAPI.setPlaceholders(null, Values.LARGE_TEXT, target);
+
+		return target.length();
+	}
+
+}
@@ -1,13 +1,38 @@
 package me.clip.placeholderapi.replacer;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Table;
+import me.clip.placeholderapi.PlaceholderAPI;
+import me.clip.placeholderapi.PlaceholderHook;
 import me.clip.placeholderapi.Values;
+import org.bukkit.ChatColor;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
 import static me.clip.placeholderapi.Values.MockPlayerPlaceholderHook.PLAYER_NAME;
 import static me.clip.placeholderapi.Values.MockPlayerPlaceholderHook.PLAYER_X;
 import static me.clip.placeholderapi.Values.MockPlayerPlaceholderHook.PLAYER_Y;
 import static me.clip.placeholderapi.Values.MockPlayerPlaceholderHook.PLAYER_Z;
+import static me.clip.placeholderapi.Values.MockRelationalPlaceholderHook.RELATION;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public final class ReplacerUnitTester
 {
@@ -64,4 +89,241 @@ public final class ReplacerUnitTester
 		assertEquals(text, Values.CHARS_REPLACER.apply(text, null, Values.PLACEHOLDERS::get));
 	}
 
+	@Test
+	void testParsedTemplateProducesExpectedSentence()
+	{
+		assertEquals(Values.CHARS_REPLACER.apply(Values.LARGE_TEXT, null, Values.PLACEHOLDERS::get), Values.LARGE_TEMPLATE.apply(null, Values.PLACEHOLDERS::get));
+	}
+
+	@Test
+	void testParsedTemplateIsTheSameAsCharsReplacer()
+	{
+		final String[] texts = {
+				"&aMy name is %player_name%&r, &x&f&f&0&0&0&0hex and \\&xescaped",
+				"10% and %hello world 15%",
+				"%player_location% %player% %% &%player_name% &x12",
+				"trailing %player_name"
+		};
+
+		for (final String text : texts)
+		{
+			assertEquals(Values.CHARS_REPLACER.apply(text, null, Values.PLACEHOLDERS::get), Values.CHARS_REPLACER.compile(text).apply(null, Values.PLACEHOLDERS::get));
+		}
+	}
+
+	@Test
+	void testCharsReplacerReturnsSameInstanceWithoutPlaceholders()
+	{
+		assertSame(Values.PLAIN_TEXT, Values.CHARS_REPLACER.apply(Values.PLAIN_TEXT, null, Values.PLACEHOLDERS::get));
+		assertSame(Values.PLAIN_TEXT, Values.CHARS_REPLACER.compile(Values.PLAIN_TEXT).apply(null, Values.PLACEHOLDERS::get));
+	}
+
+	@Test
+	void testCharsReplacerKeepsUnknownPlaceholdersAsTheyAre()
+	{
+		final String text = "100% sure that %player_location% and {player_name} stay";
+
+		assertSame(text, Values.CHARS_REPLACER.apply(text, null, Values.PLACEHOLDERS::get));
+	}
+
+	@Test
+	void testReplacersAppendToTheTarget()
+	{
+		final String expected = Values.CHARS_REPLACER.apply(Values.LARGE_TEXT, null, Values.PLACEHOLDERS::get);
+
+		final StringBuilder chars = new StringBuilder("> ");
+		Values.CHARS_REPLACER.apply(new StringBuilder(Values.LARGE_TEXT), null, Values.PLACEHOLDERS::get, chars);
+
+		final StringBuilder regex = new StringBuilder("> ");
+		Values.REGEX_REPLACER.apply(new StringBuilder(Values.LARGE_TEXT), null, Values.PLACEHOLDERS::get, regex);
+
+		assertEquals("> " + expected, chars.toString());
+		assertEquals("> " + expected, regex.toString());
+	}
+
+	@Test
+	void testCharsReplacerBatchRequestsEachPlaceholderOnce()
+	{
+		final List<String> lines = Arrays.asList(Values.SMALL_TEXT, Values.LARGE_TEXT, "%player_name% and %player_unknown%", Values.PLAIN_TEXT);
+		final Batch        batch = new Batch();
+
+		final List<String> translated = Values.CHARS_REPLACER.apply(lines, null, Values.PLACEHOLDERS::get, batch);
+
+		for (int i = 0; i < lines.size(); i++)
+		{
+			assertEquals(Values.CHARS_REPLACER.apply(lines.get(i), null, Values.PLACEHOLDERS::get), translated.get(i));
+		}
+
+		assertEquals(6, batch.getLookups());
+		assertEquals(2, batch.getSavedLookups());
+	}
+
+	@Test
+	void testListsAreTranslatedLineByLineUnlessBatched()
+	{
+		final AtomicInteger requests = new AtomicInteger();
+		final List<String>  lines    = Arrays.asList("%counter_next%", "%counter_next%");
+
+		PlaceholderAPI.registerPlaceholderHook("counter", new PlaceholderHook()
+		{
+			@Override
+			public String onRequest(final OfflinePlayer player, @NotNull final String params)
+			{
+				return String.valueOf(requests.incrementAndGet());
+			}
+		});
+
+		try
+		{
+			assertEquals(Arrays.asList("1", "2"), PlaceholderAPI.setPlaceholders(null, lines));
+			assertEquals(Arrays.asList("3", "3"), PlaceholderAPI.setPlaceholders(null, lines, new Batch()));
+		}
+		finally
+		{
+			PlaceholderAPI.unregisterPlaceholderHook("counter");
+		}
+	}
+
+	@Test
+	void testParsedTemplateRequestsPlayerIndependentPlaceholdersOnce()
+	{
+		final AtomicInteger server = new AtomicInteger();
+		final AtomicInteger player = new AtomicInteger();
+
+		final Map<String, PlaceholderHook> placeholders = ImmutableMap.of(
+				"server", new PlaceholderHook()
+				{
+					@Override
+					public String onRequest(final OfflinePlayer target, final String params)
+					{
+						return String.valueOf(server.incrementAndGet());
+					}
+				},
+				"player", new PlaceholderHook()
+				{
+					@Override
+					public String onRequest(final OfflinePlayer target, final String params)
+					{
+						return String.valueOf(player.incrementAndGet());
+					}
+				});
+
+		final OfflinePlayer one = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+		final OfflinePlayer two = Values.mockPlayer(OfflinePlayer.class, UUID.randomUUID());
+
+		final Map<OfflinePlayer, String> translated = Values.CHARS_REPLACER.compile("%server_online% %player_name% %server_online%")
+																		   .apply(Arrays.asList(one, two), placeholders::get, (identifier, params) -> identifier.equals("server"));
+
+		assertEquals("1 1 1", translated.get(one));
+		assertEquals("1 2 1", translated.get(two));
+		assertEquals(1, server.get());
+		assertEquals(2, player.get());
+	}
+
+
+	@Test
+	void testParsedTemplateDefersPlaceholdersThatAreNotThreadSafe()
+	{
+		final List<Runnable> mainThread = new ArrayList<>();
+
+		final CompletableFuture<String> safe   = Values.LARGE_TEMPLATE.applyAsync(null, Values.PLACEHOLDERS::get, identifier -> true, mainThread::add);
+		final CompletableFuture<String> unsafe = Values.LARGE_TEMPLATE.applyAsync(null, Values.PLACEHOLDERS::get, identifier -> false, mainThread::add);
+
+		assertTrue(safe.isDone());
+		assertFalse(unsafe.isDone());
+
+		mainThread.forEach(Runnable::run);
+
+		assertEquals(Values.LARGE_TEMPLATE.apply(null, Values.PLACEHOLDERS::get), safe.join());
+		assertEquals(Values.LARGE_TEMPLATE.apply(null, Values.PLACEHOLDERS::get), unsafe.join());
+	}
+
+	@Test
+	void testParsedTemplateCompletesWhenDeferredTaskIsCancelled()
+	{
+		final List<Runnable> mainThread = new ArrayList<>();
+
+		final CompletableFuture<String> unsafe = Values.LARGE_TEMPLATE.applyAsync(null, Values.PLACEHOLDERS::get, identifier -> false, mainThread::add);
+
+		mainThread.forEach(task -> ((Future<?>) task).cancel(false));
+
+		assertTrue(unsafe.isCompletedExceptionally());
+	}
+
+
+	@Test
+	void testRelationalReplacerProducesExpectedSentence()
+	{
+		assertEquals(ChatColor.COLOR_CHAR + "7" + RELATION + " with %player_name%, %rel_friends_unknown% and %rel_enemies_relation%",
+					 Values.RELATIONAL_REPLACER.apply(Values.RELATIONAL_TEXT, null, null, Values.PLACEHOLDERS::get, true));
+	}
+
+	@Test
+	void testRelationalReplacerKeepsColorCodesWhenNotColorizing()
+	{
+		assertEquals("&7" + RELATION + " with %player_name%, %rel_friends_unknown% and %rel_enemies_relation%",
+					 Values.RELATIONAL_REPLACER.apply(Values.RELATIONAL_TEXT, null, null, Values.PLACEHOLDERS::get, false));
+	}
+
+
+	@Test
+	void testRelationalReplacerRequestsEachViewerOnce()
+	{
+		final AtomicInteger requests = new AtomicInteger();
+
+		final PlaceholderHook hook = new Values.MockRelationalPlaceholderHook()
+		{
+			@Override
+			public Map<Player, String> onPlaceholderRequests(final Player one, final Collection<? extends Player> others, final String identifier)
+			{
+				requests.incrementAndGet();
+				return super.onPlaceholderRequests(one, others, identifier);
+			}
+		};
+
+		final List<Player> viewers = Arrays.asList(Values.mockPlayer(Player.class, UUID.randomUUID()), Values.mockPlayer(Player.class, UUID.randomUUID()));
+		final List<Player> targets = Arrays.asList(Values.mockPlayer(Player.class, UUID.randomUUID()), Values.mockPlayer(Player.class, UUID.randomUUID()), Values.mockPlayer(Player.class, UUID.randomUUID()));
+
+		final String                                      text   = Values.RELATIONAL_TEXT + " %rel_friends_relation%";
+		final Function<String, @Nullable PlaceholderHook> lookup = identifier -> identifier.equals("friends") ? hook : null;
+
+		final Table<Player, Player, String> translated = Values.RELATIONAL_REPLACER.applyForEach(text, viewers, targets, lookup, true);
+
+		assertEquals(viewers.size() * targets.size(), translated.size());
+		assertEquals(viewers.size() * 2, requests.get()); // relation and unknown, once per viewer
+
+		for (final Table.Cell<Player, Player, String> cell : translated.cellSet())
+		{
+			assertEquals(Values.RELATIONAL_REPLACER.apply(text, cell.getRowKey(), cell.getColumnKey(), lookup, true), cell.getValue());
+		}
+	}
+
+	@Test
+	void testRelationalReplacerRequestsTargetsLeftOutOneByOne()
+	{
+		final List<Player> viewers = Arrays.asList(Values.mockPlayer(Player.class, UUID.randomUUID()), Values.mockPlayer(Player.class, UUID.randomUUID()));
+		final List<Player> targets = Arrays.asList(Values.mockPlayer(Player.class, UUID.randomUUID()), Values.mockPlayer(Player.class, UUID.randomUUID()), Values.mockPlayer(Player.class, UUID.randomUUID()));
+
+		final PlaceholderHook hook = new Values.MockRelationalPlaceholderHook()
+		{
+			@Override
+			public Map<Player, String> onPlaceholderRequests(final Player one, final Collection<? extends Player> others, final String identifier)
+			{
+				// the first viewer gets nothing at all, the second only the first target
+				return one == viewers.get(0) ? null : Collections.singletonMap(targets.get(0), onPlaceholderRequest(one, targets.get(0), identifier));
+			}
+		};
+
+		final Function<String, @Nullable PlaceholderHook> lookup = identifier -> identifier.equals("friends") ? hook : null;
+
+		final Table<Player, Player, String> translated = Values.RELATIONAL_REPLACER.applyForEach(Values.RELATIONAL_TEXT, viewers, targets, lookup, true);
+
+		assertEquals(viewers.size() * targets.size(), translated.size());
+
+		for (final Table.Cell<Player, Player, String> cell : translated.cellSet())
+		{
+			assertEquals(Values.RELATIONAL_REPLACER.apply(Values.RELATIONAL_TEXT, cell.getRowKey(), cell.getColumnKey(), lookup, true), cell.getValue());
+		}
+	}
+
 }
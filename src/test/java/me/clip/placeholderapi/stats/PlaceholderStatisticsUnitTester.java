@@ -0,0 +1,180 @@
+package me.clip.placeholderapi.stats;
+
+import me.clip.placeholderapi.PlaceholderHook;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class PlaceholderStatisticsUnitTester
+{
+
+	private static final String IDENTIFIER = "echo";
+
+	private static final PlaceholderHook ECHO = new PlaceholderHook()
+	{
+		@Override
+		public String onRequest(final OfflinePlayer player, @NotNull final String params)
+		{
+			return params.equals("null") ? null : params;
+		}
+	};
+
+
+	@Test
+	void testAverageAndP99OfUniformLatencies()
+	{
+		final PlaceholderStatistics.Recorder recorder = new PlaceholderStatistics.Recorder();
+		for (int i = 0; i < 1000; i++)
+		{
+			recorder.record(false, 100);
+		}
+
+		final PlaceholderStatistics.Snapshot snapshot = recorder.snapshot();
+
+		assertEquals(1000, snapshot.getCalls());
+		assertEquals(100, snapshot.getAverageNanos());
+		assertWithinBucket(100, snapshot.getP99Nanos());
+	}
+
+	@Test
+	void testP99FollowsTheSlowestPercent()
+	{
+		final PlaceholderStatistics.Recorder fast = new PlaceholderStatistics.Recorder();
+		final PlaceholderStatistics.Recorder slow = new PlaceholderStatistics.Recorder();
+
+		for (int i = 0; i < 1000; i++)
+		{
+			fast.record(false, i < 990 ? 100 : 10_000);
+			slow.record(false, i < 989 ? 100 : 10_000);
+		}
+
+		assertEquals(199, fast.snapshot().getAverageNanos());
+		assertWithinBucket(100, fast.snapshot().getP99Nanos());
+
+		assertEquals(208, slow.snapshot().getAverageNanos());
+		assertWithinBucket(10_000, slow.snapshot().getP99Nanos());
+	}
+
+	@Test
+	void testLatenciesAcrossMagnitudesStayWithinTheirBucket()
+	{
+		for (final long nanos : new long[]{0, 1, 7, 8, 9, 15, 16, 1_000, 123_456, 50_000_000, 4_000_000_000L})
+		{
+			final PlaceholderStatistics.Recorder recorder = new PlaceholderStatistics.Recorder();
+			recorder.record(false, nanos);
+
+			assertWithinBucket(nanos, recorder.snapshot().getP99Nanos());
+		}
+	}
+
+	@Test
+	void testUnsampledRequestsAreCountedButNotTimed()
+	{
+		final PlaceholderStatistics.Recorder recorder = new PlaceholderStatistics.Recorder();
+		recorder.record(true, -1);
+		recorder.record(false, -1);
+		recorder.record(false, 40);
+
+		final PlaceholderStatistics.Snapshot snapshot = recorder.snapshot();
+
+		assertEquals(3, snapshot.getCalls());
+		assertEquals(1, snapshot.getNullReturns());
+		assertEquals(40, snapshot.getAverageNanos());
+		assertEquals(120, snapshot.getTotalNanos());
+	}
+
+	@Test
+	void testEverySampledRequestIsCounted()
+	{
+		final PlaceholderStatistics statistics = new PlaceholderStatistics(identifier -> ECHO);
+		statistics.configure(true, 16, false);
+
+		final PlaceholderHook hook = statistics.decorate(IDENTIFIER, ECHO);
+		for (int i = 0; i < 1000; i++)
+		{
+			hook.onRequest(null, i % 4 == 0 ? "null" : "value");
+		}
+
+		final PlaceholderStatistics.Snapshot snapshot = statistics.getStatistics().get(IDENTIFIER);
+
+		assertEquals(1000, snapshot.getCalls());
+		assertEquals(250, snapshot.getNullReturns());
+		assertEquals(0.25, snapshot.getNullRate());
+	}
+
+	@Test
+	void testParamsCombinationsAreCapped()
+	{
+		final PlaceholderStatistics statistics = new PlaceholderStatistics(identifier -> ECHO);
+		statistics.configure(true, 1, true);
+
+		final PlaceholderHook hook = statistics.decorate(IDENTIFIER, ECHO);
+		for (int i = 0; i < 1500; i++)
+		{
+			hook.onRequest(null, "param" + i);
+		}
+		hook.onRequest(null, "param0");
+
+		assertEquals(1000, statistics.getParamsStatistics().size());
+		assertEquals(2, statistics.getParamsStatistics().get(IDENTIFIER + "_param0").getCalls());
+		assertEquals(1501, statistics.getStatistics().get(IDENTIFIER).getCalls());
+	}
+
+	@Test
+	void testDisablingKeepsRecordedStatistics()
+	{
+		final PlaceholderStatistics statistics = new PlaceholderStatistics(identifier -> ECHO);
+		statistics.configure(true, 1, false);
+
+		final PlaceholderHook hook = statistics.decorate(IDENTIFIER, ECHO);
+		assertNotSame(ECHO, hook);
+		hook.onRequest(null, "value");
+
+		statistics.setEnabled(false);
+		assertSame(ECHO, statistics.decorate(IDENTIFIER, ECHO));
+		assertEquals(1, statistics.getStatistics().get(IDENTIFIER).getCalls());
+
+		statistics.configure(true, 1, false);
+		statistics.decorate(IDENTIFIER, ECHO).onRequest(null, "value");
+		assertEquals(2, statistics.getStatistics().get(IDENTIFIER).getCalls());
+
+		statistics.reset();
+		assertTrue(statistics.getStatistics().isEmpty());
+	}
+
+	@Test
+	void testUnregisteredHookIsNotDecorated()
+	{
+		final Map<String, PlaceholderHook> registry   = new HashMap<>(Collections.singletonMap(IDENTIFIER, ECHO));
+		final PlaceholderStatistics        statistics = new PlaceholderStatistics(registry::get);
+		statistics.configure(true, 1, false);
+
+		statistics.decorate(IDENTIFIER, ECHO).onRequest(null, "value");
+
+		registry.remove(IDENTIFIER);
+		statistics.invalidate(IDENTIFIER);
+
+		// looked up before it was unregistered
+		assertSame(ECHO, statistics.decorate(IDENTIFIER, ECHO));
+		assertEquals(1, statistics.getStatistics().get(IDENTIFIER).getCalls());
+	}
+
+
+	/**
+	 * Buckets hold a quarter of a power of two, so the reported upper bound may be up to 25% above the latency
+	 */
+	private static void assertWithinBucket(final long nanos, final long reported)
+	{
+		assertTrue(reported >= nanos && reported <= nanos + (nanos / 4), nanos + " reported as " + reported);
+	}
+
+}
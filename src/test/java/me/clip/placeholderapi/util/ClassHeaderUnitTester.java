@@ -0,0 +1,215 @@
+package me.clip.placeholderapi.util;
+
+import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import me.clip.placeholderapi.expansion.Relational;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public final class ClassHeaderUnitTester
+{
+
+	private static final Map<String, String> SOURCES = new LinkedHashMap<>();
+
+	static
+	{
+		SOURCES.put("Base", "public abstract class Base extends me.clip.placeholderapi.expansion.PlaceholderExpansion {\n" +
+							"  public String getAuthor() { return \"PlaceholderAPI\"; }\n" +
+							"  public String getVersion() { return \"1.0.0\"; }\n" +
+							"}\n");
+		SOURCES.put("Derived", "public class Derived extends Base {\n" +
+							   "  static final long BIG = 1234567890123L;\n" +
+							   "  static final double PI = 3.14159;\n" +
+							   "  public String getIdentifier() { return \"derived\" + (BIG * 31L + 9876543210L) + (PI * 2.5); }\n" +
+							   "}\n");
+		SOURCES.put("Friendly", "public interface Friendly extends me.clip.placeholderapi.expansion.Relational { }\n");
+		SOURCES.put("Neighbour", "public class Neighbour implements Friendly {\n" +
+								 "  public String onPlaceholderRequest(org.bukkit.entity.Player one, org.bukkit.entity.Player two, String identifier) { return identifier; }\n" +
+								 "}\n");
+		SOURCES.put("Unrelated", "public class Unrelated implements Runnable {\n" +
+								 "  public void run() { }\n" +
+								 "}\n");
+	}
+
+
+	private Path                folder;
+	private Map<String, byte[]> classes;
+
+
+	@BeforeEach
+	void setup() throws IOException
+	{
+		folder = Files.createTempDirectory("papi-headers");
+		classes = compile(folder);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException
+	{
+		try (final Stream<Path> stream = Files.walk(folder))
+		{
+			stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+
+	@Test
+	void testHeaderOfClassWithLongAndDoubleConstants() throws IOException
+	{
+		final ClassHeader header = ClassHeader.read(new ByteArrayInputStream(classes.get("discovery/Derived.class")));
+
+		assertNotNull(header);
+		assertEquals("discovery/Derived", header.getName());
+		assertEquals("discovery/Base", header.getSuperName());
+		assertArrayEquals(new String[0], header.getInterfaces());
+	}
+
+	@Test
+	void testHeaderOfInterfaceImplementation() throws IOException
+	{
+		final ClassHeader header = ClassHeader.read(new ByteArrayInputStream(classes.get("discovery/Neighbour.class")));
+
+		assertNotNull(header);
+		assertEquals("java/lang/Object", header.getSuperName());
+		assertArrayEquals(new String[]{"discovery/Friendly"}, header.getInterfaces());
+	}
+
+	@Test
+	void testMalformedClassFilesHaveNoHeader() throws IOException
+	{
+		final byte[] valid = classes.get("discovery/Derived.class");
+
+		assertNull(ClassHeader.read(new ByteArrayInputStream("not a class file".getBytes(StandardCharsets.UTF_8))));
+		assertNull(ClassHeader.read(new ByteArrayInputStream(Arrays.copyOf(valid, 24))));
+		assertNull(ClassHeader.read(new ByteArrayInputStream(new byte[0])));
+
+		final byte[] unknownTag = valid.clone();
+		unknownTag[10] = (byte) 99; // the tag of the first constant
+		assertNull(ClassHeader.read(new ByteArrayInputStream(unknownTag)));
+	}
+
+	@Test
+	void testSubclassesAreFoundThroughAbstractSuperclass() throws Exception
+	{
+		final File jar = jar("expansions.jar", Collections.emptyMap());
+
+		assertEquals(set("discovery.Base", "discovery.Derived"), names(FileUtil.getClassesInJar(jar, PlaceholderExpansion.class)));
+	}
+
+	@Test
+	void testImplementationsAreFoundThroughInterface() throws Exception
+	{
+		final File jar = jar("relational.jar", Collections.emptyMap());
+
+		assertEquals(set("discovery.Friendly", "discovery.Neighbour"), names(FileUtil.getClassesInJar(jar, Relational.class)));
+	}
+
+	@Test
+	void testServiceEntryIsUsedInsteadOfHeaders() throws Exception
+	{
+		final Map<String, byte[]> extra = Collections.singletonMap("META-INF/services/" + PlaceholderExpansion.class.getName(),
+																   "# only this one\ndiscovery.Derived\n\n".getBytes(StandardCharsets.UTF_8));
+
+		final File jar = jar("services.jar", extra);
+
+		assertEquals(set("discovery.Derived"), names(FileUtil.getClassesInJar(jar, PlaceholderExpansion.class)));
+	}
+
+
+	@NotNull
+	private File jar(@NotNull final String name, @NotNull final Map<String, byte[]> extra) throws IOException
+	{
+		final Map<String, byte[]> entries = new LinkedHashMap<>(classes);
+		entries.put("discovery/Broken.class", "not a class file".getBytes(StandardCharsets.UTF_8));
+		entries.put("discovery/Truncated.class", Arrays.copyOf(classes.get("discovery/Derived.class"), 24));
+		entries.put("discovery/readme.txt", "text".getBytes(StandardCharsets.UTF_8));
+		entries.putAll(extra);
+
+		final File jar = folder.resolve(name).toFile();
+		try (final JarOutputStream stream = new JarOutputStream(Files.newOutputStream(jar.toPath())))
+		{
+			for (final Map.Entry<String, byte[]> entry : entries.entrySet())
+			{
+				stream.putNextEntry(new JarEntry(entry.getKey()));
+				stream.write(entry.getValue());
+				stream.closeEntry();
+			}
+		}
+
+		return jar;
+	}
+
+	@NotNull
+	private static Map<String, byte[]> compile(@NotNull final Path folder) throws IOException
+	{
+		final Path sources = Files.createDirectories(folder.resolve("sources/discovery"));
+		final Path output  = Files.createDirectories(folder.resolve("classes"));
+
+		final List<String> arguments = new ArrayList<>(Arrays.asList("-d", output.toString(), "-cp", System.getProperty("java.class.path")));
+		for (final Map.Entry<String, String> source : SOURCES.entrySet())
+		{
+			final Path path = sources.resolve(source.getKey() + ".java");
+			Files.write(path, ("package discovery;\n" + source.getValue()).getBytes(StandardCharsets.UTF_8));
+
+			arguments.add(path.toString());
+		}
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null || compiler.run(null, null, null, arguments.toArray(new String[0])) != 0)
+		{
+			throw new IllegalStateException("failed to compile the discovery classes");
+		}
+
+		final Map<String, byte[]> classes = new LinkedHashMap<>();
+		try (final Stream<Path> stream = Files.walk(output))
+		{
+			for (final Path path : stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList()))
+			{
+				classes.put(output.relativize(path).toString().replace(File.separatorChar, '/'), Files.readAllBytes(path));
+			}
+		}
+
+		return classes;
+	}
+
+	@NotNull
+	private static Set<String> names(@NotNull final List<? extends Class<?>> classes)
+	{
+		return classes.stream().map(Class::getName).collect(Collectors.toSet());
+	}
+
+	@NotNull
+	private static Set<String> set(@NotNull final String... names)
+	{
+		return new HashSet<>(Arrays.asList(names));
+	}
+
+}